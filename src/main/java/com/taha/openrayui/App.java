@@ -1,12 +1,11 @@
 package com.taha.openrayui;
 
 import com.formdev.flatlaf.FlatDarkLaf;
+import com.taha.openrayui.core.AccumulationBuffer;
 import com.taha.openrayui.core.Camera;
 import com.taha.openrayui.core.Renderer;
-import com.taha.openrayui.geometry.BVHNode;
+import com.taha.openrayui.core.TileRenderer;
 import com.taha.openrayui.geometry.Hittable;
-import com.taha.openrayui.geometry.HittableList;
-import com.taha.openrayui.math.Ray;
 import com.taha.openrayui.math.Vec3;
 import com.taha.openrayui.model.Scene;
 import com.taha.openrayui.ui.MainFrame;
@@ -14,18 +13,43 @@ import com.taha.openrayui.core.RenderSettings;
 
 import javax.swing.*;
 import java.awt.image.BufferedImage;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 
 /**
  * The main entry point of the application.
- * It initializes the UI with a modern dark theme and manages the multi-threaded rendering loop.
+ * It initializes the UI with a modern dark theme and manages the multi-threaded rendering jobs.
  */
 public class App {
     // The main application window (Static access allows the render loop to update it)
     private static MainFrame frame;
 
-    // Thread management variables to handle stopping/starting renders
-    private static Thread currentRenderThread;
-    private static volatile boolean keepRendering = true;
+    // --- Render Job Management ---
+    // Every render request gets a new generation id; a job keeps running only while its id is current.
+    private static final AtomicLong renderGeneration = new AtomicLong();
+
+    // Jobs run one after another on a single dispatcher thread, so two renders never overlap.
+    // Requests that became stale while queued exit immediately without doing any work.
+    private static final ExecutorService renderDispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "render-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Work-stealing pool that renders the image tiles on all cores
+    private static ForkJoinPool renderPool;
+
+    // Progressive accumulation of the last render and the view it belongs to
+    // (only touched by the dispatcher thread)
+    private static AccumulationBuffer accumulation;
+    private static Vec3 accumulatedLookFrom;
+    private static Vec3 accumulatedLookAt;
+    private static double accumulatedFov;
+    private static int accumulatedDepth;
 
     public static void main(String[] args) {
         // --- STEP 1: SETUP MODERN DARK THEME (FLATLAF) ---
@@ -39,8 +63,9 @@ public class App {
         // --- STEP 2: LAUNCH THE UI ---
         SwingUtilities.invokeLater(() -> {
             // Initialize the main frame.
-            // We pass a lambda function '() -> startNewRender()' so the UI can trigger new renders.
-            frame = new MainFrame(() -> startNewRender());
+            // We pass a lambda function '() -> startNewRender()' so the UI can trigger new renders,
+            // and '() -> continueRender()' so raising the sample target keeps the previous samples.
+            frame = new MainFrame(() -> startNewRender(), () -> continueRender());
             frame.setVisible(true);
 
             // Automatically start the first render
@@ -49,33 +74,46 @@ public class App {
     }
 
     /**
-     * Stops any currently running render thread and starts a fresh one.
+     * Cancels the current render job and queues a fresh one.
      * This is called when the app starts or when settings (camera, quality) change.
      */
     private static void startNewRender() {
-        // 1. Signal the existing thread to stop
-        keepRendering = false;
-
-        // 2. Wait for the thread to die (graceful shutdown)
-        if (currentRenderThread != null && currentRenderThread.isAlive()) {
-            try {
-                currentRenderThread.join(100); // Wait up to 100ms
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+        startRender(false);
+    }
+
+    /**
+     * Called when only the sampling settings changed (Quality spinner, adaptive sampling options).
+     * If the view is unchanged, the new render continues from the existing accumulation.
+     */
+    private static void continueRender() {
+        startRender(true);
+    }
+
+    private static void startRender(boolean resume) {
+        // 1. Cancel the running job by moving to a new generation.
+        // This happens under the framebuffer lock, so once it returns no stale tile can write anymore.
+        long generation;
+        synchronized (frame.getRenderPanel().getImage()) {
+            generation = renderGeneration.incrementAndGet();
         }
 
-        // 3. Start a new render thread
-        keepRendering = true;
-        currentRenderThread = new Thread(() -> renderLoop());
-        currentRenderThread.start();
+        // 2. Queue the new job. It starts after the cancelled job has released the pool.
+        renderDispatcher.execute(() -> renderLoop(generation, resume));
     }
 
     /**
-     * The core rendering loop running on a background thread.
+     * The core rendering loop running on the render dispatcher thread.
      * It calculates pixel colors and updates the UI in real-time.
+     *
+     * @param generation The generation id of this job; the job stops once a newer one is requested.
+     * @param resume     If true, continues the existing accumulation when the view has not changed.
      */
-    private static void renderLoop() {
+    private static void renderLoop(long generation, boolean resume) {
+        BooleanSupplier keepRendering = () -> renderGeneration.get() == generation;
+
+        // Skip requests that were superseded while waiting in the queue
+        if (!keepRendering.getAsBoolean()) return;
+
         // Retrieve current settings (resolution, samples, camera pos)
         RenderSettings settings = RenderSettings.getInstance();
 
@@ -84,21 +122,10 @@ public class App {
         int samples = settings.samplesPerPixel;
         int depth = settings.maxDepth;
 
-        // Get the singleton scene instance
-        HittableList sceneList = Scene.getInstance().getWorld();
-
-        // --- OPTIMIZATION: Build BVH Tree ---
-        // Instead of passing the raw list to the renderer, we wrap it in a BVHNode.
-        // This organizes objects into a tree structure for faster intersection tests.
-        Hittable world;
-        if (sceneList.objects.isEmpty()) {
-            world = sceneList;
-        } else {
-            // Build the acceleration structure just before rendering
-            long bvhStart = System.currentTimeMillis();
-            world = new BVHNode(sceneList);
-            System.out.println("BVH Build Time: " + (System.currentTimeMillis() - bvhStart) + "ms");
-        }
+        // --- OPTIMIZATION: Cached BVH Tree ---
+        // The scene keeps its acceleration structure between renders and only rebuilds it
+        // after a geometry change, so camera moves and setting changes skip the build entirely.
+        Hittable world = Scene.getInstance().getAccelerator();
 
         // Initialize camera with dynamic settings from the UI
         Camera cam = new Camera(
@@ -109,74 +136,104 @@ public class App {
         );
 
         Renderer renderer = new Renderer(depth);
+        // Emissive objects are sampled directly at every non-specular hit
+        renderer.setLights(Scene.getInstance().getLights());
 
         // Access the image buffer directly from the UI panel
         BufferedImage image = frame.getRenderPanel().getImage();
 
-        System.out.println("Render Started! (Samples: " + samples + ", Camera: " + settings.lookFrom + ")");
-
-        // --- PIXEL PROCESSING LOOP ---
-        for (int j = 0; j < height; j++) {
-            // Check if we need to stop (e.g., user changed settings)
-            if (!keepRendering) return;
-
-            for (int i = 0; i < width; i++) {
-                Vec3 pixelColor = new Vec3(0, 0, 0);
-
-                // Anti-aliasing: Average multiple samples per pixel
-                for (int s = 0; s < samples; s++) {
-                    double u = (double) (i + Math.random()) / (width - 1);
-                    double v = (double) ((height - 1 - j) + Math.random()) / (height - 1);
-
-                    Ray r = cam.getRay(u, v);
-                    pixelColor = pixelColor.add(renderer.rayColor(r, sceneList, depth));
-                }
-
-                // Convert mathematical color (0.0-1.0) to RGB integer
-                int rgb = convertColor(pixelColor, samples);
+        // --- ACCUMULATION BUFFER ---
+        // Reuse the previous samples only if nothing but the sample target has changed.
+        if (!resume || !isSameView(accumulation, settings)) {
+            accumulation = new AccumulationBuffer(width, height);
+            accumulatedLookFrom = settings.lookFrom;
+            accumulatedLookAt = settings.lookAt;
+            accumulatedFov = settings.vFov;
+            accumulatedDepth = depth;
+        }
+        AccumulationBuffer buffer = accumulation;
+
+        System.out.println("Render Started! (Samples: " + buffer.getCompletedSamples() + "/" + samples
+                + ", Threads: " + settings.threadCount + ", Camera: " + settings.lookFrom + ")");
+
+        // --- PARALLEL TILE RENDERING ---
+        // The frame is split into tiles that are traced on all cores against the shared world.
+        TileRenderer tileRenderer = new TileRenderer(
+                world, cam, renderer, width, height, depth, settings.tileSize);
+        if (settings.adaptiveSampling) {
+            // Converged pixels stop early and the remaining budget goes to the noisy regions
+            tileRenderer.setAdaptiveSampling(settings.adaptiveThreshold, settings.adaptiveMinSamples,
+                    samples * settings.adaptiveMaxSampleFactor);
+        }
+        tileRenderer.setSampler(settings.sampler, samples, settings.seed);
+        if (settings.packetSize > 0) tileRenderer.setPacketTracing(settings.packetSize);
+        tileRenderer.setWavefront(settings.wavefront);
+        ForkJoinPool pool = getRenderPool(settings.threadCount);
+
+        long renderStart = System.currentTimeMillis();
+        long samplesBefore = buffer.getTotalSamples();
+
+        // Progressive mode adds 1 sample per pixel per pass and shows the running average after each pass.
+        tileRenderer.render(
+                pool,
+                buffer,
+                image,
+                samples,
+                settings.progressive,
+                keepRendering,
+                // Refresh the UI after finishing each tile to show progress
+                () -> frame.getRenderPanel().repaint(),
+                () -> updateConvergenceMap(buffer, settings, keepRendering)
+        );
+        updateConvergenceMap(buffer, settings, keepRendering);
 
-                // Write pixel to the image buffer
-                image.setRGB(i, j, rgb);
-            }
+        if (keepRendering.getAsBoolean()) {
+            long samplesTaken = buffer.getTotalSamples() - samplesBefore;
+            System.out.println("Render Finished. (" + (System.currentTimeMillis() - renderStart) + "ms, "
+                    + samplesTaken + " samples, avg " + String.format(Locale.US, "%.1f",
+                    (double) buffer.getTotalSamples() / (width * height)) + " spp)");
+        }
+    }
 
-            // Refresh the UI after finishing each row to show progress
-            frame.getRenderPanel().repaint();
+    /**
+     * Writes the adaptive sampling convergence map into the render panel when it is being displayed.
+     */
+    private static void updateConvergenceMap(AccumulationBuffer buffer, RenderSettings settings,
+                                             BooleanSupplier keepRendering) {
+        if (!settings.showConvergenceMap) return;
+
+        // Same rule as the tiles: a stale job must not write into the panel's images.
+        BufferedImage map = frame.getRenderPanel().getConvergenceMap();
+        synchronized (frame.getRenderPanel().getImage()) {
+            if (!keepRendering.getAsBoolean()) return;
+            buffer.writeConvergenceMap(map, settings.adaptiveThreshold, settings.adaptiveMinSamples);
         }
-        System.out.println("Render Finished.");
+        frame.getRenderPanel().repaint();
     }
 
     /**
-     * Helper: Converts a Vec3 color to a Java integer RGB format.
-     * Includes Gamma Correction (Gamma 2.0).
+     * Checks if an accumulation buffer was rendered with the current camera, resolution and depth.
+     * Vec3 is immutable and every camera change assigns a new instance, so identity comparison is enough.
      */
-    private static int convertColor(Vec3 pixelColor, int samplesPerPixel) {
-        double r = pixelColor.x;
-        double g = pixelColor.y;
-        double b = pixelColor.z;
-
-        // Scale color by the number of samples
-        double scale = 1.0 / samplesPerPixel;
-
-        // Apply Gamma 2.0 Correction (Square root)
-        r = Math.sqrt(r * scale);
-        g = Math.sqrt(g * scale);
-        b = Math.sqrt(b * scale);
-
-        // Clamp values to [0.0, 0.999] and map to [0, 255]
-        int ir = (int) (256 * clamp(r, 0.0, 0.999));
-        int ig = (int) (256 * clamp(g, 0.0, 0.999));
-        int ib = (int) (256 * clamp(b, 0.0, 0.999));
-
-        // Combine components into a single integer
-        return (ir << 16) | (ig << 8) | ib;
+    private static boolean isSameView(AccumulationBuffer buffer, RenderSettings settings) {
+        return buffer != null
+                && buffer.getWidth() == settings.imageWidth
+                && buffer.getHeight() == settings.imageHeight
+                && accumulatedLookFrom == settings.lookFrom
+                && accumulatedLookAt == settings.lookAt
+                && accumulatedFov == settings.vFov
+                && accumulatedDepth == settings.maxDepth;
     }
 
     /**
-     * Helper: Clamps a value between a minimum and maximum.
+     * Returns the shared work-stealing pool, recreating it if the configured thread count changed.
      */
-    private static double clamp(double x, double min, double max) {
-        if (x < min) return min;
-        if (x > max) return max;
-        return x;
+    private static synchronized ForkJoinPool getRenderPool(int threadCount) {
+        int parallelism = Math.max(1, threadCount);
+        if (renderPool == null || renderPool.getParallelism() != parallelism) {
+            if (renderPool != null) renderPool.shutdown();
+            renderPool = new ForkJoinPool(parallelism);
+        }
+        return renderPool;
     }
-}
\ No newline at end of file
+}
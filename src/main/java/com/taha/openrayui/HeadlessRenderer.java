@@ -0,0 +1,336 @@
+package com.taha.openrayui;
+
+import com.taha.openrayui.core.AccumulationBuffer;
+import com.taha.openrayui.core.Camera;
+import com.taha.openrayui.core.RenderSettings;
+import com.taha.openrayui.core.Renderer;
+import com.taha.openrayui.core.TileRenderer;
+import com.taha.openrayui.geometry.Hittable;
+import com.taha.openrayui.geometry.PacketTracer;
+import com.taha.openrayui.io.ImageExporter;
+import com.taha.openrayui.io.MeshCache;
+import com.taha.openrayui.io.SceneSerializer;
+import com.taha.openrayui.material.Lambertian;
+import com.taha.openrayui.math.Vec3;
+import com.taha.openrayui.model.Scene;
+import com.taha.openrayui.sampler.SamplerType;
+
+import java.awt.image.BufferedImage;
+import javax.imageio.ImageIO;
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Command-line batch renderer for render farms and benchmarks.
+ * Loads a .ray scene, renders it on all cores without creating any window, writes a PNG
+ * and prints timing and throughput (Mrays/s) so results can be tracked over time.
+ * <p>
+ * Example:
+ * {@code java -cp target/classes com.taha.openrayui.HeadlessRenderer --scene my_scene.ray --out frame.png
+ * --width 1920 --height 1080 --spp 64 --depth 20 --from 0,1,3 --at 0,0,-1 --fov 30 --threads 16}
+ * </p>
+ */
+public class HeadlessRenderer {
+
+    // --- Default Parameters ---
+    private String scenePath = null; // null = built-in default scene
+    private String preset = "default"; // Built-in scene used without --scene: default, cornell or mis
+    private String objPath = null;   // Optional mesh (.obj or .rmesh) added to the scene
+    private int sphereFieldCount = 0; // Random spheres added as one SphereSet (0 = none)
+    private int instanceCount = 0; // Instanced trees sharing one BVH (0 = none)
+    private String outputPath = "render_output.png";
+    private int width = 800;
+    private int height = 450;
+    private int samplesPerPixel = 10;
+    private int maxDepth = 20;
+    private int tileSize = 32;
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    private Vec3 lookFrom = new Vec3(0, 0, 1);
+    private Vec3 lookAt = new Vec3(0, 0, -1);
+    private double vFov = 20.0;
+    private double adaptiveThreshold = 0; // 0 = adaptive sampling disabled
+    private SamplerType samplerType = RenderSettings.getInstance().sampler;
+    private long seed = RenderSettings.getInstance().seed;
+    private String goldenPath = null; // Reference image to compare the result against
+    private int packetSize = RenderSettings.getInstance().packetSize; // 0 = one camera ray at a time
+    private boolean wavefront = RenderSettings.getInstance().wavefront; // Breadth-first instead of depth-first paths
+
+    public static void main(String[] args) {
+        // Must be set before any AWT class is touched, so no display is ever initialized.
+        System.setProperty("java.awt.headless", "true");
+
+        HeadlessRenderer cli = new HeadlessRenderer();
+        try {
+            cli.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            printUsage();
+            System.exit(2);
+            return;
+        }
+
+        try {
+            cli.run();
+        } catch (Exception e) {
+            System.err.println("Render failed: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private void run() throws Exception {
+        // 1. Load the scene
+        long loadStart = System.nanoTime();
+        Scene scene = Scene.getInstance();
+        if (scenePath != null) {
+            SceneSerializer.load(new File(scenePath));
+        } else if (preset.equals("cornell")) {
+            scene.loadCornellBox();
+        } else if (preset.equals("mis")) {
+            scene.loadMisTestScene();
+        }
+        if (objPath != null) {
+            scene.addObject(MeshCache.load(new File(objPath), new Lambertian(new Vec3(0.7, 0.7, 0.7))));
+        }
+        if (sphereFieldCount > 0) {
+            scene.addSphereField(sphereFieldCount, seed);
+        }
+        if (instanceCount > 0) {
+            scene.addInstanceField(instanceCount, seed);
+        }
+        long loadTime = System.nanoTime() - loadStart;
+
+        // 2. Build the acceleration structure
+        long bvhStart = System.nanoTime();
+        Hittable world = scene.getAccelerator();
+        long bvhTime = System.nanoTime() - bvhStart;
+
+        // 3. Render
+        Camera cam = new Camera(lookFrom, lookAt, vFov, (double) width / height);
+        Renderer renderer = new Renderer(maxDepth);
+        renderer.setLights(scene.getLights());
+        TileRenderer tileRenderer = new TileRenderer(world, cam, renderer, width, height, maxDepth, tileSize);
+        if (adaptiveThreshold > 0) {
+            RenderSettings defaults = RenderSettings.getInstance();
+            tileRenderer.setAdaptiveSampling(adaptiveThreshold, defaults.adaptiveMinSamples,
+                    samplesPerPixel * defaults.adaptiveMaxSampleFactor);
+        }
+
+        tileRenderer.setSampler(samplerType, samplesPerPixel, seed);
+        if (packetSize > 0) {
+            PacketTracer tracer = tileRenderer.setPacketTracing(packetSize);
+            System.out.println(tracer != null
+                    ? "Ray packets: " + packetSize + " camera rays (" + tracer.getName() + ")"
+                    : "Ray packets: not supported for this scene, tracing single rays");
+        }
+        if (wavefront) {
+            tileRenderer.setWavefront(true);
+            System.out.println("Integrator: wavefront (batches of paths, hits sorted by material)");
+        }
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        AccumulationBuffer buffer = new AccumulationBuffer(width, height);
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threadCount));
+
+        System.out.println("Rendering " + (scenePath != null ? scenePath : preset + " scene")
+                + " (" + scene.getWorld().size() + " objects, " + renderer.getLights().size() + " lights) at " + width + "x" + height
+                 + ", " + samplesPerPixel + " spp (" + samplerType + "), depth " + maxDepth + ", " + threadCount + " threads");
+
+        long renderStart = System.nanoTime();
+        tileRenderer.render(pool, buffer, image, samplesPerPixel, false, () -> true, null, null);
+        long renderTime = System.nanoTime() - renderStart;
+        pool.shutdown();
+
+        // 4. Export
+        ImageExporter.saveImage(image, new File(outputPath));
+
+        // 5. Report
+        double renderSeconds = renderTime / 1e9;
+        long rays = renderer.getRaysTraced();
+        long cameraRays = buffer.getTotalSamples();
+
+        System.out.println(String.format(Locale.US, "Scene Load:  %8.1f ms", loadTime / 1e6));
+        System.out.println(String.format(Locale.US, "BVH Build:   %8.1f ms", bvhTime / 1e6));
+        System.out.println(String.format(Locale.US, "Render:      %8.1f ms", renderTime / 1e6));
+        System.out.println(String.format(Locale.US, "Rays:        %d (%d camera rays, avg %.1f spp)",
+                rays, cameraRays, (double) cameraRays / ((long) width * height)));
+        System.out.println(String.format(Locale.US, "Throughput:  %8.3f Mrays/s (%.3f Msamples/s)",
+                rays / renderSeconds / 1e6, cameraRays / renderSeconds / 1e6));
+        System.out.println("Saved: " + outputPath);
+
+        // 6. Regression check: renders are deterministic, so any difference is a real change
+        if (goldenPath != null && !matchesGolden(image, new File(goldenPath))) {
+            System.exit(3);
+        }
+    }
+
+    /**
+     * Compares the render pixel by pixel with a reference image and prints the result.
+     */
+    private static boolean matchesGolden(BufferedImage image, File goldenFile) throws IOException {
+        BufferedImage golden = ImageIO.read(goldenFile);
+        if (golden == null) throw new IOException("Cannot read golden image " + goldenFile);
+        if (golden.getWidth() != image.getWidth() || golden.getHeight() != image.getHeight()) {
+            System.out.println("Golden:      size mismatch (" + golden.getWidth() + "x" + golden.getHeight() + ")");
+            return false;
+        }
+
+        long differing = 0;
+        int maxDifference = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int a = image.getRGB(x, y);
+                int b = golden.getRGB(x, y);
+                if ((a & 0xFFFFFF) == (b & 0xFFFFFF)) continue;
+                differing++;
+                for (int shift = 0; shift < 24; shift += 8) {
+                    maxDifference = Math.max(maxDifference, Math.abs(((a >> shift) & 0xFF) - ((b >> shift) & 0xFF)));
+                }
+            }
+        }
+
+        if (differing == 0) {
+            System.out.println("Golden:      identical to " + goldenFile);
+            return true;
+        }
+        System.out.println("Golden:      " + differing + " pixels differ from " + goldenFile
+                + " (max channel difference " + maxDifference + ")");
+        return false;
+    }
+
+    // --- Argument Parsing ---
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("-h") || arg.equals("--help")) {
+                printUsage();
+                System.exit(0);
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+
+            switch (arg) {
+                case "--scene":   scenePath = value; break;
+                case "--preset":  preset = parsePreset(value); break;
+                case "--obj":     objPath = value; break;
+                case "--spheres": sphereFieldCount = parsePositiveInt(arg, value); break;
+                case "--instances": instanceCount = parsePositiveInt(arg, value); break;
+                case "--out":     outputPath = value; break;
+                case "--width":   width = parsePositiveInt(arg, value); break;
+                case "--height":  height = parsePositiveInt(arg, value); break;
+                case "--spp":     samplesPerPixel = parsePositiveInt(arg, value); break;
+                case "--depth":   maxDepth = parsePositiveInt(arg, value); break;
+                case "--tile":    tileSize = parsePositiveInt(arg, value); break;
+                case "--threads": threadCount = parsePositiveInt(arg, value); break;
+                case "--from":    lookFrom = parseVec3(arg, value); break;
+                case "--at":      lookAt = parseVec3(arg, value); break;
+                case "--fov":     vFov = parseDouble(arg, value); break;
+                case "--adaptive": adaptiveThreshold = parseDouble(arg, value); break;
+                case "--sampler": samplerType = parseSampler(value); break;
+                case "--seed":    seed = parseLong(arg, value); break;
+                case "--golden":  goldenPath = value; break;
+                case "--packets": packetSize = parsePositiveInt(arg, value); break;
+                case "--integrator": wavefront = parseIntegrator(value); break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        if (width < 2 || height < 2) {
+            throw new IllegalArgumentException("Resolution must be at least 2x2");
+        }
+        if (packetSize != 0 && packetSize != 4 && packetSize != 8 && packetSize != 16) {
+            throw new IllegalArgumentException("--packets must be 4, 8 or 16");
+        }
+    }
+
+    private static int parsePositiveInt(String option, String value) {
+        try {
+            int result = Integer.parseInt(value);
+            if (result <= 0) throw new IllegalArgumentException(option + " must be positive");
+            return result;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid integer for " + option + ": " + value);
+        }
+    }
+
+    private static double parseDouble(String option, String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + option + ": " + value);
+        }
+    }
+
+    private static long parseLong(String option, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid integer for " + option + ": " + value);
+        }
+    }
+
+    private static SamplerType parseSampler(String value) {
+        try {
+            return SamplerType.valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown sampler " + value
+                    + " (expected random, stratified, halton, sobol or blue-noise)");
+        }
+    }
+
+    private static boolean parseIntegrator(String value) {
+        switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "path": return false;
+            case "wavefront": return true;
+            default: throw new IllegalArgumentException("Unknown integrator " + value + " (expected path or wavefront)");
+        }
+    }
+
+    private static String parsePreset(String value) {
+        String name = value.trim().toLowerCase(Locale.ROOT);
+        if (!name.equals("default") && !name.equals("cornell") && !name.equals("mis")) {
+            throw new IllegalArgumentException("Unknown preset " + value + " (expected default, cornell or mis)");
+        }
+        return name;
+    }
+
+    private static Vec3 parseVec3(String option, String value) {
+        String[] parts = value.split(",");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException(option + " expects x,y,z but got " + value);
+        }
+        return new Vec3(parseDouble(option, parts[0].trim()),
+                parseDouble(option, parts[1].trim()),
+                parseDouble(option, parts[2].trim()));
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: HeadlessRenderer [options]");
+        System.out.println("  --scene <file.ray>   Scene file (default: built-in scene)");
+        System.out.println("  --preset <name>      Built-in scene without --scene: default, cornell or mis (light sampling tests)");
+        System.out.println("  --obj <file>         Add a triangle mesh (.obj, cached as .obj.rmesh, or .rmesh) to the scene");
+        System.out.println("  --spheres <n>        Add n random spheres on the floor (stored as one SphereSet)");
+        System.out.println("  --instances <n>      Add n instanced trees on the floor (one shared BVH, n transforms)");
+        System.out.println("  --out <file.png>     Output image (default: render_output.png)");
+        System.out.println("  --width <px>         Image width (default: 800)");
+        System.out.println("  --height <px>        Image height (default: 450)");
+        System.out.println("  --spp <n>            Samples per pixel (default: 10)");
+        System.out.println("  --depth <n>          Max bounces (default: 20)");
+        System.out.println("  --from <x,y,z>       Camera position (default: 0,0,1)");
+        System.out.println("  --at <x,y,z>         Camera target (default: 0,0,-1)");
+        System.out.println("  --fov <degrees>      Vertical field of view (default: 20)");
+        System.out.println("  --threads <n>        Worker threads (default: all cores)");
+        System.out.println("  --tile <px>          Tile size (default: 32)");
+        System.out.println("  --adaptive <error>   Enable adaptive sampling with this relative error threshold");
+        System.out.println("  --sampler <name>     random, stratified, halton, sobol or blue-noise (default: sobol)");
+        System.out.println("  --seed <n>           Render seed; the same seed always gives the same image (default: 0)");
+        System.out.println("  --packets <n>        Trace camera rays in packets of 4, 8 or 16 (SIMD with --add-modules jdk.incubator.vector)");
+        System.out.println("  --integrator <name>  path (depth-first) or wavefront (bounce by bounce, sorted by material)");
+        System.out.println("  --golden <file.png>  Compare with a reference image, exit code 3 if any pixel differs");
+    }
+}
@@ -0,0 +1,208 @@
+package com.taha.openrayui.core;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A persistent floating-point framebuffer for progressive rendering.
+ * Every render pass adds its samples into the running per-pixel sums, and the displayed image
+ * is the running average. Because the sums survive between passes, raising the sample target
+ * continues from the existing accumulation instead of starting over.
+ * <p>
+ * For adaptive sampling it also keeps the sum of squared sample luminance per pixel, which gives a
+ * running variance estimate and lets the renderer stop sampling pixels that have converged.
+ * </p>
+ */
+public class AccumulationBuffer {
+
+    private final int width;
+    private final int height;
+
+    // Interleaved RGB radiance sums (3 doubles per pixel)
+    private final double[] color;
+
+    // Number of samples accumulated for each pixel (a cancelled pass may leave some pixels ahead)
+    private final int[] sampleCounts;
+
+    // Sum of squared luminance of every sample (variance estimate for adaptive sampling)
+    private final double[] luminanceSquared;
+
+    // Last resolved display color of each pixel (reused for pixels that were not sampled in a pass)
+    private final int[] resolved;
+
+    // Pixels whose error dropped below the adaptive threshold (never re-evaluated, keeps passes cheap)
+    private final boolean[] converged;
+
+    // Samples per pixel of all fully completed passes (with adaptive sampling: samples of a pixel that was never skipped)
+    private int completedSamples;
+
+    // Total samples taken over the whole frame (updated once per tile)
+    private final LongAdder totalSamples = new LongAdder();
+
+    // Pixels that were not yet converged after the last pass
+    private volatile long activePixels;
+
+    public AccumulationBuffer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.color = new double[width * height * 3];
+        this.sampleCounts = new int[width * height];
+        this.luminanceSquared = new double[width * height];
+        this.converged = new boolean[width * height];
+        this.resolved = new int[width * height];
+        this.activePixels = (long) width * height;
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+
+    /**
+     * @return The number of samples per pixel that every pixel has received.
+     */
+    public int getCompletedSamples() { return completedSamples; }
+
+    /**
+     * Marks a pass as finished for the whole frame.
+     * @param samples Samples per pixel that the pass added.
+     */
+    public void completePass(int samples) {
+        completedSamples += samples;
+    }
+
+    public long getTotalSamples() { return totalSamples.sum(); }
+
+    public void addTotalSamples(long samples) { totalSamples.add(samples); }
+
+    public long getActivePixels() { return activePixels; }
+
+    public void setActivePixels(long activePixels) { this.activePixels = activePixels; }
+
+    /**
+     * Adds the summed radiance of one or more samples to a pixel.
+     * Tiles never overlap, so concurrent calls always touch different pixels.
+     *
+     * @param luminanceSq The sum of the squared luminance of each individual sample
+     */
+    public void add(int x, int y, double r, double g, double b, double luminanceSq, int samples) {
+        int index = y * width + x;
+        color[index * 3]     += r;
+        color[index * 3 + 1] += g;
+        color[index * 3 + 2] += b;
+        luminanceSquared[index] += luminanceSq;
+        sampleCounts[index] += samples;
+    }
+
+    /**
+     * Estimates the relative standard error of a pixel's mean luminance.
+     * Dark pixels are measured against a small floor so that noise in near-black areas
+     * does not dominate the sample budget.
+     *
+     * @return The relative error, or infinity if fewer than two samples were taken.
+     */
+    public double relativeError(int x, int y) {
+        int index = y * width + x;
+        int n = sampleCounts[index];
+        if (n < 2) return Double.POSITIVE_INFINITY;
+
+        double mean = luminance(color[index * 3], color[index * 3 + 1], color[index * 3 + 2]) / n;
+        double variance = (luminanceSquared[index] / n - mean * mean) * n / (n - 1);
+        if (variance < 0) variance = 0; // Floating point cancellation
+
+        double standardError = Math.sqrt(variance / n);
+        return standardError / Math.max(mean, 0.05);
+    }
+
+    /**
+     * @return True if the pixel has at least {@code minSamples} samples and its error is below the threshold.
+     * Once a pixel has converged, the result is cached and the error is not evaluated again.
+     */
+    public boolean isConverged(int x, int y, double threshold, int minSamples) {
+        int index = y * width + x;
+        if (converged[index]) return true;
+        if (sampleCounts[index] >= minSamples && relativeError(x, y) <= threshold) {
+            converged[index] = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Writes a convergence map: green pixels have converged, red pixels are still being sampled.
+     * Brightness shows the number of samples relative to the most sampled pixel.
+     */
+    public void writeConvergenceMap(BufferedImage target, double threshold, int minSamples) {
+        int maxSamples = 1;
+        for (int count : sampleCounts) maxSamples = Math.max(maxSamples, count);
+
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int count = sampleCounts[y * width + x];
+                int level = (int) (55 + 200 * Math.sqrt((double) count / maxSamples));
+                row[x] = isConverged(x, y, threshold, minSamples) ? (level << 8) : (level << 16);
+            }
+            target.setRGB(0, y, width, 1, row, 0, width);
+        }
+    }
+
+    /**
+     * Rec. 709 luminance of a linear RGB color.
+     */
+    public static double luminance(double r, double g, double b) {
+        return 0.2126 * r + 0.7152 * g + 0.0722 * b;
+    }
+
+    public int getSampleCount(int x, int y) {
+        return sampleCounts[y * width + x];
+    }
+
+    /**
+     * Resolves the running average of a pixel to a displayable RGB integer.
+     */
+    public int resolve(int x, int y) {
+        int index = y * width + x;
+        int samples = sampleCounts[index];
+        if (samples == 0) return 0;
+        int rgb = toRGB(color[index * 3], color[index * 3 + 1], color[index * 3 + 2], samples);
+        resolved[index] = rgb;
+        return rgb;
+    }
+
+    /**
+     * @return The color computed by the last {@link #resolve(int, int)} call for this pixel.
+     */
+    public int getResolved(int x, int y) {
+        return resolved[y * width + x];
+    }
+
+    /**
+     * Helper: Converts a summed color to a Java integer RGB format.
+     * Includes Gamma Correction (Gamma 2.0).
+     */
+    public static int toRGB(double r, double g, double b, int samplesPerPixel) {
+        // Scale color by the number of samples
+        double scale = 1.0 / samplesPerPixel;
+
+        // Apply Gamma 2.0 Correction (Square root)
+        r = Math.sqrt(r * scale);
+        g = Math.sqrt(g * scale);
+        b = Math.sqrt(b * scale);
+
+        // Clamp values to [0.0, 0.999] and map to [0, 255]
+        int ir = (int) (256 * clamp(r, 0.0, 0.999));
+        int ig = (int) (256 * clamp(g, 0.0, 0.999));
+        int ib = (int) (256 * clamp(b, 0.0, 0.999));
+
+        // Combine components into a single integer
+        return (ir << 16) | (ig << 8) | ib;
+    }
+
+    /**
+     * Helper: Clamps a value between a minimum and maximum.
+     */
+    private static double clamp(double x, double min, double max) {
+        if (x < min) return min;
+        if (x > max) return max;
+        return x;
+    }
+}
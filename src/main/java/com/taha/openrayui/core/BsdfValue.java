@@ -0,0 +1,11 @@
+package com.taha.openrayui.core;
+
+/**
+ * The BSDF of a surface evaluated for one direction, filled in place by
+ * {@link com.taha.openrayui.material.Material#evaluate}.
+ * Reused for every light sample of a thread (see {@link TraceContext}), so evaluation does not allocate.
+ */
+public class BsdfValue {
+    public double r, g, b; // BSDF x cosine at the surface (per channel)
+    public double pdf;     // Probability density with which scatter() samples the direction, per unit solid angle
+}
@@ -9,6 +9,12 @@ public class Camera {
     private Vec3 horizontal;
     private Vec3 vertical;
 
+    // Primitive copies of the basis for the allocation-free getRay(s, t, out)
+    private final double ox, oy, oz;
+    private final double llx, lly, llz;
+    private final double hx, hy, hz;
+    private final double vx, vy, vz;
+
     public Camera(Vec3 lookFrom, Vec3 lookAt, double vfov, double aspectRatio) {
         double theta = Math.toRadians(vfov);
         double h = Math.tan(theta / 2);
@@ -27,12 +33,25 @@ public class Camera {
                 .sub(horizontal.div(2))
                 .sub(vertical.div(2))
                 .sub(w);
+
+        ox = origin.x; oy = origin.y; oz = origin.z;
+        llx = lowerLeftCorner.x; lly = lowerLeftCorner.y; llz = lowerLeftCorner.z;
+        hx = horizontal.x; hy = horizontal.y; hz = horizontal.z;
+        vx = vertical.x; vy = vertical.y; vz = vertical.z;
     }
 
     public Ray getRay(double s, double t) {
-        return new Ray(origin, lowerLeftCorner
-                .add(horizontal.mul(s))
-                .add(vertical.mul(t))
-                .sub(origin));
+        return getRay(s, t, new Ray());
+    }
+
+    /**
+     * Writes the camera ray through the viewport coordinate (s, t) into an existing ray.
+     * Used by the render loop to avoid allocating a ray per sample.
+     */
+    public Ray getRay(double s, double t, Ray out) {
+        return out.set(ox, oy, oz,
+                llx + s * hx + t * vx - ox,
+                lly + s * hy + t * vy - oy,
+                llz + s * hz + t * vz - oz);
     }
-}
\ No newline at end of file
+}
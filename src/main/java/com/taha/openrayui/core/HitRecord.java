@@ -7,40 +7,69 @@ import com.taha.openrayui.material.Material;
 /**
  * A structure to store details about a ray-object intersection.
  * It holds the hit point, surface normal, ray parameter t, and material.
+ * <p>
+ * PERFORMANCE: Point and normal are stored as primitive doubles, so a single HitRecord per thread
+ * can be reused for every intersection without allocating vectors.
+ * </p>
  */
 public class HitRecord {
-    public Vec3 p;         // Intersection point
-    public Vec3 normal;    // Surface normal at the intersection
-    public double t;       // Ray parameter t where P(t) = origin + t*direction
+    public double px, py, pz; // Intersection point
+    public double nx, ny, nz; // Surface normal at the intersection (unit length, against the ray)
+    public double t;          // Ray parameter t where P(t) = origin + t*direction
     public boolean frontFace; // True if ray hit the front face, false if inside
-    public Material mat;   // The material of the object hit
-    public double u;       // Texture coordinate U
-    public double v;       // Texture coordinate V
+    public Material mat;      // The material of the object hit
+    public double u;          // Texture coordinate U
+    public double v;          // Texture coordinate V
+
+    /**
+     * Stores the intersection point P(t) of the given ray.
+     */
+    public void setPoint(Ray r, double t) {
+        this.t = t;
+        this.px = r.ox + t * r.dx;
+        this.py = r.oy + t * r.dy;
+        this.pz = r.oz + t * r.dz;
+    }
 
     /**
      * Sets the hit record normal vector.
      * Ensures the normal always points against the incident ray.
      *
      * @param r The incident ray
-     * @param outwardNormal The geometric normal pointing out of the surface
+     * @param outX X of the geometric normal pointing out of the surface
+     * @param outY Y of the outward normal
+     * @param outZ Z of the outward normal
      */
-    public void setFaceNormal(Ray r, Vec3 outwardNormal) {
+    public void setFaceNormal(Ray r, double outX, double outY, double outZ) {
         // If ray and normal face the same direction, ray is inside the object.
-        frontFace = r.direction().dot(outwardNormal) < 0;
-        normal = frontFace ? outwardNormal : outwardNormal.mul(-1);
+        frontFace = r.dx * outX + r.dy * outY + r.dz * outZ < 0;
+        if (frontFace) {
+            nx = outX; ny = outY; nz = outZ;
+        } else {
+            nx = -outX; ny = -outY; nz = -outZ;
+        }
     }
 
+    // --- Vec3 accessors (allocate, intended for non-critical code) ---
+
+    public Vec3 getPoint() { return new Vec3(px, py, pz); }
+
+    public Vec3 getNormal() { return new Vec3(nx, ny, nz); }
+
     /**
      * Copies data from another HitRecord into this one.
      * Essential for tracking the closest hit in a list of objects.
      */
     public void copyFrom(HitRecord rec) {
-        this.p = rec.p;
-        this.normal = rec.normal;
+        this.px = rec.px;
+        this.py = rec.py;
+        this.pz = rec.pz;
+        this.nx = rec.nx;
+        this.ny = rec.ny;
+        this.nz = rec.nz;
         this.t = rec.t;
         this.frontFace = rec.frontFace;
         this.mat = rec.mat;
-        // FIX: Copy texture coordinates!
         this.u = rec.u;
         this.v = rec.v;
     }
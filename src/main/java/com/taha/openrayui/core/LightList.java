@@ -0,0 +1,113 @@
+package com.taha.openrayui.core;
+
+import com.taha.openrayui.geometry.Hittable;
+import com.taha.openrayui.material.Material;
+import com.taha.openrayui.math.Vec3;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The lights of a scene that the renderer samples directly (next-event estimation):
+ * every object with an emissive material whose shape supports {@link Hittable#sampleLight}.
+ * <p>
+ * PERFORMANCE: Lights are picked in proportion to their power (emitted luminance x surface area) with a
+ * binary search over a cumulative table, so a bright ceiling panel receives more shadow rays than a dim
+ * indicator lamp, and the cost of a pick grows only logarithmically with the number of lights.
+ * </p>
+ */
+public class LightList {
+
+    public static final LightList EMPTY = new LightList(Collections.emptyList());
+
+    private final Hittable[] lights;
+    private final double[] cdf;         // cdf[i] = probability of picking one of the lights 0 .. i
+    private final double[] probability; // Probability of picking light i
+
+    // Indices of the lights using each emissive material, to find the light a BSDF-sampled ray has hit
+    private final Map<Material, int[]> lightsByMaterial = new IdentityHashMap<>();
+
+    /**
+     * @param lights Objects with an emissive material and a positive {@link Hittable#surfaceArea()}
+     */
+    public LightList(List<Hittable> lights) {
+        int count = lights.size();
+        this.lights = lights.toArray(new Hittable[0]);
+        this.cdf = new double[count];
+        this.probability = new double[count];
+
+        double total = 0;
+        double[] power = new double[count];
+        for (int i = 0; i < count; i++) {
+            Vec3 radiance = this.lights[i].getMaterial().emitted();
+            power[i] = AccumulationBuffer.luminance(radiance.x, radiance.y, radiance.z) * this.lights[i].surfaceArea();
+            total += power[i];
+            lightsByMaterial.merge(this.lights[i].getMaterial(), new int[]{i}, LightList::concat);
+        }
+
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            // Black lights (zero total power): fall back to a uniform choice
+            probability[i] = total > 0 ? power[i] / total : 1.0 / count;
+            sum += probability[i];
+            cdf[i] = sum;
+        }
+        if (count > 0) cdf[count - 1] = 1.0;
+    }
+
+    public int size() { return lights.length; }
+
+    public boolean isEmpty() { return lights.length == 0; }
+
+    public Hittable get(int index) { return lights[index]; }
+
+    /**
+     * @param u Uniform value in [0, 1)
+     * @return Index of the picked light (by power)
+     */
+    public int select(double u) {
+        int lo = 0, hi = lights.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (u < cdf[mid]) hi = mid;
+            else lo = mid + 1;
+        }
+        return lo;
+    }
+
+    /**
+     * @return Probability that {@link #select} picks the given light
+     */
+    public double selectionProbability(int index) {
+        return probability[index];
+    }
+
+    /**
+     * The solid-angle pdf with which light sampling from a shaded point generates the direction to a light hit
+     * (light choice x direction on the light), for multiple importance sampling with BSDF-sampled rays.
+     *
+     * @param material   Material of the hit surface
+     * @param px, py, pz The shaded point the ray started from
+     * @param lightHit   The hit on the emissive surface
+     * @return The pdf, or 0 if the surface is not one of the sampled lights
+     */
+    public double pdf(Material material, double px, double py, double pz, HitRecord lightHit) {
+        int[] candidates = lightsByMaterial.get(material);
+        if (candidates == null) return 0;
+        // Usually one light per material; shared materials check which light contains the hit point
+        for (int index : candidates) {
+            double pdf = lights[index].lightPdf(px, py, pz, lightHit);
+            if (pdf > 0) return pdf * probability[index];
+        }
+        return 0;
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        int[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
@@ -0,0 +1,12 @@
+package com.taha.openrayui.core;
+
+/**
+ * A direction toward a point on a light, generated by
+ * {@link com.taha.openrayui.geometry.Hittable#sampleLight} for direct lighting.
+ * Reused for every light sample of a thread (see {@link TraceContext}), so light sampling does not allocate.
+ */
+public class LightSample {
+    public double dx, dy, dz; // Unit direction from the shaded point to the light point
+    public double distance;   // Distance to the light point (the shadow ray ends there)
+    public double pdf;        // Probability density of the direction, per unit solid angle
+}
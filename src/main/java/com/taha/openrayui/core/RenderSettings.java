@@ -1,6 +1,7 @@
 package com.taha.openrayui.core;
 
 import com.taha.openrayui.math.Vec3;
+import com.taha.openrayui.sampler.SamplerType;
 
 /**
  * A Singleton configuration class acting as the "Single Source of Truth" for rendering parameters.
@@ -12,6 +13,42 @@ public class RenderSettings {
     public int samplesPerPixel = 10;
     public int maxDepth = 20;
 
+    // --- Parallel Tile Scheduler ---
+    // The frame is split into square tiles that are distributed across a work-stealing pool.
+    public int tileSize = 32;
+    public int threadCount = Runtime.getRuntime().availableProcessors();
+
+    // --- Progressive Rendering ---
+    // Renders 1 sample per pixel over the whole frame per pass and keeps refining the running average.
+    public boolean progressive = true;
+
+    // --- Adaptive Sampling ---
+    // Stops sampling pixels whose relative error is below the threshold and spends the budget on noisy ones.
+    public boolean adaptiveSampling = true;
+    public double adaptiveThreshold = 0.02;
+    public int adaptiveMinSamples = 8;
+    public int adaptiveMaxSampleFactor = 4; // A noisy pixel may receive up to 4x the sample target
+    public boolean showConvergenceMap = false;
+
+    // --- Sampling ---
+    // Low-discrepancy samplers reach the same noise level with fewer samples than independent random numbers.
+    public SamplerType sampler = SamplerType.SOBOL;
+    // Every pixel sample is derived from (seed, pixel, sample index): same seed + same scene = same image
+    public long seed = 0;
+
+    // --- Acceleration Structure ---
+    // Maximum number of objects in a BVH leaf (the SAH builder stops splitting earlier when that is cheaper)
+    public int bvhMaxLeafSize = 4;
+    // Moved objects refit the BVH in place; once its SAH cost exceeds this factor of the last build, it is rebuilt
+    public double bvhRebuildThreshold = 1.5;
+    // Imported meshes are cached next to the .obj as a memory-mapped binary file with a prebuilt BVH
+    public boolean meshCache = true;
+    // Camera rays of 2x2 / 4x2 / 4x4 pixel blocks are intersected together (4, 8 or 16; 0 = one ray at a time).
+    // Uses SIMD when the JVM runs with --add-modules jdk.incubator.vector.
+    public int packetSize = 0;
+    // Traces large batches of paths one bounce at a time, with hits sorted by material (takes precedence over packets)
+    public boolean wavefront = false;
+
     public Vec3 lookFrom = new Vec3(0, 0, 1);
     public Vec3 lookAt = new Vec3(0, 0, -1);
     public double vFov = 20.0;
@@ -3,90 +3,314 @@ package com.taha.openrayui.core;
 import com.taha.openrayui.geometry.Hittable;
 import com.taha.openrayui.math.Ray;
 import com.taha.openrayui.math.Vec3;
+import com.taha.openrayui.sampler.Sampler;
 
-import java.util.concurrent.ThreadLocalRandom; // Added for thread-safe fast random generation
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * The core engine that calculates the color of rays.
- * Contains the recursive ray tracing logic.
+ * Contains the iterative path tracing loop.
  * OPTIMIZED: Implements Russian Roulette for early ray termination.
+ * <p>
+ * Light comes from the sky and from emissive surfaces. At every non-specular hit, one light of the
+ * {@link LightList} is also sampled directly with a shadow ray (next-event estimation), so small lights
+ * in closed rooms no longer have to be found by chance. The same light can then also be reached by the
+ * BSDF-sampled ray, so both estimates are combined with multiple importance sampling (power heuristic):
+ * light sampling dominates for rough surfaces and large lights, BSDF sampling for glossy surfaces and
+ * small, bright lights, which removes the fireflies either strategy produces alone.
+ * </p>
  */
 public class Renderer {
 
+    // Rays start at t = 0.001 to avoid shadow acne (floating point self-intersection errors)
+    public static final double T_MIN = 0.001;
+
     private final int maxDepth;
 
+    // Lights sampled directly at non-specular hits (empty: only BSDF sampling)
+    private LightList lights = LightList.EMPTY;
+
+    // Number of ray segments traced against the world (striped counter, cheap under contention)
+    private final LongAdder raysTraced = new LongAdder();
+
     public Renderer(int maxDepth) {
         this.maxDepth = maxDepth;
     }
 
     /**
-     * Calculates the color of a ray by tracing it through the scene.
-     * Recursive function with Russian Roulette optimization.
+     * Sets the lights sampled directly at non-specular hits. Must be called before rendering.
+     */
+    public void setLights(LightList lights) {
+        this.lights = lights;
+    }
+
+    public LightList getLights() {
+        return lights;
+    }
+
+    /**
+     * @return The total number of rays (camera rays, bounces and shadow rays) traced by this renderer.
+     */
+    public long getRaysTraced() {
+        return raysTraced.sum();
+    }
+
+    /**
+     * Adds a batch of traced rays to the statistics.
+     * Workers count locally in their {@link TraceContext} and flush once per tile.
+     */
+    public void addRaysTraced(long count) {
+        raysTraced.add(count);
+    }
+
+    /**
+     * Convenience wrapper around {@link #trace} for non-critical callers.
+     * Allocates a fresh context, so the render loop should call trace() directly.
      *
      * @param r     The ray to trace
-     * @param world The scene (list of objects)
-     * @param depth Current recursion depth (remaining bounces)
+     * @param world The scene (usually its BVH acceleration structure)
+     * @param depth Maximum number of bounces
      * @return The calculated color as a Vec3
      */
     public Vec3 rayColor(Ray r, Hittable world, int depth) {
-        HitRecord rec = new HitRecord();
+        TraceContext ctx = new TraceContext();
+        ctx.ray.set(r.ox, r.oy, r.oz, r.dx, r.dy, r.dz);
+        trace(ctx.ray, world, depth, ctx);
+        raysTraced.add(ctx.raysTraced);
+        return new Vec3(ctx.r, ctx.g, ctx.b);
+    }
 
-        // If we've exceeded the ray bounce limit, no more light is gathered.
-        if (depth <= 0) {
-            return new Vec3(0, 0, 0);
-        }
+    /**
+     * Calculates the color of a ray by tracing it through the scene.
+     * Iterative path loop with Russian Roulette optimization.
+     * <p>
+     * PERFORMANCE: Instead of recursing once per bounce and multiplying colors on the way back up,
+     * the path throughput is carried forward in local variables, and the light found along the way
+     * (emission, direct lighting, the sky at the escaping bounce) is added as throughput x radiance.
+     * The estimator is the same as in the former recursive version. Every bounce reads its random decisions
+     * from its own fixed sampler dimensions ({@link Sampler#bounceDimension}), so a sample always traces the
+     * same path for the same seed.
+     * The scratch objects of the given context are reused and the result is written into
+     * ctx.r / ctx.g / ctx.b, so no objects are allocated per bounce.
+     * </p>
+     *
+     * @param r     The ray to trace (overwritten in place with each scattered ray)
+     * @param world The scene (usually its BVH acceleration structure)
+     * @param depth Maximum number of bounces for this path
+     * @param ctx   Per-thread scratch state that receives the color
+     */
+    public void trace(Ray r, Hittable world, int depth, TraceContext ctx) {
+        tracePath(r, null, false, world, depth, ctx);
+    }
 
-        // tMin is set to 0.001 to avoid shadow acne (floating point self-intersection errors)
-        if (world.hit(r, 0.001, Double.POSITIVE_INFINITY, rec)) {
-            ScatterResult scattered = rec.mat.scatter(r, rec);
-
-            if (scattered != null) {
-                Vec3 attenuation = scattered.attenuation;
-
-                // --- RUSSIAN ROULETTE OPTIMIZATION ---
-                // Only apply this optimization after a certain number of bounces (e.g., allow first 5 bounces).
-                // This preserves the quality of primary reflections and shadows while optimizing deep recursion.
-                if (depth < maxDepth - 5) {
-                    // Determine the "survival probability" based on the material's brightness (attenuation).
-                    // Darker surfaces absorb more light, so rays hitting them are more likely to terminate.
-                    double maxComponent = Math.max(attenuation.x, Math.max(attenuation.y, attenuation.z));
-                    double survivalProbability = maxComponent;
-
-                    // Clamp probability: Ensure at least a 5% chance of survival to avoid killing too many rays.
-                    if (survivalProbability < 0.05) survivalProbability = 0.05;
-                    // Probability cannot exceed 1.0 (100%)
-                    if (survivalProbability > 1.0) survivalProbability = 1.0;
-
-                    // Roll the dice: If the random value is greater than survival probability, terminate the ray.
-                    if (ThreadLocalRandom.current().nextDouble() > survivalProbability) {
-                        return new Vec3(0, 0, 0); // Ray dies here, returning black
-                    }
-
-                    // If the ray survives, boost its energy (normalize) to satisfy the statistical equation.
-                    // This prevents "Survival Bias" which would otherwise make the image look artificially dark.
-                    attenuation = attenuation.div(survivalProbability);
-                }
-                // -------------------------------------
+    /**
+     * Like {@link #trace}, for a camera ray whose closest hit is already known
+     * (found together with its neighbours by a {@link com.taha.openrayui.geometry.PacketTracer}).
+     * The first intersection test is skipped; everything else, including the random numbers used, is identical.
+     *
+     * @param r          The camera ray (overwritten in place with each scattered ray)
+     * @param primaryHit The closest hit of r, or null if it escaped to the sky
+     */
+    public void traceFromHit(Ray r, HitRecord primaryHit, Hittable world, int depth, TraceContext ctx) {
+        tracePath(r, primaryHit, true, world, depth, ctx);
+    }
+
+    private void tracePath(Ray r, HitRecord primaryHit, boolean primaryKnown, Hittable world, int depth,
+                           TraceContext ctx) {
+        HitRecord rec = ctx.rec;
+        ScatterResult scattered = ctx.scatter;
+        Sampler sampler = ctx.sampler;
+        int bounce = 0;
 
-                Vec3 nextBounceColor = rayColor(scattered.scattered, world, depth - 1);
+        // Path throughput: product of all attenuations so far
+        double throughputR = 1.0, throughputG = 1.0, throughputB = 1.0;
 
-                return new Vec3(
-                        attenuation.x * nextBounceColor.x,
-                        attenuation.y * nextBounceColor.y,
-                        attenuation.z * nextBounceColor.z
-                );
+        // Light gathered so far
+        double radianceR = 0.0, radianceG = 0.0, radianceB = 0.0;
+
+        // Pdf of the direction sampled at the previous hit (0: camera ray or specular bounce, no light sampling)
+        double scatterPdf = 0.0;
+
+        // 'depth' counts the remaining bounces, exactly like the recursion level did before
+        for (; depth > 0; depth--, bounce++) {
+            ctx.raysTraced++;
+
+            boolean hit;
+            if (primaryKnown && bounce == 0) {
+                hit = primaryHit != null;
+                if (hit) rec = primaryHit;
+            } else {
+                rec = ctx.rec;
+                hit = world.hit(r, T_MIN, Double.POSITIVE_INFINITY, rec);
+            }
+            if (!hit) {
+                // --- Background (Sky) ---
+                double t = skyBlend(r.dx, r.dy, r.dz);
+
+                // Linear interpolation (lerp) between white (1,1,1) and blue (0.5,0.7,1.0) based on Y coordinate
+                ctx.r = radianceR + throughputR * ((1.0 - t) + t * 0.5);
+                ctx.g = radianceG + throughputG * ((1.0 - t) + t * 0.7);
+                ctx.b = radianceB + throughputB;
+                return;
             }
+
+            // --- Emission ---
+            Vec3 emitted = rec.mat.emitted();
+            if (emitted != null) {
+                // The ray started at the previous hit (r.o); its light sample may have found this light too
+                double weight = emittedWeight(rec, r, scatterPdf);
+                radianceR += throughputR * emitted.x * weight;
+                radianceG += throughputG * emitted.y * weight;
+                radianceB += throughputB * emitted.z * weight;
+            }
+
+            // Every bounce reads its random decisions from its own block of sampler dimensions
+            int dimension = Sampler.bounceDimension(bounce);
+            sampler.setDimension(dimension + Sampler.SCATTER_OFFSET);
+
             // Ray absorbed (scatter failed or material absorbed all light)
-            return new Vec3(0, 0, 0);
+            if (!rec.mat.scatter(r, rec, scattered, sampler)) break;
+
+            double attR = scattered.attenuationR;
+            double attG = scattered.attenuationG;
+            double attB = scattered.attenuationB;
+
+            // --- Direct Lighting (Next-Event Estimation) ---
+            scatterPdf = scattered.pdf;
+            if (scatterPdf > 0 && !lights.isEmpty() && sampleDirectLight(r, rec, dimension, depth == 1, ctx)) {
+                ctx.raysTraced++;
+                if (!world.occluded(ctx.shadowRay, T_MIN, ctx.shadowDistance)) {
+                    radianceR += throughputR * ctx.lightR;
+                    radianceG += throughputG * ctx.lightG;
+                    radianceB += throughputB * ctx.lightB;
+                }
+            }
+
+            // --- RUSSIAN ROULETTE OPTIMIZATION ---
+            // Only apply this optimization after a certain number of bounces (e.g., allow first 5 bounces).
+            // This preserves the quality of primary reflections and shadows while optimizing deep paths.
+            if (usesRoulette(depth)) {
+                double survivalProbability = survivalProbability(attR, attG, attB);
+
+                // Roll the dice: If the random value is greater than survival probability, terminate the ray.
+                sampler.setDimension(dimension + Sampler.ROULETTE_OFFSET);
+                if (sampler.next1D() > survivalProbability) break;
+
+                // If the ray survives, boost its energy (normalize) to satisfy the statistical equation.
+                // This prevents "Survival Bias" which would otherwise make the image look artificially dark.
+                attR /= survivalProbability;
+                attG /= survivalProbability;
+                attB /= survivalProbability;
+            }
+            // -------------------------------------
+
+            throughputR *= attR;
+            throughputG *= attG;
+            throughputB *= attB;
+
+            Ray next = scattered.scattered;
+            r.set(next.ox, next.oy, next.oz, next.dx, next.dy, next.dz);
         }
 
-        // --- Background (Sky) ---
-        Vec3 unitDirection = r.direction().unitVector();
-        double t = 0.5 * (unitDirection.y + 1.0);
-        Vec3 white = new Vec3(1.0, 1.0, 1.0);
-        Vec3 blue = new Vec3(0.5, 0.7, 1.0);
+        // Bounce limit reached, ray absorbed or terminated by roulette: no further light is gathered.
+        ctx.r = radianceR; ctx.g = radianceG; ctx.b = radianceB;
+    }
 
-        // Linear interpolation (lerp) between white and blue based on Y coordinate
-        return white.mul(1.0 - t).add(blue.mul(t));
+    /**
+     * MIS weight of emission found by a BSDF-sampled ray.
+     *
+     * @param lightHit   The hit on the emissive surface
+     * @param r          The ray that found it (starting at the previous hit)
+     * @param scatterPdf Pdf with which the previous hit sampled the ray direction (0 if specular or a camera ray)
+     * @return 1 if light sampling could not have produced the direction, otherwise the power heuristic weight
+     */
+    double emittedWeight(HitRecord lightHit, Ray r, double scatterPdf) {
+        if (scatterPdf <= 0) return 1.0;
+        double lightPdf = lights.pdf(lightHit.mat, r.ox, r.oy, r.oz, lightHit);
+        return lightPdf > 0 ? powerHeuristic(scatterPdf, lightPdf) : 1.0;
+    }
+
+    /**
+     * Power heuristic (exponent 2) for one sample of each strategy. Compared to the balance heuristic
+     * a / (a + b), it gives more weight to whichever strategy is clearly better for the direction.
+     *
+     * @param pdf      Pdf of the strategy that produced the sample
+     * @param otherPdf Pdf of the other strategy for the same direction
+     */
+    static double powerHeuristic(double pdf, double otherPdf) {
+        double a = pdf * pdf;
+        return a / (a + otherPdf * otherPdf);
+    }
+
+    /**
+     * Next-event estimation at a non-specular hit: picks a light by power, samples a direction toward it and
+     * prepares the shadow ray in ctx.shadowRay (up to ctx.shadowDistance). The MIS-weighted contribution the
+     * light makes if it is visible, without the path throughput, is written to ctx.lightR / lightG / lightB.
+     *
+     * @param rIn        The incoming ray at the hit (its direction is needed to evaluate glossy BSDFs)
+     * @param dimension  First sampler dimension of the current bounce
+     * @param lastBounce True if the path ends after this hit. No BSDF ray will look for the light, so the
+     *                   light sample takes the full weight instead of its MIS share.
+     * @return False if no light sample was generated (nothing to add)
+     */
+    boolean sampleDirectLight(Ray rIn, HitRecord rec, int dimension, boolean lastBounce, TraceContext ctx) {
+        Sampler sampler = ctx.sampler;
+        sampler.setDimension(dimension + Sampler.LIGHT_OFFSET);
+        double u1 = sampler.next1D();
+        double u2 = sampler.next1D();
+        int index = lights.select(sampler.next1D());
+
+        Hittable light = lights.get(index);
+        LightSample sample = ctx.lightSample;
+        if (!light.sampleLight(rec.px, rec.py, rec.pz, u1, u2, sample)) return false;
+
+        // Only directions on the lit side of the surface receive light
+        double pdf = sample.pdf * lights.selectionProbability(index);
+        if (rec.nx * sample.dx + rec.ny * sample.dy + rec.nz * sample.dz <= 0 || !(pdf > 0)) return false;
+
+        BsdfValue bsdf = ctx.bsdf;
+        if (!rec.mat.evaluate(rIn, rec, sample.dx, sample.dy, sample.dz, bsdf)) return false;
+
+        // Estimator: BSDF x cosine x emitted radiance / pdf, weighted against BSDF sampling of the same direction
+        Vec3 emitted = light.getMaterial().emitted();
+        double scale = (lastBounce ? 1.0 : powerHeuristic(pdf, bsdf.pdf)) / pdf;
+        ctx.lightR = bsdf.r * emitted.x * scale;
+        ctx.lightG = bsdf.g * emitted.y * scale;
+        ctx.lightB = bsdf.b * emitted.z * scale;
+
+        // The shadow ray stops just short of the light point, so the light does not occlude itself
+        ctx.shadowRay.set(rec.px, rec.py, rec.pz, sample.dx, sample.dy, sample.dz);
+        ctx.shadowDistance = sample.distance - T_MIN;
+        return true;
+    }
+
+    /**
+     * @param depth Remaining bounces of the path
+     * @return True if Russian roulette may terminate the path at this bounce
+     */
+    boolean usesRoulette(int depth) {
+        return depth < maxDepth - 5;
+    }
+
+    /**
+     * Survival probability of Russian roulette, based on the material's brightness (attenuation).
+     * Darker surfaces absorb more light, so rays hitting them are more likely to terminate.
+     */
+    static double survivalProbability(double attR, double attG, double attB) {
+        double survivalProbability = Math.max(attR, Math.max(attG, attB));
+
+        // Clamp probability: Ensure at least a 5% chance of survival to avoid killing too many rays.
+        if (survivalProbability < 0.05) survivalProbability = 0.05;
+        // Probability cannot exceed 1.0 (100%)
+        if (survivalProbability > 1.0) survivalProbability = 1.0;
+        return survivalProbability;
+    }
+
+    /**
+     * @return Sky gradient weight of a direction: 0 = white (straight down), 1 = blue (straight up)
+     */
+    static double skyBlend(double dx, double dy, double dz) {
+        double unitY = dy / Math.sqrt(dx * dx + dy * dy + dz * dz);
+        return 0.5 * (unitY + 1.0);
     }
 }
@@ -1,17 +1,27 @@
 package com.taha.openrayui.core;
 
 import com.taha.openrayui.math.Ray;
-import com.taha.openrayui.math.Vec3;
 
 /**
  * A data carrier class that holds the result of a light scattering event.
+ * It is filled in place by {@link com.taha.openrayui.material.Material#scatter}
+ * and reused for every bounce, so scattering does not allocate.
  */
 public class ScatterResult {
-    public final Ray scattered;     // The new ray traveling after the bounce
-    public final Vec3 attenuation;  // How much the color is absorbed/attenuated
+    public final Ray scattered = new Ray(); // The new ray traveling after the bounce
 
-    public ScatterResult(Ray scattered, Vec3 attenuation) {
-        this.scattered = scattered;
-        this.attenuation = attenuation;
+    // How much the color is absorbed/attenuated (per channel)
+    public double attenuationR;
+    public double attenuationG;
+    public double attenuationB;
+
+    // Solid-angle pdf of the scattered direction, or 0 for a perfectly specular bounce (mirror, glass).
+    // Non-specular hits can be evaluated with Material.evaluate, so the renderer also samples the lights there.
+    public double pdf;
+
+    public void setAttenuation(double r, double g, double b) {
+        this.attenuationR = r;
+        this.attenuationG = g;
+        this.attenuationB = b;
     }
-}
\ No newline at end of file
+}
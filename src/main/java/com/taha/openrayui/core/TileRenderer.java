@@ -0,0 +1,552 @@
+package com.taha.openrayui.core;
+
+import com.taha.openrayui.geometry.Hittable;
+import com.taha.openrayui.geometry.LinearBVH;
+import com.taha.openrayui.geometry.PacketTracer;
+import com.taha.openrayui.geometry.RayPacket;
+import com.taha.openrayui.math.Ray;
+import com.taha.openrayui.sampler.Sampler;
+import com.taha.openrayui.sampler.SamplerType;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Parallel tile-based render scheduler.
+ * Splits the frame into square tiles and renders them on a work-stealing {@link ForkJoinPool}.
+ * Rendering happens in passes: each pass adds a number of samples per pixel into an
+ * {@link AccumulationBuffer}, and every finished tile is resolved and copied into the target image
+ * in a single call, so worker threads never contend on individual pixels.
+ * <p>
+ * Cancellation is cooperative: the {@code keepRendering} check runs before every tile and every sample,
+ * and again under the image lock right before a tile is written. A caller that cancels a job while
+ * holding the image lock therefore has a guarantee that the job never writes to the image afterwards.
+ * </p>
+ * <p>
+ * With adaptive sampling enabled, each pass skips pixels whose estimated error is already below the
+ * threshold, and passes continue past the nominal sample count while noisy pixels remain, until the
+ * frame's total sample budget (samples per pixel x pixel count) is spent.
+ * </p>
+ * <p>
+ * With packet tracing enabled, the camera rays of small pixel blocks (2x2, 4x2 or 4x4) are intersected
+ * together by a {@link PacketTracer}; each path then continues on its own from its primary hit.
+ * </p>
+ * <p>
+ * With the wavefront integrator enabled, the samples of a tile are traced in large batches by a
+ * {@link WavefrontIntegrator}, one bounce of all paths at a time. It takes precedence over packet tracing.
+ * </p>
+ */
+public class TileRenderer {
+
+    private final Hittable world;
+    private final Camera camera;
+    private final Renderer renderer;
+
+    private final int width;
+    private final int height;
+    private final int maxDepth;
+    private final int tileSize;
+
+    // --- Sampling ---
+    private SamplerType samplerType = SamplerType.RANDOM;
+    private int samplerSampleCount = 1;
+    private long seed = 0;
+
+    // Scratch ray / hit record / scatter result / sampler, one per worker thread (the hot path allocates nothing).
+    // Created lazily on the first tile of each thread, so it picks up the sampler configured before render().
+    private final ThreadLocal<TraceContext> traceContext =
+            ThreadLocal.withInitial(() -> new TraceContext(samplerType.create(samplerSampleCount, seed)));
+
+    // --- Ray Packets ---
+    // Only used for a LinearBVH world; null = one camera ray at a time
+    private PacketTracer packetTracer;
+    private LinearBVH packetWorld;
+    private int packetSize;
+    private int packetWidth;
+    private final ThreadLocal<RayPacket> rayPacket = ThreadLocal.withInitial(() -> new RayPacket(packetSize));
+
+    // --- Wavefront Integrator ---
+    // Paths per batch: large enough for long stage loops, small enough for the queues to stay in the L2 cache
+    private static final int WAVEFRONT_BATCH = 4096;
+    private boolean wavefront = false;
+    private final ThreadLocal<WavefrontIntegrator> wavefrontIntegrator;
+
+    // --- Adaptive Sampling ---
+    private boolean adaptive = false;
+    private double adaptiveThreshold;
+    private int adaptiveMinSamples;
+    private int adaptiveMaxSamples;
+
+    public TileRenderer(Hittable world, Camera camera, Renderer renderer,
+                        int width, int height, int maxDepth, int tileSize) {
+        this.world = world;
+        this.camera = camera;
+        this.renderer = renderer;
+        this.width = width;
+        this.height = height;
+        this.maxDepth = maxDepth;
+        this.tileSize = Math.max(1, tileSize);
+        this.wavefrontIntegrator = ThreadLocal.withInitial(
+                () -> new WavefrontIntegrator(renderer, maxDepth, WAVEFRONT_BATCH));
+    }
+
+    /**
+     * Enables per-pixel adaptive sampling.
+     *
+     * @param threshold  Relative error below which a pixel counts as converged
+     * @param minSamples Samples every pixel receives before its error estimate is trusted
+     * @param maxSamples Upper limit of samples for a single (noisy) pixel
+     */
+    public void setAdaptiveSampling(double threshold, int minSamples, int maxSamples) {
+        this.adaptive = true;
+        this.adaptiveThreshold = threshold;
+        this.adaptiveMinSamples = Math.max(2, minSamples);
+        this.adaptiveMaxSamples = Math.max(this.adaptiveMinSamples, maxSamples);
+    }
+
+    /**
+     * Selects the sample generator for pixel jitter and bounces. Must be called before rendering.
+     *
+     * @param type            The sampler implementation
+     * @param samplesPerPixel The sample target (stratified sampling uses it as its stratum count)
+     * @param seed            Render seed. Every sample depends only on (seed, pixel, sample index),
+     *                        so the image is bit-identical for any thread count, tile size or tile order.
+     */
+    public void setSampler(SamplerType type, int samplesPerPixel, long seed) {
+        this.samplerType = type;
+        this.samplerSampleCount = Math.max(1, samplesPerPixel);
+        this.seed = seed;
+    }
+
+    /**
+     * Traces camera rays in packets of neighbouring pixels. Must be called before rendering.
+     * Has no effect unless the world is a {@link LinearBVH}. The image is identical to the per-ray path.
+     *
+     * @param size Rays per packet: 4 (2x2 pixels), 8 (4x2) or 16 (4x4)
+     * @return The packet tracer in use, or null if the world cannot be traced in packets
+     */
+    public PacketTracer setPacketTracing(int size) {
+        if (size != 4 && size != 8 && size != 16) {
+            throw new IllegalArgumentException("Packet size must be 4, 8 or 16");
+        }
+        if (!(world instanceof LinearBVH)) return null;
+        this.packetWorld = (LinearBVH) world;
+        this.packetTracer = PacketTracer.create();
+        this.packetSize = size;
+        this.packetWidth = size == 4 ? 2 : 4;
+        return packetTracer;
+    }
+
+    /**
+     * Traces the samples of each tile with the breadth-first {@link WavefrontIntegrator} instead of one path
+     * at a time. Must be called before rendering. The image is identical to the depth-first integrator.
+     */
+    public void setWavefront(boolean wavefront) {
+        this.wavefront = wavefront;
+    }
+
+    /**
+     * Renders passes until the sample target is reached.
+     *
+     * @param samplesPerPixel The sample target (with adaptive sampling: the average budget per pixel)
+     * @param progressive     If true, every pass adds 1 sample per pixel; otherwise one pass adds all samples
+     * @param onPassFinished  Called after every completed pass (may be null)
+     */
+    public void render(ForkJoinPool pool, AccumulationBuffer buffer, BufferedImage image, int samplesPerPixel,
+                       boolean progressive, BooleanSupplier keepRendering,
+                       Runnable onTileFinished, Runnable onPassFinished) {
+        while (keepRendering.getAsBoolean() && needsMorePasses(buffer, samplesPerPixel)) {
+            // Adaptive sampling re-evaluates convergence after every sample, so it always uses 1 spp passes.
+            int passSamples = (progressive || adaptive) ? 1 : samplesPerPixel - buffer.getCompletedSamples();
+
+            if (renderPass(pool, buffer, image, passSamples, keepRendering, onTileFinished)
+                    && onPassFinished != null) {
+                onPassFinished.run();
+            }
+        }
+    }
+
+    /**
+     * Decides whether another pass is needed.
+     * Without adaptive sampling every pixel gets exactly the target sample count. With it, passes continue
+     * while some pixels are still noisy and the total budget (target x pixel count) has not been spent.
+     */
+    public boolean needsMorePasses(AccumulationBuffer buffer, int samplesPerPixel) {
+        int completed = buffer.getCompletedSamples();
+
+        // Low targets (e.g. interactive previews) are too small for a reliable variance estimate.
+        if (!adaptive || samplesPerPixel <= adaptiveMinSamples) return completed < samplesPerPixel;
+        if (completed < adaptiveMinSamples) return true;
+
+        long budget = (long) samplesPerPixel * width * height;
+        return buffer.getActivePixels() > 0
+                && buffer.getTotalSamples() < budget
+                && completed < adaptiveMaxSamples;
+    }
+
+    /**
+     * Renders one pass over the whole frame on the given pool and blocks until every tile is finished.
+     * The pass is only counted in the buffer if no tile was skipped.
+     *
+     * @param pool           The work-stealing pool that executes the tiles
+     * @param buffer         The accumulation buffer the new samples are added to
+     * @param image          The target image (finished tiles are resolved into it)
+     * @param samples        Samples per pixel to add in this pass
+     * @param keepRendering  Checked before each tile and sample; returning false cancels the pass
+     * @param onTileFinished Called after each tile has been written (e.g. to repaint the UI)
+     * @return True if the whole pass was rendered.
+     */
+    public boolean renderPass(ForkJoinPool pool, AccumulationBuffer buffer, BufferedImage image, int samples,
+                              BooleanSupplier keepRendering, Runnable onTileFinished) {
+        List<RecursiveAction> tiles = new ArrayList<>();
+        LongAdder activePixels = new LongAdder();
+
+        // Row-major tile order, so the image still fills roughly from top to bottom.
+        for (int y = 0; y < height; y += tileSize) {
+            for (int x = 0; x < width; x += tileSize) {
+                int x0 = x;
+                int y0 = y;
+                int x1 = Math.min(x + tileSize, width);
+                int y1 = Math.min(y + tileSize, height);
+
+                tiles.add(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        if (!keepRendering.getAsBoolean()) return;
+                        if (renderTile(buffer, image, samples, keepRendering, activePixels, x0, y0, x1, y1)
+                                && onTileFinished != null) {
+                            onTileFinished.run();
+                        }
+                    }
+                });
+            }
+        }
+
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(tiles);
+            }
+        });
+
+        if (!keepRendering.getAsBoolean()) return false;
+        buffer.completePass(samples);
+        buffer.setActivePixels(activePixels.sum());
+        return true;
+    }
+
+    /**
+     * Traces the given number of samples for every pixel of the tile [x0, x1) x [y0, y1),
+     * adds them to the accumulation buffer and copies the running average into the image.
+     * With adaptive sampling, converged pixels are skipped.
+     *
+     * @param activePixels Incremented for every pixel that still needs samples after this pass
+     * @return False if the job was cancelled before the tile was written.
+     */
+    private boolean renderTile(AccumulationBuffer buffer, BufferedImage image, int samples,
+                               BooleanSupplier keepRendering, LongAdder activePixels,
+                               int x0, int y0, int x1, int y1) {
+        int tileWidth = x1 - x0;
+        int tileHeight = y1 - y0;
+
+        // A fully converged tile does not change anymore, so the whole tile can be skipped.
+        if (adaptive && isTileDone(buffer, x0, y0, x1, y1)) return true;
+
+        TraceContext ctx = traceContext.get();
+        ctx.raysTraced = 0;
+        Tile tile = new Tile(x0, y0, x1, y1);
+
+        boolean finished;
+        if (wavefront) {
+            finished = traceWavefront(buffer, tile, samples, keepRendering, ctx);
+        } else if (packetTracer != null) {
+            finished = tracePackets(buffer, tile, samples, keepRendering, ctx);
+        } else {
+            finished = tracePixels(buffer, tile, samples, keepRendering, ctx);
+        }
+        if (!finished) return false;
+
+        buffer.addTotalSamples(tile.samples);
+        renderer.addRaysTraced(ctx.raysTraced);
+        activePixels.add(tile.active);
+
+        // BufferedImage is not thread-safe, so tile copies are serialized (one short call per tile).
+        // The final check runs under the lock, so a job cancelled under the same lock never writes.
+        synchronized (image) {
+            if (!keepRendering.getAsBoolean()) return false;
+            image.setRGB(x0, y0, tileWidth, tileHeight, tile.pixels, 0, tileWidth);
+        }
+        return true;
+    }
+
+    /**
+     * Pixel area of a tile with its resolved colors and the statistics of the current pass.
+     */
+    private static final class Tile {
+        final int x0, y0, x1, y1;
+        final int[] pixels;
+        long samples; // Samples traced in this pass
+        long active;  // Pixels that still need samples after this pass
+
+        Tile(int x0, int y0, int x1, int y1) {
+            this.x0 = x0; this.y0 = y0; this.x1 = x1; this.y1 = y1;
+            this.pixels = new int[(x1 - x0) * (y1 - y0)];
+        }
+    }
+
+    /**
+     * Traces the samples of the tile pixel by pixel, one camera ray at a time.
+     * @return False if the job was cancelled.
+     */
+    private boolean tracePixels(AccumulationBuffer buffer, Tile tile, int samples,
+                                BooleanSupplier keepRendering, TraceContext ctx) {
+        Sampler sampler = ctx.sampler;
+        int tileWidth = tile.x1 - tile.x0;
+
+        for (int j = tile.y0; j < tile.y1; j++) {
+            for (int i = tile.x0; i < tile.x1; i++) {
+                int pixelIndex = (j - tile.y0) * tileWidth + (i - tile.x0);
+
+                if (adaptive && isDone(buffer, i, j)) {
+                    // Unchanged since the last pass, so the cached color is still valid
+                    tile.pixels[pixelIndex] = buffer.getResolved(i, j);
+                    continue;
+                }
+
+                double r = 0, g = 0, b = 0;
+                double luminanceSq = 0;
+                int firstSample = buffer.getSampleCount(i, j);
+
+                // Anti-aliasing: Average multiple samples per pixel
+                for (int s = 0; s < samples; s++) {
+                    // Sample-level cancellation keeps a stale job from burning CPU after a new request
+                    if (!keepRendering.getAsBoolean()) return false;
+
+                    // Sample indices continue across passes, so progressive passes extend the same sequence
+                    cameraRay(sampler, i, j, firstSample + s, ctx.ray);
+                    renderer.trace(ctx.ray, world, maxDepth, ctx);
+
+                    r += ctx.r;
+                    g += ctx.g;
+                    b += ctx.b;
+
+                    // Per-sample luminance feeds the variance estimate of adaptive sampling
+                    double luminance = AccumulationBuffer.luminance(ctx.r, ctx.g, ctx.b);
+                    luminanceSq += luminance * luminance;
+                }
+
+                finishPixel(buffer, tile, i, j, r, g, b, luminanceSq, samples);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Traces the samples of the tile in blocks of neighbouring pixels: for every sample index, the camera
+     * rays of a block form one packet, and each path continues from its packet hit.
+     * Samples use the same sampler sequence as {@link #tracePixels}, so the result is identical.
+     * @return False if the job was cancelled.
+     */
+    private boolean tracePackets(AccumulationBuffer buffer, Tile tile, int samples,
+                                 BooleanSupplier keepRendering, TraceContext ctx) {
+        Sampler sampler = ctx.sampler;
+        RayPacket packet = rayPacket.get();
+        int tileWidth = tile.x1 - tile.x0;
+        int packetHeight = packetSize / packetWidth;
+
+        int[] firstSample = ctx.laneFirstSample;
+        double[] sums = ctx.laneSums; // r, g, b, luminance^2 per lane
+
+        for (int by = tile.y0; by < tile.y1; by += packetHeight) {
+            for (int bx = tile.x0; bx < tile.x1; bx += packetWidth) {
+                // Lanes of the pixels inside the tile that still need samples
+                int lanes = 0;
+                for (int lane = 0; lane < packetSize; lane++) {
+                    int i = bx + lane % packetWidth;
+                    int j = by + lane / packetWidth;
+                    if (i >= tile.x1 || j >= tile.y1) continue;
+                    if (adaptive && isDone(buffer, i, j)) {
+                        tile.pixels[(j - tile.y0) * tileWidth + (i - tile.x0)] = buffer.getResolved(i, j);
+                        continue;
+                    }
+                    lanes |= 1 << lane;
+                    firstSample[lane] = buffer.getSampleCount(i, j);
+                }
+                if (lanes == 0) continue;
+                Arrays.fill(sums, 0, packetSize * 4, 0);
+
+                for (int s = 0; s < samples; s++) {
+                    if (!keepRendering.getAsBoolean()) return false;
+
+                    for (int rest = lanes; rest != 0; rest &= rest - 1) {
+                        int lane = Integer.numberOfTrailingZeros(rest);
+                        cameraRay(sampler, bx + lane % packetWidth, by + lane / packetWidth,
+                                firstSample[lane] + s, packet.rays[lane]);
+                    }
+                    packet.activeLanes = lanes;
+                    packetTracer.intersect(packetWorld, packet, Renderer.T_MIN);
+
+                    for (int rest = lanes; rest != 0; rest &= rest - 1) {
+                        int lane = Integer.numberOfTrailingZeros(rest);
+                        int i = bx + lane % packetWidth;
+                        int j = by + lane / packetWidth;
+
+                        // Restart the sample so the path reads the same sampler dimensions as tracePixels
+                        sampler.startSample(i, j, firstSample[lane] + s);
+                        renderer.traceFromHit(packet.rays[lane], packet.isHit(lane) ? packet.records[lane] : null,
+                                world, maxDepth, ctx);
+
+                        double luminance = AccumulationBuffer.luminance(ctx.r, ctx.g, ctx.b);
+                        sums[lane * 4] += ctx.r;
+                        sums[lane * 4 + 1] += ctx.g;
+                        sums[lane * 4 + 2] += ctx.b;
+                        sums[lane * 4 + 3] += luminance * luminance;
+                    }
+                }
+
+                for (int rest = lanes; rest != 0; rest &= rest - 1) {
+                    int lane = Integer.numberOfTrailingZeros(rest);
+                    finishPixel(buffer, tile, bx + lane % packetWidth, by + lane / packetWidth,
+                            sums[lane * 4], sums[lane * 4 + 1], sums[lane * 4 + 2], sums[lane * 4 + 3], samples);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Traces the samples of the tile in batches with the wavefront integrator. The samples are queued pixel by
+     * pixel and their results are summed in that order, so the sums are identical to {@link #tracePixels}.
+     * A pixel's samples may span two batches; its running sums carry over.
+     * @return False if the job was cancelled.
+     */
+    private boolean traceWavefront(AccumulationBuffer buffer, Tile tile, int samples,
+                                   BooleanSupplier keepRendering, TraceContext ctx) {
+        Sampler sampler = ctx.sampler;
+        WavefrontIntegrator integrator = wavefrontIntegrator.get();
+        int tileWidth = tile.x1 - tile.x0;
+        int tilePixels = tileWidth * (tile.y1 - tile.y0);
+
+        // Tile pixels that still need samples, and their sums (r, g, b, luminance^2)
+        int[] pixels = new int[tilePixels];
+        int pixelCount = 0;
+        for (int j = tile.y0; j < tile.y1; j++) {
+            for (int i = tile.x0; i < tile.x1; i++) {
+                if (adaptive && isDone(buffer, i, j)) {
+                    tile.pixels[(j - tile.y0) * tileWidth + (i - tile.x0)] = buffer.getResolved(i, j);
+                } else {
+                    pixels[pixelCount++] = (j - tile.y0) * tileWidth + (i - tile.x0);
+                }
+            }
+        }
+        double[] sums = new double[pixelCount * 4];
+
+        // Position in the (pixel, sample) sequence where the current batch starts
+        int batchPixel = 0, batchSample = 0;
+        integrator.clear();
+
+        for (int p = 0; p < pixelCount; p++) {
+            int i = tile.x0 + pixels[p] % tileWidth;
+            int j = tile.y0 + pixels[p] / tileWidth;
+            int firstSample = buffer.getSampleCount(i, j);
+
+            for (int s = 0; s < samples; s++) {
+                if (integrator.isFull()) {
+                    if (!traceBatch(integrator, sums, batchPixel, batchSample, samples, keepRendering, ctx)) {
+                        return false;
+                    }
+                    batchPixel = p;
+                    batchSample = s;
+                }
+                // Generate stage: the camera ray of the sample
+                cameraRay(sampler, i, j, firstSample + s, ctx.ray);
+                integrator.add(i, j, firstSample + s, ctx.ray);
+            }
+        }
+        if (integrator.getAdded() > 0
+                && !traceBatch(integrator, sums, batchPixel, batchSample, samples, keepRendering, ctx)) {
+            return false;
+        }
+
+        for (int p = 0; p < pixelCount; p++) {
+            finishPixel(buffer, tile, tile.x0 + pixels[p] % tileWidth, tile.y0 + pixels[p] / tileWidth,
+                    sums[p * 4], sums[p * 4 + 1], sums[p * 4 + 2], sums[p * 4 + 3], samples);
+        }
+        return true;
+    }
+
+    /**
+     * Traces the queued batch and adds its results to the pixel sums, in the order the samples were queued.
+     *
+     * @param firstPixel  Index (into the tile's pixel list) of the pixel of the batch's first sample
+     * @param firstSample Sample number (0 .. samples-1) of the batch's first sample within that pixel
+     * @return False if the job was cancelled.
+     */
+    private boolean traceBatch(WavefrontIntegrator integrator, double[] sums,
+                               int firstPixel, int firstSample, int samples,
+                               BooleanSupplier keepRendering, TraceContext ctx) {
+        if (!keepRendering.getAsBoolean()) return false;
+        integrator.trace(world, ctx);
+
+        int p = firstPixel, s = firstSample;
+        for (int id = 0; id < integrator.getAdded(); id++) {
+            double r = integrator.getR(id), g = integrator.getG(id), b = integrator.getB(id);
+            double luminance = AccumulationBuffer.luminance(r, g, b);
+            sums[p * 4] += r;
+            sums[p * 4 + 1] += g;
+            sums[p * 4 + 2] += b;
+            sums[p * 4 + 3] += luminance * luminance;
+            if (++s == samples) {
+                s = 0;
+                p++;
+            }
+        }
+        integrator.clear();
+        return true;
+    }
+
+    /**
+     * Starts the given sample of a pixel and writes its jittered camera ray.
+     */
+    private void cameraRay(Sampler sampler, int i, int j, int sampleIndex, Ray out) {
+        sampler.startSample(i, j, sampleIndex);
+        double u = (i + sampler.next1D()) / (width - 1);
+        double v = ((height - 1 - j) + sampler.next1D()) / (height - 1);
+        camera.getRay(u, v, out);
+    }
+
+    /**
+     * Adds the samples of a pixel to the buffer and stores its resolved color in the tile.
+     */
+    private void finishPixel(AccumulationBuffer buffer, Tile tile, int i, int j,
+                             double r, double g, double b, double luminanceSq, int samples) {
+        buffer.add(i, j, r, g, b, luminanceSq, samples);
+        tile.samples += samples;
+        if (!adaptive || !isDone(buffer, i, j)) tile.active++;
+        tile.pixels[(j - tile.y0) * (tile.x1 - tile.x0) + (i - tile.x0)] = buffer.resolve(i, j);
+    }
+
+    private boolean isTileDone(AccumulationBuffer buffer, int x0, int y0, int x1, int y1) {
+        for (int j = y0; j < y1; j++) {
+            for (int i = x0; i < x1; i++) {
+                if (!isDone(buffer, i, j)) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A pixel needs no more samples once it has converged or reached the per-pixel sample limit.
+     */
+    private boolean isDone(AccumulationBuffer buffer, int x, int y) {
+        return buffer.getSampleCount(x, y) >= adaptiveMaxSamples
+                || buffer.isConverged(x, y, adaptiveThreshold, adaptiveMinSamples);
+    }
+}
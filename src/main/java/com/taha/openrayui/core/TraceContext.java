@@ -0,0 +1,47 @@
+package com.taha.openrayui.core;
+
+import com.taha.openrayui.geometry.RayPacket;
+import com.taha.openrayui.math.Ray;
+import com.taha.openrayui.math.Rng;
+import com.taha.openrayui.sampler.RandomSampler;
+import com.taha.openrayui.sampler.Sampler;
+
+/**
+ * Per-thread scratch state for the tracing hot path.
+ * Each worker owns one context and reuses its ray, hit record and scatter result for every
+ * sample, so tracing a path performs (close to) zero allocations in steady state.
+ * A context must never be shared between threads.
+ */
+public class TraceContext {
+    public final Ray ray = new Ray();
+    public final HitRecord rec = new HitRecord();
+    public final ScatterResult scatter = new ScatterResult();
+
+    // Direct lighting: light sample, shadow ray toward it and its unoccluded contribution (without throughput)
+    public final LightSample lightSample = new LightSample();
+    public final BsdfValue bsdf = new BsdfValue();
+    public final Ray shadowRay = new Ray();
+    public double shadowDistance;
+    public double lightR, lightG, lightB;
+
+    // Packet tracing: first sample index and r, g, b, luminance^2 sums of every lane of the current block
+    public final int[] laneFirstSample = new int[RayPacket.MAX_SIZE];
+    public final double[] laneSums = new double[RayPacket.MAX_SIZE * 4];
+
+    // Sample source of the current path (owned by this thread, never shared)
+    public final Sampler sampler;
+
+    // Radiance of the last traced path
+    public double r, g, b;
+
+    // Ray segments traced with this context (summed into the renderer statistics per tile)
+    public long raysTraced;
+
+    public TraceContext() {
+        this(new RandomSampler(new Rng().nextLong()));
+    }
+
+    public TraceContext(Sampler sampler) {
+        this.sampler = sampler;
+    }
+}
@@ -0,0 +1,361 @@
+package com.taha.openrayui.core;
+
+import com.taha.openrayui.geometry.Hittable;
+import com.taha.openrayui.material.Dielectric;
+import com.taha.openrayui.material.Lambertian;
+import com.taha.openrayui.material.Material;
+import com.taha.openrayui.material.Metal;
+import com.taha.openrayui.math.Ray;
+import com.taha.openrayui.math.Vec3;
+import com.taha.openrayui.sampler.Sampler;
+
+import java.util.Arrays;
+
+/**
+ * Breadth-first ("wavefront") path integrator: instead of following one path to its end, it advances a
+ * whole batch of paths by one bounce at a time, in stages:
+ * <ol>
+ *     <li><b>Generate:</b> the caller queues camera rays with {@link #add}.</li>
+ *     <li><b>Intersect:</b> every live path is traced against the world; escaped paths pick up the sky,
+ *     hits on emissive surfaces their (MIS-weighted) emission.</li>
+ *     <li><b>Sort:</b> the hits are ordered by material type (counting sort).</li>
+ *     <li><b>Shade:</b> each material type scatters its hits in one loop, followed by Russian roulette.
+ *     Non-specular hits also sample a light and queue a shadow ray toward it.</li>
+ *     <li><b>Shadow:</b> all queued shadow rays are tested for occlusion in one loop; visible lights are added.</li>
+ *     <li><b>Compact:</b> the ids of the surviving paths are packed into the queue of the next bounce.</li>
+ * </ol>
+ * <p>
+ * PERFORMANCE: The depth-first {@link Renderer} jumps between intersection, Lambertian, Metal, Dielectric and
+ * texture code on every bounce. Here each stage is a tight loop over one kind of work, and the shading loop of a
+ * material type only ever sees that type, so its scatter() call stays monomorphic and is inlined by the JIT.
+ * Path state is stored as structure-of-arrays in primitive arrays indexed by path id, and the queues only hold
+ * int ids, so compaction and sorting move 4 bytes per path instead of the whole path. Hit records are
+ * preallocated per path and written directly by the intersection code. Everything is allocated once per
+ * thread and reused for every batch.
+ * </p>
+ * <p>
+ * Every path reads its random numbers from the same sampler dimensions as {@link Renderer#trace}, and the caller
+ * sums the results in sample order, so the image is bit-identical to the depth-first integrator.
+ * An integrator holds per-batch state and must never be shared between threads.
+ * </p>
+ */
+public class WavefrontIntegrator {
+
+    // Material types, in shading order
+    private static final int LAMBERTIAN = 0;
+    private static final int METAL = 1;
+    private static final int DIELECTRIC = 2;
+    private static final int OTHER = 3;
+    private static final int TYPE_COUNT = 4;
+
+    private final Renderer renderer;
+    private final int maxDepth;
+    private final int capacity;
+
+    // --- Path state (index = path id, i.e. the order in which the path was added) ---
+    private int added;
+    private final int[] pixelX, pixelY;
+    private final int[] sampleIndex;
+    private final double[] ox, oy, oz, dx, dy, dz;
+    private final double[] throughputR, throughputG, throughputB;
+    private final double[] radianceR, radianceG, radianceB;
+    private final HitRecord[] hits;   // Closest hit of the current bounce
+    private final int[] hitType;      // Material type of that hit
+    private final boolean[] alive;
+    private final double[] scatterPdf; // Pdf of the direction sampled at the previous hit (0: camera ray or specular)
+
+    // --- Queues of path ids ---
+    // Live paths in the order they were added (neighbouring pixels stay together for coherent traversal)
+    private final int[] queue;
+    private int queueSize;
+    // Hit paths sorted by material type, and the start of each type's range
+    private final int[] sorted;
+    private final int[] typeStart = new int[TYPE_COUNT + 1];
+
+    // --- Shadow rays queued by the shade stage (index = queue position) ---
+    private final int[] shadowPath;   // Id of the path that receives the light
+    private final double[] shadowOx, shadowOy, shadowOz, shadowDx, shadowDy, shadowDz;
+    private final double[] shadowDistance;
+    private final double[] shadowR, shadowG, shadowB; // Contribution if the light is visible (incl. throughput)
+    private int shadowCount;
+
+    /**
+     * @param renderer Supplies the Russian roulette rule and the lights (the same as for depth-first paths)
+     * @param maxDepth Maximum number of bounces per path
+     * @param capacity Maximum number of paths per batch
+     */
+    public WavefrontIntegrator(Renderer renderer, int maxDepth, int capacity) {
+        this.renderer = renderer;
+        this.maxDepth = maxDepth;
+        this.capacity = capacity;
+
+        pixelX = new int[capacity];
+        pixelY = new int[capacity];
+        sampleIndex = new int[capacity];
+        ox = new double[capacity]; oy = new double[capacity]; oz = new double[capacity];
+        dx = new double[capacity]; dy = new double[capacity]; dz = new double[capacity];
+        throughputR = new double[capacity]; throughputG = new double[capacity]; throughputB = new double[capacity];
+        radianceR = new double[capacity]; radianceG = new double[capacity]; radianceB = new double[capacity];
+        hits = new HitRecord[capacity];
+        for (int id = 0; id < capacity; id++) hits[id] = new HitRecord();
+        hitType = new int[capacity];
+        alive = new boolean[capacity];
+        scatterPdf = new double[capacity];
+
+        queue = new int[capacity];
+        sorted = new int[capacity];
+
+        shadowPath = new int[capacity];
+        shadowOx = new double[capacity]; shadowOy = new double[capacity]; shadowOz = new double[capacity];
+        shadowDx = new double[capacity]; shadowDy = new double[capacity]; shadowDz = new double[capacity];
+        shadowDistance = new double[capacity];
+        shadowR = new double[capacity]; shadowG = new double[capacity]; shadowB = new double[capacity];
+    }
+
+    public int getCapacity() { return capacity; }
+
+    /**
+     * @return Number of paths added since the last {@link #clear()}; their ids are 0 .. getAdded()-1
+     */
+    public int getAdded() { return added; }
+
+    public boolean isFull() { return added == capacity; }
+
+    /**
+     * Empties the queue and the results for a new batch.
+     */
+    public void clear() {
+        added = 0;
+        queueSize = 0;
+    }
+
+    /**
+     * Queues a camera path (generate stage).
+     *
+     * @param x           Pixel column, used to restart the sampler for every bounce
+     * @param y           Pixel row
+     * @param sampleIndex Sample index within the pixel
+     * @param r           The camera ray (copied)
+     * @return The id of the path
+     */
+    public int add(int x, int y, int sampleIndex, Ray r) {
+        int id = added++;
+        pixelX[id] = x;
+        pixelY[id] = y;
+        this.sampleIndex[id] = sampleIndex;
+        ox[id] = r.ox; oy[id] = r.oy; oz[id] = r.oz;
+        dx[id] = r.dx; dy[id] = r.dy; dz[id] = r.dz;
+        throughputR[id] = 1.0; throughputG[id] = 1.0; throughputB[id] = 1.0;
+        radianceR[id] = 0; radianceG[id] = 0; radianceB[id] = 0;
+        scatterPdf[id] = 0;
+        queue[queueSize++] = id;
+        return id;
+    }
+
+    // --- Results of the last batch ---
+    public double getR(int id) { return radianceR[id]; }
+    public double getG(int id) { return radianceG[id]; }
+    public double getB(int id) { return radianceB[id]; }
+
+    /**
+     * Traces all queued paths to completion. Afterwards the radiance of every path is available by its id.
+     *
+     * @param world The scene (usually its BVH acceleration structure)
+     * @param ctx   Per-thread scratch state (ray, hit record, scatter result, sampler, ray counter)
+     */
+    public void trace(Hittable world, TraceContext ctx) {
+        LightList lights = renderer.getLights();
+        for (int bounce = 0; bounce < maxDepth && queueSize > 0; bounce++) {
+            intersect(world, ctx);
+            sortByMaterial();
+            shade(bounce, lights, ctx);
+            shadow(world, ctx);
+            compact();
+        }
+        // Bounce limit reached: the remaining paths gather no further light
+        queueSize = 0;
+    }
+
+    /**
+     * Intersect stage: finds the closest hit of every live path. Paths that escape receive the sky and end;
+     * paths that hit an emissive surface receive its emission, weighted against light sampling.
+     */
+    private void intersect(Hittable world, TraceContext ctx) {
+        Ray ray = ctx.ray;
+        HitRecord rec = ctx.rec;
+        ctx.raysTraced += queueSize;
+
+        for (int n = 0; n < queueSize; n++) {
+            int id = queue[n];
+            ray.set(ox[id], oy[id], oz[id], dx[id], dy[id], dz[id]);
+            // The traversal updates the record for every closer candidate, so it works on the (cache-hot)
+            // context record, and only the final hit is stored with the path
+            if (world.hit(ray, Renderer.T_MIN, Double.POSITIVE_INFINITY, rec)) {
+                hits[id].copyFrom(rec);
+                alive[id] = true;
+                hitType[id] = typeOf(rec.mat);
+
+                Vec3 emitted = rec.mat.emitted();
+                if (emitted != null) {
+                    double weight = renderer.emittedWeight(rec, ray, scatterPdf[id]);
+                    radianceR[id] += throughputR[id] * emitted.x * weight;
+                    radianceG[id] += throughputG[id] * emitted.y * weight;
+                    radianceB[id] += throughputB[id] * emitted.z * weight;
+                }
+            } else {
+                // Same sky gradient as Renderer: white (1,1,1) to blue (0.5,0.7,1.0)
+                double t = Renderer.skyBlend(dx[id], dy[id], dz[id]);
+                radianceR[id] += throughputR[id] * ((1.0 - t) + t * 0.5);
+                radianceG[id] += throughputG[id] * ((1.0 - t) + t * 0.7);
+                radianceB[id] += throughputB[id];
+                alive[id] = false;
+            }
+        }
+    }
+
+    private static int typeOf(Material mat) {
+        if (mat instanceof Lambertian) return LAMBERTIAN;
+        if (mat instanceof Metal) return METAL;
+        if (mat instanceof Dielectric) return DIELECTRIC;
+        return OTHER;
+    }
+
+    /**
+     * Sort stage: counting sort of the hit paths by material type into {@link #sorted}.
+     * Stable, so within a type the paths keep their (roughly pixel-coherent) queue order.
+     */
+    private void sortByMaterial() {
+        int[] start = typeStart;
+        Arrays.fill(start, 0);
+        for (int n = 0; n < queueSize; n++) {
+            int id = queue[n];
+            if (alive[id]) start[hitType[id] + 1]++;
+        }
+        for (int type = 0; type < TYPE_COUNT; type++) {
+            start[type + 1] += start[type];
+        }
+
+        // Fill using a moving cursor per type, then restore the range starts
+        for (int n = 0; n < queueSize; n++) {
+            int id = queue[n];
+            if (alive[id]) sorted[start[hitType[id]]++] = id;
+        }
+        for (int type = TYPE_COUNT; type > 0; type--) {
+            start[type] = start[type - 1];
+        }
+        start[0] = 0;
+    }
+
+    /**
+     * Shade stage: scatters every hit, one material type after the other, queues a shadow ray for non-specular hits
+     * and applies Russian roulette. Absorbed and terminated paths end with the light gathered so far.
+     */
+    private void shade(int bounce, LightList lights, TraceContext ctx) {
+        Ray rIn = ctx.ray;
+        ScatterResult scattered = ctx.scatter;
+        Sampler sampler = ctx.sampler;
+        int dimension = Sampler.bounceDimension(bounce);
+        boolean roulette = renderer.usesRoulette(maxDepth - bounce);
+        boolean sampleLights = !lights.isEmpty();
+        boolean lastBounce = bounce == maxDepth - 1; // Same rule as Renderer.trace (depth == 1)
+        shadowCount = 0;
+
+        for (int type = 0; type < TYPE_COUNT; type++) {
+            // One loop per type: the switch is loop-invariant, and each case is its own (monomorphic) call site
+            for (int n = typeStart[type]; n < typeStart[type + 1]; n++) {
+                int id = sorted[n];
+                HitRecord rec = hits[id];
+                // Materials only read the origin and direction of the incoming ray, so 1/d is not updated
+                rIn.ox = ox[id]; rIn.oy = oy[id]; rIn.oz = oz[id];
+                rIn.dx = dx[id]; rIn.dy = dy[id]; rIn.dz = dz[id];
+
+                // Restart the path's sample, then read this bounce's dimensions exactly like Renderer.trace
+                sampler.startSample(pixelX[id], pixelY[id], sampleIndex[id]);
+                sampler.setDimension(dimension + Sampler.SCATTER_OFFSET);
+
+                Material mat = rec.mat;
+                boolean scatters;
+                switch (type) {
+                    case LAMBERTIAN: scatters = ((Lambertian) mat).scatter(rIn, rec, scattered, sampler); break;
+                    case METAL: scatters = ((Metal) mat).scatter(rIn, rec, scattered, sampler); break;
+                    case DIELECTRIC: scatters = ((Dielectric) mat).scatter(rIn, rec, scattered, sampler); break;
+                    default: scatters = mat.scatter(rIn, rec, scattered, sampler); break;
+                }
+                if (!scatters) {
+                    alive[id] = false;
+                    continue;
+                }
+
+                double attR = scattered.attenuationR;
+                double attG = scattered.attenuationG;
+                double attB = scattered.attenuationB;
+
+                // Direct lighting: the shadow ray is traced later by the shadow stage, together with all others
+                scatterPdf[id] = scattered.pdf;
+                if (sampleLights && scattered.pdf > 0
+                        && renderer.sampleDirectLight(rIn, rec, dimension, lastBounce, ctx)) {
+                    int s = shadowCount++;
+                    Ray shadowRay = ctx.shadowRay;
+                    shadowPath[s] = id;
+                    shadowOx[s] = shadowRay.ox; shadowOy[s] = shadowRay.oy; shadowOz[s] = shadowRay.oz;
+                    shadowDx[s] = shadowRay.dx; shadowDy[s] = shadowRay.dy; shadowDz[s] = shadowRay.dz;
+                    shadowDistance[s] = ctx.shadowDistance;
+                    shadowR[s] = throughputR[id] * ctx.lightR;
+                    shadowG[s] = throughputG[id] * ctx.lightG;
+                    shadowB[s] = throughputB[id] * ctx.lightB;
+                }
+
+                if (roulette) {
+                    double survivalProbability = Renderer.survivalProbability(attR, attG, attB);
+                    sampler.setDimension(dimension + Sampler.ROULETTE_OFFSET);
+                    if (sampler.next1D() > survivalProbability) {
+                        alive[id] = false;
+                        continue;
+                    }
+                    attR /= survivalProbability;
+                    attG /= survivalProbability;
+                    attB /= survivalProbability;
+                }
+
+                throughputR[id] *= attR;
+                throughputG[id] *= attG;
+                throughputB[id] *= attB;
+
+                Ray next = scattered.scattered;
+                ox[id] = next.ox; oy[id] = next.oy; oz[id] = next.oz;
+                dx[id] = next.dx; dy[id] = next.dy; dz[id] = next.dz;
+            }
+        }
+    }
+
+    /**
+     * Shadow stage: tests every queued shadow ray for occlusion and adds the light of the visible ones.
+     * Any-hit queries stop at the first blocker, so this stage is much cheaper than the intersect stage.
+     */
+    private void shadow(Hittable world, TraceContext ctx) {
+        Ray ray = ctx.shadowRay;
+        ctx.raysTraced += shadowCount;
+
+        for (int s = 0; s < shadowCount; s++) {
+            ray.set(shadowOx[s], shadowOy[s], shadowOz[s], shadowDx[s], shadowDy[s], shadowDz[s]);
+            if (!world.occluded(ray, Renderer.T_MIN, shadowDistance[s])) {
+                int id = shadowPath[s];
+                radianceR[id] += shadowR[s];
+                radianceG[id] += shadowG[s];
+                radianceB[id] += shadowB[s];
+            }
+        }
+    }
+
+    /**
+     * Compact stage: packs the ids of the surviving paths to the front of the queue, keeping their order.
+     */
+    private void compact() {
+        int live = 0;
+        for (int n = 0; n < queueSize; n++) {
+            int id = queue[n];
+            if (alive[id]) queue[live++] = id;
+        }
+        queueSize = live;
+    }
+}
@@ -12,35 +12,52 @@ public class AABB {
     public final Vec3 min;
     public final Vec3 max;
 
+    // Primitive copies of the corners for the allocation-free slab test
+    private final double minX, minY, minZ;
+    private final double maxX, maxY, maxZ;
+
     public AABB(Vec3 min, Vec3 max) {
         this.min = min;
         this.max = max;
+        this.minX = min.x; this.minY = min.y; this.minZ = min.z;
+        this.maxX = max.x; this.maxY = max.y; this.maxZ = max.z;
     }
 
     /**
      * Optimized Slab Method to check if a ray hits this box.
      * We don't need the hit point or normal, just true/false.
+     * Uses the ray's cached inverse direction, so the test allocates nothing.
      */
     public boolean hit(Ray r, double tMin, double tMax) {
-        for (int a = 0; a < 3; a++) {
-            // Get ray component (x, y, z) using index access
-            double invD = 1.0 / r.direction().get(a);
-            double t0 = (min.get(a) - r.origin().get(a)) * invD;
-            double t1 = (max.get(a) - r.origin().get(a)) * invD;
-
-            // Swap if t0 > t1 (handling negative direction)
-            if (invD < 0.0) {
-                double temp = t0; t0 = t1; t1 = temp;
-            }
-
-            // Narrow the search interval
-            tMin = t0 > tMin ? t0 : tMin;
-            tMax = t1 < tMax ? t1 : tMax;
-
-            // If interval is empty, ray missed
-            if (tMax <= tMin) return false;
-        }
-        return true;
+        // X slab
+        double invD = r.invDx;
+        double t0 = (minX - r.ox) * invD;
+        double t1 = (maxX - r.ox) * invD;
+        // Swap if t0 > t1 (handling negative direction)
+        if (invD < 0.0) { double temp = t0; t0 = t1; t1 = temp; }
+        // Narrow the search interval
+        tMin = t0 > tMin ? t0 : tMin;
+        tMax = t1 < tMax ? t1 : tMax;
+        // If interval is empty, ray missed
+        if (tMax <= tMin) return false;
+
+        // Y slab
+        invD = r.invDy;
+        t0 = (minY - r.oy) * invD;
+        t1 = (maxY - r.oy) * invD;
+        if (invD < 0.0) { double temp = t0; t0 = t1; t1 = temp; }
+        tMin = t0 > tMin ? t0 : tMin;
+        tMax = t1 < tMax ? t1 : tMax;
+        if (tMax <= tMin) return false;
+
+        // Z slab
+        invD = r.invDz;
+        t0 = (minZ - r.oz) * invD;
+        t1 = (maxZ - r.oz) * invD;
+        if (invD < 0.0) { double temp = t0; t0 = t1; t1 = temp; }
+        tMin = t0 > tMin ? t0 : tMin;
+        tMax = t1 < tMax ? t1 : tMax;
+        return tMax > tMin;
     }
 
     /**
@@ -0,0 +1,404 @@
+package com.taha.openrayui.geometry;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Builds Bounding Volume Hierarchies with the binned Surface Area Heuristic (SAH).
+ * <p>
+ * The builder only sees primitive bounds, passed as a flat array with 6 doubles per primitive
+ * (minX, minY, minZ, maxX, maxY, maxZ), so the same code serves scene objects, triangles or sphere sets.
+ * At every node the primitive centroids are sorted into {@link #BIN_COUNT} bins per axis, and the split
+ * that minimizes the expected ray cost (area of each side x number of primitives in it) is chosen.
+ * Nodes become leaves when splitting does not pay off, up to a configurable number of primitives,
+ * which avoids the long chains of nearly empty nodes a median split produces on uneven scenes
+ * (e.g. one huge ground sphere next to many small ones).
+ * </p>
+ * <p>
+ * The primitive index array is partitioned in place, so every leaf refers to a contiguous range of it.
+ * </p>
+ */
+public class BVHBuilder {
+
+    public static final int BIN_COUNT = 16;
+    public static final int DEFAULT_MAX_LEAF_SIZE = 4;
+
+    // Ranges at least this large build their two subtrees as parallel fork-join tasks
+    public static final int PARALLEL_THRESHOLD = 4096;
+
+    // Relative costs of visiting a node and of intersecting a primitive (SAH model)
+    public static final double TRAVERSAL_COST = 1.0;
+    public static final double INTERSECTION_COST = 1.0;
+
+    private final int maxLeafSize;
+    private final double intersectionCost;
+
+    /**
+     * @param maxLeafSize Maximum number of primitives a leaf may hold (1 = one primitive per leaf)
+     */
+    public BVHBuilder(int maxLeafSize) {
+        this(maxLeafSize, INTERSECTION_COST);
+    }
+
+    /**
+     * @param maxLeafSize      Maximum number of primitives a leaf may hold (1 = one primitive per leaf)
+     * @param intersectionCost Cost of one primitive test relative to a node visit. Primitives that are
+     *                         cheap to test in a batch (e.g. {@link SphereSet}) use less than 1,
+     *                         which gives fuller leaves and fewer nodes.
+     */
+    public BVHBuilder(int maxLeafSize, double intersectionCost) {
+        this.maxLeafSize = Math.max(1, maxLeafSize);
+        this.intersectionCost = intersectionCost;
+    }
+
+    /**
+     * A node of the built tree. Interior nodes have two children; leaves refer to the range
+     * [start, start + count) of {@link Result#primitiveIndices}.
+     */
+    public static final class Node {
+        public double minX, minY, minZ;
+        public double maxX, maxY, maxZ;
+        public Node left;
+        public Node right;
+        public int axis;  // Split axis of an interior node (0=X, 1=Y, 2=Z)
+        public int start; // First primitive of a leaf
+        public int count; // Number of primitives of a leaf (0 for interior nodes)
+
+        public boolean isLeaf() {
+            return left == null;
+        }
+
+        /**
+         * Half of the surface area (the factor 2 cancels out in all SAH ratios).
+         */
+        public double halfArea() {
+            return BVHBuilder.halfArea(maxX - minX, maxY - minY, maxZ - minZ);
+        }
+    }
+
+    /**
+     * The output of a build.
+     */
+    public static final class Result {
+        public final Node root;
+        public final int[] primitiveIndices; // Leaf ranges index into this array
+        public final int nodeCount;
+        public final double sahCost;         // Expected cost of a ray through the root, in SAH units
+        public final double intersectionCost; // The primitive cost the tree was built with
+
+        Result(Node root, int[] primitiveIndices, int nodeCount, double sahCost, double intersectionCost) {
+            this.root = root;
+            this.primitiveIndices = primitiveIndices;
+            this.nodeCount = nodeCount;
+            this.sahCost = sahCost;
+            this.intersectionCost = intersectionCost;
+        }
+    }
+
+    /**
+     * Builds a hierarchy over the given primitives.
+     * Large inputs are built in parallel: above {@link #PARALLEL_THRESHOLD} primitives the two subtrees
+     * of a node are built as separate fork-join tasks. Each task works on its own disjoint range of the
+     * shared index array, so no data is copied between recursion levels.
+     *
+     * @param bounds         6 doubles per primitive: minX, minY, minZ, maxX, maxY, maxZ
+     * @param primitiveCount Number of primitives (must be at least 1)
+     */
+    public Result build(double[] bounds, int primitiveCount) {
+        if (primitiveCount <= 0) throw new IllegalArgumentException("A BVH needs at least one primitive");
+
+        int[] indices = new int[primitiveCount];
+        double[] centroids = new double[primitiveCount * 3];
+        for (int i = 0; i < primitiveCount; i++) {
+            indices[i] = i;
+            centroids[i * 3]     = 0.5 * (bounds[i * 6]     + bounds[i * 6 + 3]);
+            centroids[i * 3 + 1] = 0.5 * (bounds[i * 6 + 1] + bounds[i * 6 + 4]);
+            centroids[i * 3 + 2] = 0.5 * (bounds[i * 6 + 2] + bounds[i * 6 + 5]);
+        }
+
+        Build build = new Build(bounds, centroids, indices);
+        Node root = primitiveCount >= PARALLEL_THRESHOLD
+                ? ForkJoinPool.commonPool().invoke(build.new BuildTask(0, primitiveCount))
+                : build.buildRange(0, primitiveCount, new Scratch());
+
+        int[] nodeCount = new int[1];
+        double cost = sahCost(root, nodeCount);
+        return new Result(root, indices, nodeCount[0], cost, intersectionCost);
+    }
+
+    /**
+     * Per-task scratch memory for binning, reused for every node a task builds sequentially.
+     */
+    private static final class Scratch {
+        final int[] binCounts = new int[3 * BIN_COUNT];
+        final double[] binBounds = new double[3 * BIN_COUNT * 6];
+        final double[] rightArea = new double[BIN_COUNT];
+        final int[] rightCount = new int[BIN_COUNT];
+        final double[] centroidBounds = new double[6];
+    }
+
+    /**
+     * The state of one build: the input arrays shared (read-only, except disjoint index ranges) by all tasks.
+     */
+    private final class Build {
+        private final double[] bounds;
+        private final double[] centroids;
+        private final int[] indices;
+
+        Build(double[] bounds, double[] centroids, int[] indices) {
+            this.bounds = bounds;
+            this.centroids = centroids;
+            this.indices = indices;
+        }
+
+        /**
+         * Builds the left and right subtree of a large node concurrently.
+         */
+        final class BuildTask extends RecursiveTask<Node> {
+            private final int start;
+            private final int end;
+
+            BuildTask(int start, int end) {
+                this.start = start;
+                this.end = end;
+            }
+
+            @Override
+            protected Node compute() {
+                return buildRange(start, end, new Scratch());
+            }
+        }
+
+        Node buildRange(int start, int end, Scratch scratch) {
+            Node node = new Node();
+            computeBounds(node, start, end, scratch.centroidBounds);
+            int count = end - start;
+
+            int mid = count == 1 ? -1 : findSplit(node, start, end, scratch);
+            if (mid < 0) {
+                node.start = start;
+                node.count = count;
+                return node;
+            }
+
+            if (count >= PARALLEL_THRESHOLD) {
+                // The ranges are disjoint, so both halves can be partitioned concurrently
+                BuildTask leftTask = new BuildTask(start, mid);
+                leftTask.fork();
+                node.right = buildRange(mid, end, scratch);
+                node.left = leftTask.join();
+            } else {
+                node.left = buildRange(start, mid, scratch);
+                node.right = buildRange(mid, end, scratch);
+            }
+            return node;
+        }
+
+        /**
+         * Computes the node bounds and the centroid bounds of [start, end) in a single pass.
+         */
+        private void computeBounds(Node node, int start, int end, double[] centroidBounds) {
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+            double cMinX = Double.POSITIVE_INFINITY, cMinY = Double.POSITIVE_INFINITY, cMinZ = Double.POSITIVE_INFINITY;
+            double cMaxX = Double.NEGATIVE_INFINITY, cMaxY = Double.NEGATIVE_INFINITY, cMaxZ = Double.NEGATIVE_INFINITY;
+            for (int i = start; i < end; i++) {
+                int p = indices[i];
+                int o = p * 6;
+                if (bounds[o] < minX) minX = bounds[o];
+                if (bounds[o + 1] < minY) minY = bounds[o + 1];
+                if (bounds[o + 2] < minZ) minZ = bounds[o + 2];
+                if (bounds[o + 3] > maxX) maxX = bounds[o + 3];
+                if (bounds[o + 4] > maxY) maxY = bounds[o + 4];
+                if (bounds[o + 5] > maxZ) maxZ = bounds[o + 5];
+
+                int c = p * 3;
+                double cx = centroids[c], cy = centroids[c + 1], cz = centroids[c + 2];
+                if (cx < cMinX) cMinX = cx;
+                if (cx > cMaxX) cMaxX = cx;
+                if (cy < cMinY) cMinY = cy;
+                if (cy > cMaxY) cMaxY = cy;
+                if (cz < cMinZ) cMinZ = cz;
+                if (cz > cMaxZ) cMaxZ = cz;
+            }
+            node.minX = minX; node.minY = minY; node.minZ = minZ;
+            node.maxX = maxX; node.maxY = maxY; node.maxZ = maxZ;
+            centroidBounds[0] = cMinX; centroidBounds[1] = cMinY; centroidBounds[2] = cMinZ;
+            centroidBounds[3] = cMaxX; centroidBounds[4] = cMaxY; centroidBounds[5] = cMaxZ;
+        }
+
+        /**
+         * Chooses the cheapest binned split of [start, end) and partitions the indices accordingly.
+         *
+         * @return The partition point, or -1 if the range should become a leaf
+         */
+        private int findSplit(Node node, int start, int end, Scratch scratch) {
+            int count = end - start;
+            double[] cb = scratch.centroidBounds;
+            int[] binCounts = scratch.binCounts;
+            double[] binBounds = scratch.binBounds;
+            double[] rightArea = scratch.rightArea;
+            int[] rightCount = scratch.rightCount;
+
+            // Centroid bounds decide the bin layout (primitive bounds may overlap arbitrarily)
+            double scaleX = binScale(cb[3] - cb[0]);
+            double scaleY = binScale(cb[4] - cb[1]);
+            double scaleZ = binScale(cb[5] - cb[2]);
+
+            // 1. Sort the primitives into the bins of all three axes in one pass
+            Arrays.fill(binCounts, 0);
+            resetBounds(binBounds);
+            for (int i = start; i < end; i++) {
+                int p = indices[i];
+                int c = p * 3;
+                int binX = binIndex(centroids[c], cb[0], scaleX);
+                int binY = BIN_COUNT + binIndex(centroids[c + 1], cb[1], scaleY);
+                int binZ = 2 * BIN_COUNT + binIndex(centroids[c + 2], cb[2], scaleZ);
+                binCounts[binX]++;
+                binCounts[binY]++;
+                binCounts[binZ]++;
+                growBounds(binBounds, binX * 6, bounds, p * 6);
+                growBounds(binBounds, binY * 6, bounds, p * 6);
+                growBounds(binBounds, binZ * 6, bounds, p * 6);
+            }
+
+            double nodeArea = node.halfArea();
+            double bestCost = Double.POSITIVE_INFINITY;
+            int bestAxis = -1;
+            int bestBin = -1;
+
+            for (int axis = 0; axis < 3; axis++) {
+                if (cb[axis + 3] - cb[axis] <= 0) continue; // All centroids on one plane: this axis cannot separate them
+                int first = axis * BIN_COUNT;
+
+                // 2. Sweep from the right: area and count of everything right of each split plane
+                double rMinX = Double.POSITIVE_INFINITY, rMinY = Double.POSITIVE_INFINITY, rMinZ = Double.POSITIVE_INFINITY;
+                double rMaxX = Double.NEGATIVE_INFINITY, rMaxY = Double.NEGATIVE_INFINITY, rMaxZ = Double.NEGATIVE_INFINITY;
+                int rCount = 0;
+                for (int b = BIN_COUNT - 1; b > 0; b--) {
+                    if (binCounts[first + b] > 0) {
+                        int o = (first + b) * 6;
+                        rMinX = Math.min(rMinX, binBounds[o]);     rMaxX = Math.max(rMaxX, binBounds[o + 3]);
+                        rMinY = Math.min(rMinY, binBounds[o + 1]); rMaxY = Math.max(rMaxY, binBounds[o + 4]);
+                        rMinZ = Math.min(rMinZ, binBounds[o + 2]); rMaxZ = Math.max(rMaxZ, binBounds[o + 5]);
+                        rCount += binCounts[first + b];
+                    }
+                    rightCount[b] = rCount;
+                    rightArea[b] = rCount > 0 ? halfArea(rMaxX - rMinX, rMaxY - rMinY, rMaxZ - rMinZ) : 0;
+                }
+
+                // 3. Sweep from the left and evaluate the split after each bin
+                double lMinX = Double.POSITIVE_INFINITY, lMinY = Double.POSITIVE_INFINITY, lMinZ = Double.POSITIVE_INFINITY;
+                double lMaxX = Double.NEGATIVE_INFINITY, lMaxY = Double.NEGATIVE_INFINITY, lMaxZ = Double.NEGATIVE_INFINITY;
+                int lCount = 0;
+                for (int b = 0; b < BIN_COUNT - 1; b++) {
+                    if (binCounts[first + b] > 0) {
+                        int o = (first + b) * 6;
+                        lMinX = Math.min(lMinX, binBounds[o]);     lMaxX = Math.max(lMaxX, binBounds[o + 3]);
+                        lMinY = Math.min(lMinY, binBounds[o + 1]); lMaxY = Math.max(lMaxY, binBounds[o + 4]);
+                        lMinZ = Math.min(lMinZ, binBounds[o + 2]); lMaxZ = Math.max(lMaxZ, binBounds[o + 5]);
+                        lCount += binCounts[first + b];
+                    }
+                    int rc = rightCount[b + 1];
+                    if (lCount == 0 || rc == 0) continue;
+
+                    double leftArea = halfArea(lMaxX - lMinX, lMaxY - lMinY, lMaxZ - lMinZ);
+                    double cost = splitCost(leftArea, lCount, rightArea[b + 1], rc, nodeArea);
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestAxis = axis;
+                        bestBin = b;
+                    }
+                }
+            }
+
+            // A leaf is cheaper (or as cheap) than any split: stop here if the leaf limit allows it
+            double leafCost = intersectionCost * count;
+            if (count <= maxLeafSize && (bestAxis < 0 || leafCost <= bestCost)) {
+                return -1;
+            }
+
+            if (bestAxis < 0) {
+                // Identical centroids: no plane separates them, so split the range in the middle
+                node.axis = 0;
+                return start + count / 2;
+            }
+            node.axis = bestAxis;
+
+            // Partition in place: primitives in bins [0, bestBin] go to the left
+            double min = cb[bestAxis];
+            double scale = binScale(cb[bestAxis + 3] - min);
+            int i = start;
+            int j = end - 1;
+            while (i <= j) {
+                int p = indices[i];
+                if (binIndex(centroids[p * 3 + bestAxis], min, scale) <= bestBin) {
+                    i++;
+                } else {
+                    indices[i] = indices[j];
+                    indices[j] = p;
+                    j--;
+                }
+            }
+            // Both sides are non-empty by construction; guard against rounding anyway
+            return (i == start || i == end) ? start + count / 2 : i;
+        }
+    }
+
+    private static double binScale(double extent) {
+        return extent > 0 ? BIN_COUNT / extent : 0;
+    }
+
+    private double splitCost(double leftArea, int leftCount, double rightArea, int rightCount, double nodeArea) {
+        if (nodeArea <= 0) return TRAVERSAL_COST + intersectionCost * (leftCount + rightCount);
+        return TRAVERSAL_COST + intersectionCost * (leftArea * leftCount + rightArea * rightCount) / nodeArea;
+    }
+
+    private static int binIndex(double centroid, double min, double scale) {
+        int bin = (int) ((centroid - min) * scale);
+        return bin < 0 ? 0 : (bin >= BIN_COUNT ? BIN_COUNT - 1 : bin);
+    }
+
+    private static void resetBounds(double[] boxes) {
+        for (int o = 0; o < boxes.length; o += 6) {
+            boxes[o] = boxes[o + 1] = boxes[o + 2] = Double.POSITIVE_INFINITY;
+            boxes[o + 3] = boxes[o + 4] = boxes[o + 5] = Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    private static void growBounds(double[] boxes, int o, double[] bounds, int p) {
+        if (bounds[p] < boxes[o])         boxes[o]     = bounds[p];
+        if (bounds[p + 1] < boxes[o + 1]) boxes[o + 1] = bounds[p + 1];
+        if (bounds[p + 2] < boxes[o + 2]) boxes[o + 2] = bounds[p + 2];
+        if (bounds[p + 3] > boxes[o + 3]) boxes[o + 3] = bounds[p + 3];
+        if (bounds[p + 4] > boxes[o + 4]) boxes[o + 4] = bounds[p + 4];
+        if (bounds[p + 5] > boxes[o + 5]) boxes[o + 5] = bounds[p + 5];
+    }
+
+    static double halfArea(double dx, double dy, double dz) {
+        return dx * dy + dy * dz + dz * dx;
+    }
+
+    /**
+     * Expected cost of a random ray through the node (SAH), computed bottom-up.
+     * Also counts the nodes of the subtree.
+     */
+    private double sahCost(Node node, int[] nodeCount) {
+        nodeCount[0]++;
+        if (node.isLeaf()) return intersectionCost * node.count;
+
+        double leftCost = sahCost(node.left, nodeCount);
+        double rightCost = sahCost(node.right, nodeCount);
+        return interiorCost(node.halfArea(), node.left.halfArea(), leftCost, node.right.halfArea(), rightCost);
+    }
+
+    /**
+     * SAH cost of an interior node from the areas and costs of its children.
+     * Shared with {@link FlatBVH}, which keeps the costs up to date during refits.
+     */
+    static double interiorCost(double area, double leftArea, double leftCost, double rightArea, double rightCost) {
+        if (area <= 0) return TRAVERSAL_COST + leftCost + rightCost;
+        return TRAVERSAL_COST + (leftArea * leftCost + rightArea * rightCost) / area;
+    }
+}
@@ -3,85 +3,110 @@ package com.taha.openrayui.geometry;
 import com.taha.openrayui.core.HitRecord;
 import com.taha.openrayui.material.Material;
 import com.taha.openrayui.math.Ray;
+import com.taha.openrayui.math.Vec3;
 
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * A Bounding Volume Hierarchy (BVH) node.
  * It recursively splits the objects into smaller groups (left and right children).
  * This structure allows rays to skip checking objects that are far away.
+ * <p>
+ * The tree layout comes from {@link BVHBuilder} (binned SAH). Leaves may hold several objects,
+ * up to the configured leaf size, and every object is stored exactly once.
+ * </p>
  */
 public class BVHNode extends Hittable {
 
+    // Interior node: two children (a child holding a single object is that object itself)
     private final Hittable left;
     private final Hittable right;
+
+    // Leaf node: the objects it holds (null for interior nodes)
+    private final Hittable[] primitives;
+
     private final AABB box;
 
+    // Statistics of the whole tree (only set on the root)
+    private double sahCost;
+    private int nodeCount;
+
     /**
-     * Constructs a BVH tree from a list of objects.
+     * Constructs a BVH tree from a list of objects with the default leaf size.
      */
     public BVHNode(HittableList list) {
-        this(list.objects, 0, list.objects.size());
+        this(list, BVHBuilder.DEFAULT_MAX_LEAF_SIZE);
     }
 
     /**
-     * Recursive constructor that builds the tree structure.
-     * It sorts objects along a random axis and splits them.
+     * Constructs a BVH tree from a list of objects.
+     *
+     * @param maxLeafSize Maximum number of objects per leaf
      */
-    private BVHNode(List<Hittable> srcObjects, int start, int end) {
-        // Create a modifiable copy of the list references for sorting
-        List<Hittable> objects = new ArrayList<>(srcObjects);
-
-        // 1. Choose a random axis (0=X, 1=Y, 2=Z) to split the objects
-        int axis = ThreadLocalRandom.current().nextInt(3);
-
-        // Define a comparator based on the chosen axis
-        Comparator<Hittable> comparator = (a, b) -> {
-            AABB boxA = a.boundingBox();
-            AABB boxB = b.boundingBox();
-            if (boxA == null || boxB == null) {
-                System.err.println("No bounding box in BVHNode constructor.");
-                return 0;
-            }
-            return Double.compare(boxA.min.get(axis), boxB.min.get(axis));
-        };
-
-        int objectSpan = end - start;
-
-        if (objectSpan == 1) {
-            // Leaf node: Only one object
-            left = right = objects.get(start);
-        } else if (objectSpan == 2) {
-            // Two objects: Compare and assign
-            if (comparator.compare(objects.get(start), objects.get(start + 1)) < 0) {
-                left = objects.get(start);
-                right = objects.get(start + 1);
-            } else {
-                left = objects.get(start + 1);
-                right = objects.get(start);
+    public BVHNode(HittableList list, int maxLeafSize) {
+        this(build(list.objects, maxLeafSize), list.objects);
+    }
+
+    private BVHNode(BVHBuilder.Result result, List<Hittable> objects) {
+        this(result.root, result.primitiveIndices, objects);
+        this.sahCost = result.sahCost;
+        this.nodeCount = result.nodeCount;
+    }
+
+    /**
+     * Recursive constructor that mirrors the built tree.
+     */
+    private BVHNode(BVHBuilder.Node node, int[] indices, List<Hittable> objects) {
+        this.box = new AABB(new Vec3(node.minX, node.minY, node.minZ), new Vec3(node.maxX, node.maxY, node.maxZ));
+
+        if (node.isLeaf()) {
+            primitives = new Hittable[node.count];
+            for (int i = 0; i < node.count; i++) {
+                primitives[i] = objects.get(indices[node.start + i]);
             }
+            left = right = null;
         } else {
-            // More than two objects: Sort and split in half
-            objects.subList(start, end).sort(comparator);
-
-            int mid = start + objectSpan / 2;
-            left = new BVHNode(objects, start, mid);
-            right = new BVHNode(objects, mid, end);
+            primitives = null;
+            left = child(node.left, indices, objects);
+            right = child(node.right, indices, objects);
         }
+    }
 
-        // 2. Compute the bounding box for this node (surrounding both children)
-        AABB boxLeft = left.boundingBox();
-        AABB boxRight = right.boundingBox();
+    private static Hittable child(BVHBuilder.Node node, int[] indices, List<Hittable> objects) {
+        // A single-object leaf needs no node of its own: its box would equal the object's box
+        if (node.isLeaf() && node.count == 1) return objects.get(indices[node.start]);
+        return new BVHNode(node, indices, objects);
+    }
 
-        if (boxLeft == null || boxRight == null) {
-            System.err.println("No bounding box in BVHNode constructor.");
-            box = null; // Should not happen with valid geometries
-        } else {
-            box = AABB.surroundingBox(boxLeft, boxRight);
+    private static BVHBuilder.Result build(List<Hittable> objects, int maxLeafSize) {
+        double[] bounds = new double[objects.size() * 6];
+        for (int i = 0; i < objects.size(); i++) {
+            AABB b = objects.get(i).boundingBox();
+            if (b == null) {
+                throw new IllegalArgumentException("No bounding box for " + objects.get(i).getName() + " in BVHNode constructor.");
+            }
+            bounds[i * 6]     = b.min.x;
+            bounds[i * 6 + 1] = b.min.y;
+            bounds[i * 6 + 2] = b.min.z;
+            bounds[i * 6 + 3] = b.max.x;
+            bounds[i * 6 + 4] = b.max.y;
+            bounds[i * 6 + 5] = b.max.z;
         }
+        return new BVHBuilder(maxLeafSize).build(bounds, objects.size());
+    }
+
+    /**
+     * @return Expected cost of a ray through this tree in SAH units (root only, 0 for inner nodes).
+     */
+    public double getSahCost() {
+        return sahCost;
+    }
+
+    /**
+     * @return Number of nodes of the built tree (root only, 0 for inner nodes).
+     */
+    public int getNodeCount() {
+        return nodeCount;
     }
 
     @Override
@@ -91,6 +116,18 @@ public class BVHNode extends Hittable {
             return false;
         }
 
+        if (primitives != null) {
+            // Leaf: closest hit among its objects
+            boolean hitAnything = false;
+            for (Hittable primitive : primitives) {
+                if (primitive.hit(r, tMin, tMax, rec)) {
+                    hitAnything = true;
+                    tMax = rec.t;
+                }
+            }
+            return hitAnything;
+        }
+
         // Check children recursively
         boolean hitLeft = left.hit(r, tMin, tMax, rec);
 
@@ -103,6 +140,23 @@ public class BVHNode extends Hittable {
         return hitLeft || hitRight;
     }
 
+    @Override
+    public boolean occluded(Ray r, double tMin, double tMax) {
+        if (!box.hit(r, tMin, tMax)) {
+            return false;
+        }
+
+        if (primitives != null) {
+            for (Hittable primitive : primitives) {
+                if (primitive.occluded(r, tMin, tMax)) return true;
+            }
+            return false;
+        }
+
+        // Any hit ends the search: the right subtree is only visited if the left one is clear
+        return left.occluded(r, tMin, tMax) || right.occluded(r, tMin, tMax);
+    }
+
     @Override
     public AABB boundingBox() {
         return box;
@@ -1,6 +1,7 @@
 package com.taha.openrayui.geometry;
 
 import com.taha.openrayui.core.HitRecord;
+import com.taha.openrayui.core.LightSample;
 import com.taha.openrayui.material.Material;
 import com.taha.openrayui.math.Ray;
 import com.taha.openrayui.math.Vec3;
@@ -14,6 +15,9 @@ public class Box extends Hittable {
     private Vec3 pMax;
     private Material material;
 
+    // Cached bounds, cleared by setTransform (transient: AABB is not serializable)
+    private transient AABB box;
+
     public Box(Vec3 pMin, Vec3 pMax, Material material) {
         // Ensure pMin is actually smaller than pMax in all axes
         this.pMin = new Vec3(Math.min(pMin.x, pMax.x), Math.min(pMin.y, pMax.y), Math.min(pMin.z, pMax.z));
@@ -28,51 +32,32 @@ public class Box extends Hittable {
         Vec3 halfSize = size.mul(0.5);
         this.pMin = center.sub(halfSize);
         this.pMax = center.add(halfSize);
+        this.box = null;
     }
 
     @Override
     public boolean hit(Ray r, double tMin, double tMax, HitRecord rec) {
-        double t0 = tMin;
-        double t1 = tMax;
-
-        // Slab Method: Iterate over X(0), Y(1), Z(2) axes
-        for (int i = 0; i < 3; i++) {
-            double invD = 1.0 / r.direction().get(i);
-            double tNear = (pMin.get(i) - r.origin().get(i)) * invD;
-            double tFar = (pMax.get(i) - r.origin().get(i)) * invD;
-
-            if (invD < 0.0) {
-                double temp = tNear; tNear = tFar; tFar = temp;
-            }
+        double t0 = intersectSlabs(r, tMin, tMax);
+        if (Double.isNaN(t0)) return false;
 
-            t0 = Math.max(tNear, t0);
-            t1 = Math.min(tFar, t1);
-
-            if (t1 <= t0) return false;
-        }
-
-        rec.t = t0;
-        rec.p = r.at(t0);
+        rec.setPoint(r, t0);
 
         // --- Determine Normal & UVs ---
         // Since it's an AABB, the hit point must be on one of the planes defined by pMin or pMax.
         // We check which coordinate matches closely.
-
-        Vec3 p = rec.p;
         double epsilon = 1e-5;
 
         // Default normal
-        rec.normal = new Vec3(0, 0, 1);
+        double outX = 0, outY = 0, outZ = 1;
 
         // Check proximity to faces to determine the hit face
-        if (Math.abs(p.x - pMin.x) < epsilon)      rec.normal = new Vec3(-1, 0, 0);
-        else if (Math.abs(p.x - pMax.x) < epsilon) rec.normal = new Vec3(1, 0, 0);
-        else if (Math.abs(p.y - pMin.y) < epsilon) rec.normal = new Vec3(0, -1, 0);
-        else if (Math.abs(p.y - pMax.y) < epsilon) rec.normal = new Vec3(0, 1, 0);
-        else if (Math.abs(p.z - pMin.z) < epsilon) rec.normal = new Vec3(0, 0, -1);
-        else if (Math.abs(p.z - pMax.z) < epsilon) rec.normal = new Vec3(0, 0, 1);
+        if (Math.abs(rec.px - pMin.x) < epsilon)      { outX = -1; outZ = 0; }
+        else if (Math.abs(rec.px - pMax.x) < epsilon) { outX = 1;  outZ = 0; }
+        else if (Math.abs(rec.py - pMin.y) < epsilon) { outY = -1; outZ = 0; }
+        else if (Math.abs(rec.py - pMax.y) < epsilon) { outY = 1;  outZ = 0; }
+        else if (Math.abs(rec.pz - pMin.z) < epsilon) { outZ = -1; }
 
-        rec.setFaceNormal(r, rec.normal);
+        rec.setFaceNormal(r, outX, outY, outZ);
 
         // Calculate UV coordinates based on the hit face
         computeBoxUV(rec);
@@ -81,12 +66,134 @@ public class Box extends Hittable {
         return true;
     }
 
+    @Override
+    public boolean occluded(Ray r, double tMin, double tMax) {
+        // The slab test alone answers the visibility question: no normal or UV needed
+        return !Double.isNaN(intersectSlabs(r, tMin, tMax));
+    }
+
+    /**
+     * Slab test against the box volume.
+     * @return The entry distance t0 within [tMin, tMax], or NaN if the ray misses.
+     */
+    private double intersectSlabs(Ray r, double tMin, double tMax) {
+        double t0 = tMin;
+        double t1 = tMax;
+
+        // Slab Method: X, Y, Z axes using the ray's cached inverse direction
+        double invD = r.invDx;
+        double tNear = (pMin.x - r.ox) * invD;
+        double tFar = (pMax.x - r.ox) * invD;
+        if (invD < 0.0) { double temp = tNear; tNear = tFar; tFar = temp; }
+        t0 = Math.max(tNear, t0);
+        t1 = Math.min(tFar, t1);
+        if (t1 <= t0) return Double.NaN;
+
+        invD = r.invDy;
+        tNear = (pMin.y - r.oy) * invD;
+        tFar = (pMax.y - r.oy) * invD;
+        if (invD < 0.0) { double temp = tNear; tNear = tFar; tFar = temp; }
+        t0 = Math.max(tNear, t0);
+        t1 = Math.min(tFar, t1);
+        if (t1 <= t0) return Double.NaN;
+
+        invD = r.invDz;
+        tNear = (pMin.z - r.oz) * invD;
+        tFar = (pMax.z - r.oz) * invD;
+        if (invD < 0.0) { double temp = tNear; tNear = tFar; tFar = temp; }
+        t0 = Math.max(tNear, t0);
+        t1 = Math.min(tFar, t1);
+        if (t1 <= t0) return Double.NaN;
+
+        return t0;
+    }
+
+    @Override
+    public double surfaceArea() {
+        double sx = pMax.x - pMin.x, sy = pMax.y - pMin.y, sz = pMax.z - pMin.z;
+        return 2 * (sx * sy + sy * sz + sz * sx);
+    }
+
+    /**
+     * Samples a point on the faces that face the shaded point (at most three), weighted by their area.
+     * The other faces are hidden behind the box itself, so no shadow ray is wasted on them.
+     */
+    @Override
+    public boolean sampleLight(double px, double py, double pz, double u1, double u2, LightSample out) {
+        double sx = pMax.x - pMin.x, sy = pMax.y - pMin.y, sz = pMax.z - pMin.z;
+
+        // Area of the visible face of each axis (0 if the point lies within that slab)
+        double areaX = (px < pMin.x || px > pMax.x) ? sy * sz : 0;
+        double areaY = (py < pMin.y || py > pMax.y) ? sx * sz : 0;
+        double areaZ = (pz < pMin.z || pz > pMax.z) ? sx * sy : 0;
+        double visibleArea = areaX + areaY + areaZ;
+        if (visibleArea <= 0) return false;
+
+        // u1 picks the face and is then rescaled to a uniform value within it
+        double pick = u1 * visibleArea;
+        double qx, qy, qz;
+        int axis; // Normal axis of the picked face
+        if (pick < areaX) {
+            double u = pick / areaX;
+            qx = px < pMin.x ? pMin.x : pMax.x;
+            qy = pMin.y + u * sy;
+            qz = pMin.z + u2 * sz;
+            axis = 0;
+        } else if (pick < areaX + areaY) {
+            double u = (pick - areaX) / areaY;
+            qx = pMin.x + u * sx;
+            qy = py < pMin.y ? pMin.y : pMax.y;
+            qz = pMin.z + u2 * sz;
+            axis = 1;
+        } else {
+            double u = Math.min((pick - areaX - areaY) / areaZ, 1.0);
+            qx = pMin.x + u * sx;
+            qy = pMin.y + u2 * sy;
+            qz = pz < pMin.z ? pMin.z : pMax.z;
+            axis = 2;
+        }
+
+        double dx = qx - px, dy = qy - py, dz = qz - pz;
+        double distSq = dx * dx + dy * dy + dz * dz;
+        double dist = Math.sqrt(distSq);
+        out.dx = dx / dist;
+        out.dy = dy / dist;
+        out.dz = dz / dist;
+        out.distance = dist;
+
+        // Area density 1 / visibleArea, converted to solid angle: distance^2 / (cos at the light * area)
+        double cosLight = Math.abs(axis == 0 ? out.dx : (axis == 1 ? out.dy : out.dz));
+        if (cosLight <= 0) return false;
+        out.pdf = distSq / (cosLight * visibleArea);
+        return true;
+    }
+
+    @Override
+    public double lightPdf(double px, double py, double pz, HitRecord lightHit) {
+        // Several boxes may share one light material: only the box that was hit generates the direction
+        double eps = 1e-6 * (pMax.x - pMin.x + pMax.y - pMin.y + pMax.z - pMin.z) + 1e-9;
+        if (lightHit.px < pMin.x - eps || lightHit.px > pMax.x + eps
+                || lightHit.py < pMin.y - eps || lightHit.py > pMax.y + eps
+                || lightHit.pz < pMin.z - eps || lightHit.pz > pMax.z + eps) return 0;
+
+        double sx = pMax.x - pMin.x, sy = pMax.y - pMin.y, sz = pMax.z - pMin.z;
+        double visibleArea = ((px < pMin.x || px > pMax.x) ? sy * sz : 0)
+                + ((py < pMin.y || py > pMax.y) ? sx * sz : 0)
+                + ((pz < pMin.z || pz > pMax.z) ? sx * sy : 0);
+        if (visibleArea <= 0) return 0;
+
+        // Same conversion from area to solid angle as in sampleLight
+        double dx = lightHit.px - px, dy = lightHit.py - py, dz = lightHit.pz - pz;
+        double distSq = dx * dx + dy * dy + dz * dz;
+        double cosLight = Math.abs(dx * lightHit.nx + dy * lightHit.ny + dz * lightHit.nz) / Math.sqrt(distSq);
+        if (cosLight <= 0) return 0;
+        return distSq / (cosLight * visibleArea);
+    }
+
     /**
      * Maps the hit point on the box surface to [0,1] UV coordinates.
      */
     private void computeBoxUV(HitRecord rec) {
-        Vec3 p = rec.p;
-        Vec3 n = rec.normal;
         double u = 0, v = 0;
 
         // Normalize coordinates relative to box dimensions
@@ -95,25 +202,25 @@ public class Box extends Hittable {
         double depth  = pMax.z - pMin.z;
 
         // If normal is parallel to X (Right/Left faces) -> Use Z and Y
-        if (Math.abs(n.x) > 0.5) {
-            u = (p.z - pMin.z) / depth;
-            v = (p.y - pMin.y) / height;
+        if (Math.abs(rec.nx) > 0.5) {
+            u = (rec.pz - pMin.z) / depth;
+            v = (rec.py - pMin.y) / height;
             // Correct orientation for left face
-            if (n.x < 0) u = 1.0 - u;
+            if (rec.nx < 0) u = 1.0 - u;
         }
         // If normal is parallel to Y (Top/Bottom faces) -> Use X and Z
-        else if (Math.abs(n.y) > 0.5) {
-            u = (p.x - pMin.x) / width;
-            v = (p.z - pMin.z) / depth;
+        else if (Math.abs(rec.ny) > 0.5) {
+            u = (rec.px - pMin.x) / width;
+            v = (rec.pz - pMin.z) / depth;
             // Correct orientation for top face
-            if (n.y > 0) v = 1.0 - v;
+            if (rec.ny > 0) v = 1.0 - v;
         }
         // If normal is parallel to Z (Front/Back faces) -> Use X and Y
         else {
-            u = (p.x - pMin.x) / width;
-            v = (p.y - pMin.y) / height;
+            u = (rec.px - pMin.x) / width;
+            v = (rec.py - pMin.y) / height;
             // Correct orientation for front face
-            if (n.z > 0) u = 1.0 - u;
+            if (rec.nz > 0) u = 1.0 - u;
         }
 
         rec.u = clamp(u);
@@ -126,7 +233,16 @@ public class Box extends Hittable {
         return x;
     }
 
-    @Override public AABB boundingBox() { return new AABB(pMin, pMax); }
+    @Override
+    public AABB boundingBox() {
+        AABB b = box;
+        if (b == null) {
+            b = new AABB(pMin, pMax);
+            box = b;
+        }
+        return b;
+    }
+
     @Override public Material getMaterial() { return material; }
     @Override public void setMaterial(Material m) { this.material = m; }
 }
\ No newline at end of file
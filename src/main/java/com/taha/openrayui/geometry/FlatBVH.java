@@ -0,0 +1,338 @@
+package com.taha.openrayui.geometry;
+
+import com.taha.openrayui.core.HitRecord;
+import com.taha.openrayui.math.Ray;
+import com.taha.openrayui.math.Vec3;
+
+/**
+ * Base class of the linear (flattened) Bounding Volume Hierarchies.
+ * <p>
+ * PERFORMANCE: The tree built by {@link BVHBuilder} is stored in depth-first order in primitive arrays
+ * instead of a graph of node objects: 6 doubles of bounds and 2 ints per node. The left child of a node
+ * always follows it directly, so only the right child index is stored. Traversal is a loop with an
+ * explicit int stack that visits the nearer child first (chosen by the sign of the ray direction on the
+ * split axis), so there are no virtual calls or pointer chasing between nodes. The stack lives in the ray
+ * ({@link Ray#reserveStack}), so a traversal allocates nothing, also when a leaf holds another tree.
+ * </p>
+ * <p>
+ * Subclasses own the actual primitives (scene objects, triangles, spheres) and only implement the
+ * intersection of a single primitive by its index.
+ * </p>
+ * <p>
+ * PERFORMANCE: When primitives move, the tree can be refit instead of rebuilt ({@link #refitPrimitive}):
+ * only the bounds on the path from the primitive's leaf to the root are recomputed, in O(depth).
+ * The topology stays the same, so the tree slowly loses quality as objects drift apart;
+ * {@link #getRefitDegradation()} tells the owner when a full rebuild pays off again.
+ * </p>
+ */
+public abstract class FlatBVH extends Hittable {
+
+    // 6 doubles per node: minX, minY, minZ, maxX, maxY, maxZ
+    protected double[] nodeBounds;
+
+    // 2 ints per node.
+    // Leaf:     [first primitive (index into primitiveIndices), primitive count (> 0)]
+    // Interior: [index of the right child, -(split axis + 1)]
+    protected int[] nodeData;
+
+    // Primitive indices in leaf order; leaves refer to contiguous ranges of it
+    protected int[] primitiveIndices;
+
+    // --- Refit Data ---
+    // Parent of every node (-1 for the root) and the leaf holding every primitive
+    protected int[] parentNode;
+    protected int[] primitiveLeaf;
+    // SAH cost of every subtree, so a refit can update the total cost along the changed path only
+    protected double[] nodeCost;
+
+    protected int nodeCount;
+    protected int maxDepth;
+    protected double sahCost;
+    // SAH cost right after the last build: the reference for the refit quality
+    protected double builtSahCost;
+    // Primitive cost of the SAH model the tree was built with
+    protected double intersectionCost;
+
+    /**
+     * Flattens a built tree into the node arrays.
+     */
+    protected void setTree(BVHBuilder.Result result) {
+        nodeCount = result.nodeCount;
+        nodeBounds = new double[nodeCount * 6];
+        nodeData = new int[nodeCount * 2];
+        parentNode = new int[nodeCount];
+        nodeCost = new double[nodeCount];
+        primitiveIndices = result.primitiveIndices;
+        primitiveLeaf = new int[primitiveIndices.length];
+        intersectionCost = result.intersectionCost;
+        maxDepth = 0;
+        parentNode[0] = -1;
+        flatten(result.root, 0, 1);
+        sahCost = nodeCost[0];
+        builtSahCost = sahCost;
+    }
+
+    /**
+     * Writes the subtree rooted at node in depth-first order starting at the given slot.
+     *
+     * @return The next free slot
+     */
+    private int flatten(BVHBuilder.Node node, int slot, int depth) {
+        maxDepth = Math.max(maxDepth, depth);
+        int b = slot * 6;
+        nodeBounds[b]     = node.minX;
+        nodeBounds[b + 1] = node.minY;
+        nodeBounds[b + 2] = node.minZ;
+        nodeBounds[b + 3] = node.maxX;
+        nodeBounds[b + 4] = node.maxY;
+        nodeBounds[b + 5] = node.maxZ;
+
+        if (node.isLeaf()) {
+            nodeData[slot * 2] = node.start;
+            nodeData[slot * 2 + 1] = node.count;
+            for (int i = node.start; i < node.start + node.count; i++) {
+                primitiveLeaf[primitiveIndices[i]] = slot;
+            }
+            nodeCost[slot] = intersectionCost * node.count;
+            return slot + 1;
+        }
+
+        parentNode[slot + 1] = slot;
+        int rightSlot = flatten(node.left, slot + 1, depth + 1);
+        parentNode[rightSlot] = slot;
+        nodeData[slot * 2] = rightSlot;
+        nodeData[slot * 2 + 1] = -(node.axis + 1);
+        int next = flatten(node.right, rightSlot, depth + 1);
+        updateInteriorCost(slot);
+        return next;
+    }
+
+    /**
+     * Writes the current bounds of a primitive (minX, minY, minZ, maxX, maxY, maxZ) to out[offset..offset+5].
+     * Only needed for refitting.
+     */
+    protected abstract void primitiveBounds(int primitive, double[] out, int offset);
+
+    /**
+     * Updates the tree after the bounds of a primitive changed: refits its leaf and every ancestor.
+     * The split structure is kept, so the result is always correct but may be slower to traverse
+     * than a fresh build (see {@link #getRefitDegradation()}).
+     * Must not run while the tree is being traversed.
+     */
+    public void refitPrimitive(int primitive) {
+        int leaf = primitiveLeaf[primitive];
+
+        // 1. The leaf encloses all of its primitives
+        int b = leaf * 6;
+        nodeBounds[b] = nodeBounds[b + 1] = nodeBounds[b + 2] = Double.POSITIVE_INFINITY;
+        nodeBounds[b + 3] = nodeBounds[b + 4] = nodeBounds[b + 5] = Double.NEGATIVE_INFINITY;
+        double[] primitive6 = new double[6];
+        int first = nodeData[leaf * 2];
+        for (int i = first; i < first + nodeData[leaf * 2 + 1]; i++) {
+            primitiveBounds(primitiveIndices[i], primitive6, 0);
+            growNode(b, primitive6, 0);
+        }
+
+        // 2. Every ancestor encloses its two children
+        for (int node = parentNode[leaf]; node >= 0; node = parentNode[node]) {
+            b = node * 6;
+            int left = node + 1;
+            int right = nodeData[node * 2];
+            System.arraycopy(nodeBounds, left * 6, nodeBounds, b, 6);
+            growNode(b, nodeBounds, right * 6);
+            updateInteriorCost(node);
+        }
+        sahCost = nodeCost[0];
+    }
+
+    private void growNode(int b, double[] bounds, int o) {
+        if (bounds[o] < nodeBounds[b])         nodeBounds[b]     = bounds[o];
+        if (bounds[o + 1] < nodeBounds[b + 1]) nodeBounds[b + 1] = bounds[o + 1];
+        if (bounds[o + 2] < nodeBounds[b + 2]) nodeBounds[b + 2] = bounds[o + 2];
+        if (bounds[o + 3] > nodeBounds[b + 3]) nodeBounds[b + 3] = bounds[o + 3];
+        if (bounds[o + 4] > nodeBounds[b + 4]) nodeBounds[b + 4] = bounds[o + 4];
+        if (bounds[o + 5] > nodeBounds[b + 5]) nodeBounds[b + 5] = bounds[o + 5];
+    }
+
+    private void updateInteriorCost(int node) {
+        int right = nodeData[node * 2];
+        nodeCost[node] = BVHBuilder.interiorCost(nodeHalfArea(node),
+                nodeHalfArea(node + 1), nodeCost[node + 1], nodeHalfArea(right), nodeCost[right]);
+    }
+
+    private double nodeHalfArea(int node) {
+        int b = node * 6;
+        return BVHBuilder.halfArea(nodeBounds[b + 3] - nodeBounds[b], nodeBounds[b + 4] - nodeBounds[b + 1],
+                nodeBounds[b + 5] - nodeBounds[b + 2]);
+    }
+
+    /**
+     * Intersects a single primitive (closest-hit semantics, like {@link Hittable#hit}).
+     */
+    protected abstract boolean hitPrimitive(int primitive, Ray r, double tMin, double tMax, HitRecord rec);
+
+    /**
+     * Any-hit test of a single primitive (like {@link Hittable#occluded}).
+     */
+    protected abstract boolean occludedPrimitive(int primitive, Ray r, double tMin, double tMax);
+
+    /**
+     * Closest hit among the primitives of a leaf: primitiveIndices[first .. first + count).
+     * Subclasses can override this to intersect a whole leaf in one batch.
+     */
+    protected boolean hitLeaf(int first, int count, Ray r, double tMin, double tMax, HitRecord rec) {
+        boolean hitAnything = false;
+        for (int i = first; i < first + count; i++) {
+            if (hitPrimitive(primitiveIndices[i], r, tMin, tMax, rec)) {
+                hitAnything = true;
+                tMax = rec.t;
+            }
+        }
+        return hitAnything;
+    }
+
+    /**
+     * Renumbers the primitives in leaf order: the primitive at primitiveIndices[i] becomes primitive i.
+     * A subclass that reorders its own data arrays the same way calls this afterwards; every leaf then
+     * covers a contiguous range of the data, which batched leaf tests can stream through.
+     */
+    protected void useLeafOrder() {
+        int[] leafOf = new int[primitiveLeaf.length];
+        for (int i = 0; i < primitiveIndices.length; i++) {
+            leafOf[i] = primitiveLeaf[primitiveIndices[i]];
+            primitiveIndices[i] = i;
+        }
+        primitiveLeaf = leafOf;
+    }
+
+    @Override
+    public boolean hit(Ray r, double tMin, double tMax, HitRecord rec) {
+        // The stack never holds more entries than the tree is deep
+        int base = r.getStackTop();
+        int[] stack = r.reserveStack(maxDepth + 1);
+        int stackSize = base;
+        int node = 0;
+        boolean hitAnything = false;
+
+        boolean negX = r.invDx < 0, negY = r.invDy < 0, negZ = r.invDz < 0;
+
+        while (true) {
+            if (hitNode(node, r, tMin, tMax)) {
+                int data = nodeData[node * 2 + 1];
+                if (data > 0) {
+                    // Leaf: test its primitives and shrink the interval on a hit
+                    if (hitLeaf(nodeData[node * 2], data, r, tMin, tMax, rec)) {
+                        hitAnything = true;
+                        tMax = rec.t;
+                    }
+                    if (stackSize == base) break;
+                    node = stack[--stackSize];
+                } else {
+                    // Interior: descend into the nearer child, remember the farther one
+                    int right = nodeData[node * 2];
+                    int axis = -data - 1;
+                    boolean negative = axis == 0 ? negX : (axis == 1 ? negY : negZ);
+                    if (negative) {
+                        stack[stackSize++] = node + 1;
+                        node = right;
+                    } else {
+                        stack[stackSize++] = right;
+                        node = node + 1;
+                    }
+                }
+            } else {
+                if (stackSize == base) break;
+                node = stack[--stackSize];
+            }
+        }
+        r.releaseStack(base);
+        return hitAnything;
+    }
+
+    @Override
+    public boolean occluded(Ray r, double tMin, double tMax) {
+        int base = r.getStackTop();
+        int[] stack = r.reserveStack(maxDepth + 1);
+        int stackSize = base;
+        int node = 0;
+
+        while (true) {
+            if (hitNode(node, r, tMin, tMax)) {
+                int data = nodeData[node * 2 + 1];
+                if (data > 0) {
+                    // Any hit ends the query
+                    int first = nodeData[node * 2];
+                    for (int i = first; i < first + data; i++) {
+                        if (occludedPrimitive(primitiveIndices[i], r, tMin, tMax)) {
+                            r.releaseStack(base);
+                            return true;
+                        }
+                    }
+                    if (stackSize == base) break;
+                    node = stack[--stackSize];
+                } else {
+                    // Order does not matter for an any-hit query
+                    stack[stackSize++] = nodeData[node * 2];
+                    node = node + 1;
+                }
+            } else {
+                if (stackSize == base) break;
+                node = stack[--stackSize];
+            }
+        }
+        r.releaseStack(base);
+        return false;
+    }
+
+    /**
+     * Slab test against the bounds of a node.
+     */
+    private boolean hitNode(int node, Ray r, double tMin, double tMax) {
+        int b = node * 6;
+
+        double t0 = (nodeBounds[b] - r.ox) * r.invDx;
+        double t1 = (nodeBounds[b + 3] - r.ox) * r.invDx;
+        if (r.invDx < 0) { double temp = t0; t0 = t1; t1 = temp; }
+        tMin = t0 > tMin ? t0 : tMin;
+        tMax = t1 < tMax ? t1 : tMax;
+        if (tMax <= tMin) return false;
+
+        t0 = (nodeBounds[b + 1] - r.oy) * r.invDy;
+        t1 = (nodeBounds[b + 4] - r.oy) * r.invDy;
+        if (r.invDy < 0) { double temp = t0; t0 = t1; t1 = temp; }
+        tMin = t0 > tMin ? t0 : tMin;
+        tMax = t1 < tMax ? t1 : tMax;
+        if (tMax <= tMin) return false;
+
+        t0 = (nodeBounds[b + 2] - r.oz) * r.invDz;
+        t1 = (nodeBounds[b + 5] - r.oz) * r.invDz;
+        if (r.invDz < 0) { double temp = t0; t0 = t1; t1 = temp; }
+        tMin = t0 > tMin ? t0 : tMin;
+        tMax = t1 < tMax ? t1 : tMax;
+        return tMax > tMin;
+    }
+
+    /**
+     * @return Expected cost of a ray through the tree in SAH units.
+     */
+    public double getSahCost() {
+        return sahCost;
+    }
+
+    /**
+     * @return Current SAH cost relative to the cost right after the last build (1 = as good as new).
+     */
+    public double getRefitDegradation() {
+        return builtSahCost > 0 ? sahCost / builtSahCost : 1.0;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public AABB boundingBox() {
+        return new AABB(new Vec3(nodeBounds[0], nodeBounds[1], nodeBounds[2]),
+                new Vec3(nodeBounds[3], nodeBounds[4], nodeBounds[5]));
+    }
+}
@@ -1,6 +1,7 @@
 package com.taha.openrayui.geometry;
 
 import com.taha.openrayui.core.HitRecord;
+import com.taha.openrayui.core.LightSample;
 import com.taha.openrayui.material.Material;
 import com.taha.openrayui.math.Ray;
 
@@ -31,6 +32,16 @@ public abstract class Hittable implements Serializable {
      */
     public abstract boolean hit(Ray r, double tMin, double tMax, HitRecord rec);
 
+    /**
+     * Occlusion-only (any-hit) query: is there any intersection in [tMin, tMax]?
+     * Unlike hit(), it may stop at the first intersection found and computes no normal, UV or material,
+     * which makes it the cheap choice for shadow rays, visibility tests and picking.
+     * The default implementation falls back to hit(); primitives override it with a faster test.
+     */
+    public boolean occluded(Ray r, double tMin, double tMax) {
+        return hit(r, tMin, tMax, new HitRecord());
+    }
+
     /**
      * Gets the material assigned to this object.
      */
@@ -47,4 +58,39 @@ public abstract class Hittable implements Serializable {
      * @return An AABB enclosing the object.
      */
     public abstract AABB boundingBox();
+
+    // --- Light Sampling (objects with an emissive material) ---
+
+    /**
+     * Surface area, used to pick lights in proportion to their power.
+     * @return The area, or 0 if the shape cannot be sampled as a light (default)
+     */
+    public double surfaceArea() {
+        return 0;
+    }
+
+    /**
+     * Samples a direction from a shaded point toward this shape, for direct lighting.
+     * Shapes with a positive {@link #surfaceArea()} must override it.
+     *
+     * @param px, py, pz The shaded point
+     * @param u1, u2     Uniform values in [0, 1)
+     * @param out        Receives the direction, the distance to the light point and the solid-angle pdf
+     * @return False if no direction was generated (e.g. the point is inside the shape)
+     */
+    public boolean sampleLight(double px, double py, double pz, double u1, double u2, LightSample out) {
+        return false;
+    }
+
+    /**
+     * The solid-angle pdf with which {@link #sampleLight} generates the direction from a shaded point to a
+     * point on this shape. Used to weight light hits found by BSDF sampling (multiple importance sampling).
+     *
+     * @param px, py, pz The shaded point
+     * @param lightHit   The hit on the light surface found along the direction
+     * @return The pdf, or 0 if the hit does not lie on this shape or sampleLight cannot generate it
+     */
+    public double lightPdf(double px, double py, double pz, HitRecord lightHit) {
+        return 0;
+    }
 }
\ No newline at end of file
@@ -44,32 +44,31 @@ public class HittableList extends Hittable {
 
     @Override
     public boolean hit(Ray r, double tMin, double tMax, HitRecord rec) {
-        HitRecord tempRec = new HitRecord();
         boolean hitAnything = false;
         double closestSoFar = tMax;
 
-        // Iterate through all objects to find the closest hit
-        for (Hittable object : objects) {
-            if (object.hit(r, tMin, closestSoFar, tempRec)) {
+        // Iterate through all objects to find the closest hit.
+        // Children only write into rec when they report a hit closer than closestSoFar,
+        // so the caller's record can be passed straight through without a temporary copy.
+        for (int i = 0, n = objects.size(); i < n; i++) {
+            if (objects.get(i).hit(r, tMin, closestSoFar, rec)) {
                 hitAnything = true;
-                closestSoFar = tempRec.t;
-
-                // Update the main hit record with the closer hit details
-                rec.t = tempRec.t;
-                rec.p = tempRec.p;
-                rec.normal = tempRec.normal;
-                rec.mat = tempRec.mat;
-                rec.frontFace = tempRec.frontFace;
-
-                // FIX: Propagate UV coordinates from the geometry to the main record
-                rec.u = tempRec.u;
-                rec.v = tempRec.v;
+                closestSoFar = rec.t;
             }
         }
 
         return hitAnything;
     }
 
+    @Override
+    public boolean occluded(Ray r, double tMin, double tMax) {
+        // Any hit is enough, so stop at the first occluder instead of searching for the closest one
+        for (int i = 0, n = objects.size(); i < n; i++) {
+            if (objects.get(i).occluded(r, tMin, tMax)) return true;
+        }
+        return false;
+    }
+
     @Override
     public Material getMaterial() {
         return null;
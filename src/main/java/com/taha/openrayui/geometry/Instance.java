@@ -0,0 +1,199 @@
+package com.taha.openrayui.geometry;
+
+import com.taha.openrayui.core.HitRecord;
+import com.taha.openrayui.core.LightSample;
+import com.taha.openrayui.material.Material;
+import com.taha.openrayui.math.Ray;
+import com.taha.openrayui.math.Transform;
+import com.taha.openrayui.math.Vec3;
+
+/**
+ * A placed copy of a shared object (the bottom level of a two-level acceleration structure).
+ * <p>
+ * The child is usually a {@link LinearBVH} over a sub-assembly. Any number of instances can point to the
+ * same child, each with its own {@link Transform}, so a scene with heavy repetition stores the unique
+ * geometry (and its BVH) only once. The scene-level BVH only sees the world-space box of every instance:
+ * moving an instance refits the top level and never touches the shared child.
+ * </p>
+ * <p>
+ * PERFORMANCE: Rays are transformed into object space at the instance boundary, in place: the caller's ray
+ * is saved in locals, rewritten with the cached inverse transform and restored before returning,
+ * so crossing an instance allocates nothing. An affine map keeps the ray parameter t unchanged,
+ * so the interval [tMin, tMax] and the hit distance need no conversion.
+ * </p>
+ */
+public class Instance extends Hittable {
+
+    private final Hittable child;
+    private Transform transform;
+
+    // Cached world-space bounds, cleared by setTransform (transient: AABB is not serializable)
+    private transient AABB box;
+
+    /**
+     * @param child     The shared object. It must not change while instances use it.
+     * @param transform Object -> world transform of this copy
+     */
+    public Instance(Hittable child, Transform transform) {
+        if (child.boundingBox() == null) {
+            throw new IllegalArgumentException("No bounding box for " + child.getName() + " in Instance.");
+        }
+        this.child = child;
+        this.transform = transform;
+    }
+
+    public Hittable getChild() { return child; }
+    public Transform getTransform() { return transform; }
+    public void setTransform(Transform transform) { this.transform = transform; this.box = null; }
+
+    /**
+     * @return The center of the world-space bounds (used by the gizmo).
+     */
+    public Vec3 getCenter() {
+        AABB b = boundingBox();
+        return b.min.add(b.max).mul(0.5);
+    }
+
+    @Override
+    public boolean hit(Ray r, double tMin, double tMax, HitRecord rec) {
+        Transform m = transform;
+        double ox = r.ox, oy = r.oy, oz = r.oz;
+        double dx = r.dx, dy = r.dy, dz = r.dz;
+        double invDx = r.invDx, invDy = r.invDy, invDz = r.invDz;
+
+        toObjectSpace(r, m);
+        boolean hit = child.hit(r, tMin, tMax, rec);
+        restore(r, ox, oy, oz, dx, dy, dz, invDx, invDy, invDz);
+        if (!hit) return false;
+
+        // The point is cheaper and more precise to recompute from the world-space ray
+        rec.setPoint(r, rec.t);
+
+        // Normals transform with the inverse transpose. The orientation against the ray is preserved.
+        double nx = m.i00 * rec.nx + m.i10 * rec.ny + m.i20 * rec.nz;
+        double ny = m.i01 * rec.nx + m.i11 * rec.ny + m.i21 * rec.nz;
+        double nz = m.i02 * rec.nx + m.i12 * rec.ny + m.i22 * rec.nz;
+        double invLength = 1.0 / Math.sqrt(nx * nx + ny * ny + nz * nz);
+        rec.nx = nx * invLength;
+        rec.ny = ny * invLength;
+        rec.nz = nz * invLength;
+        return true;
+    }
+
+    @Override
+    public boolean occluded(Ray r, double tMin, double tMax) {
+        double ox = r.ox, oy = r.oy, oz = r.oz;
+        double dx = r.dx, dy = r.dy, dz = r.dz;
+        double invDx = r.invDx, invDy = r.invDy, invDz = r.invDz;
+
+        toObjectSpace(r, transform);
+        boolean occluded = child.occluded(r, tMin, tMax);
+        restore(r, ox, oy, oz, dx, dy, dz, invDx, invDy, invDz);
+        return occluded;
+    }
+
+    private static void toObjectSpace(Ray r, Transform m) {
+        r.set(
+                m.i00 * r.ox + m.i01 * r.oy + m.i02 * r.oz + m.i03,
+                m.i10 * r.ox + m.i11 * r.oy + m.i12 * r.oz + m.i13,
+                m.i20 * r.ox + m.i21 * r.oy + m.i22 * r.oz + m.i23,
+                m.i00 * r.dx + m.i01 * r.dy + m.i02 * r.dz,
+                m.i10 * r.dx + m.i11 * r.dy + m.i12 * r.dz,
+                m.i20 * r.dx + m.i21 * r.dy + m.i22 * r.dz);
+    }
+
+    private static void restore(Ray r, double ox, double oy, double oz, double dx, double dy, double dz,
+                                double invDx, double invDy, double invDz) {
+        r.ox = ox; r.oy = oy; r.oz = oz;
+        r.dx = dx; r.dy = dy; r.dz = dz;
+        r.invDx = invDx; r.invDy = invDy; r.invDz = invDz;
+    }
+
+    /**
+     * World-space bounds: the box around the 8 transformed corners of the child's box.
+     */
+    @Override
+    public AABB boundingBox() {
+        AABB b = box;
+        if (b == null) {
+            AABB local = child.boundingBox();
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+            for (int corner = 0; corner < 8; corner++) {
+                Vec3 p = transform.transformPoint(new Vec3(
+                        (corner & 1) == 0 ? local.min.x : local.max.x,
+                        (corner & 2) == 0 ? local.min.y : local.max.y,
+                        (corner & 4) == 0 ? local.min.z : local.max.z));
+                minX = Math.min(minX, p.x); maxX = Math.max(maxX, p.x);
+                minY = Math.min(minY, p.y); maxY = Math.max(maxY, p.y);
+                minZ = Math.min(minZ, p.z); maxZ = Math.max(maxZ, p.z);
+            }
+            b = new AABB(new Vec3(minX, minY, minZ), new Vec3(maxX, maxY, maxZ));
+            box = b;
+        }
+        return b;
+    }
+
+    // --- Light Sampling ---
+    // Forwarded for transforms that preserve angles (see Transform.uniformScale): the child's solid-angle pdfs
+    // then hold in world space unchanged, and only distances and areas scale. Other transforms are not lights.
+
+    @Override
+    public double surfaceArea() {
+        double s = transform.uniformScale();
+        return s * s * child.surfaceArea();
+    }
+
+    @Override
+    public boolean sampleLight(double px, double py, double pz, double u1, double u2, LightSample out) {
+        Transform m = transform;
+        double s = m.uniformScale();
+        if (s == 0) return false;
+
+        double qx = m.i00 * px + m.i01 * py + m.i02 * pz + m.i03;
+        double qy = m.i10 * px + m.i11 * py + m.i12 * pz + m.i13;
+        double qz = m.i20 * px + m.i21 * py + m.i22 * pz + m.i23;
+        if (!child.sampleLight(qx, qy, qz, u1, u2, out)) return false;
+
+        // The linear part stretches the unit direction to length s
+        double dx = m.m00 * out.dx + m.m01 * out.dy + m.m02 * out.dz;
+        double dy = m.m10 * out.dx + m.m11 * out.dy + m.m12 * out.dz;
+        double dz = m.m20 * out.dx + m.m21 * out.dy + m.m22 * out.dz;
+        out.dx = dx / s;
+        out.dy = dy / s;
+        out.dz = dz / s;
+        out.distance *= s;
+        return true;
+    }
+
+    @Override
+    public double lightPdf(double px, double py, double pz, HitRecord lightHit) {
+        Transform m = transform;
+        double s = m.uniformScale();
+        if (s == 0) return 0;
+
+        // The child tests the hit in object space: rewrite it in place and restore it, like the ray in hit()
+        double hx = lightHit.px, hy = lightHit.py, hz = lightHit.pz;
+        double nx = lightHit.nx, ny = lightHit.ny, nz = lightHit.nz;
+        lightHit.px = m.i00 * hx + m.i01 * hy + m.i02 * hz + m.i03;
+        lightHit.py = m.i10 * hx + m.i11 * hy + m.i12 * hz + m.i13;
+        lightHit.pz = m.i20 * hx + m.i21 * hy + m.i22 * hz + m.i23;
+        lightHit.nx = (m.m00 * nx + m.m10 * ny + m.m20 * nz) / s;
+        lightHit.ny = (m.m01 * nx + m.m11 * ny + m.m21 * nz) / s;
+        lightHit.nz = (m.m02 * nx + m.m12 * ny + m.m22 * nz) / s;
+
+        double pdf = child.lightPdf(
+                m.i00 * px + m.i01 * py + m.i02 * pz + m.i03,
+                m.i10 * px + m.i11 * py + m.i12 * pz + m.i13,
+                m.i20 * px + m.i21 * py + m.i22 * pz + m.i23,
+                lightHit);
+
+        lightHit.px = hx; lightHit.py = hy; lightHit.pz = hz;
+        lightHit.nx = nx; lightHit.ny = ny; lightHit.nz = nz;
+        return pdf;
+    }
+
+    // The material belongs to the shared child: changing it affects every instance of that child
+    @Override public Material getMaterial() { return child.getMaterial(); }
+    @Override public void setMaterial(Material m) { child.setMaterial(m); }
+}
@@ -0,0 +1,139 @@
+package com.taha.openrayui.geometry;
+
+import com.taha.openrayui.core.HitRecord;
+import com.taha.openrayui.material.Material;
+import com.taha.openrayui.math.Ray;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The scene-level acceleration structure: a flattened SAH BVH over the scene's objects.
+ * Replaces the pointer-based {@link BVHNode} tree for rendering.
+ * <p>
+ * Objects without a bounding box (infinite {@link Plane}s) are kept out of the tree and tested
+ * separately, before the traversal: a floor hit then shortens the ray, so the traversal culls every
+ * node behind the floor.
+ * </p>
+ */
+public class LinearBVH extends FlatBVH {
+
+    final Hittable[] objects;           // Package-private: read by the PacketTracer
+    final Hittable[] unbounded;         // No bounding box: tested on every ray
+
+    // Object -> primitive index, created on the first refit
+    private transient Map<Hittable, Integer> objectIndex;
+
+    public LinearBVH(HittableList list) {
+        this(list, BVHBuilder.DEFAULT_MAX_LEAF_SIZE);
+    }
+
+    /**
+     * @param maxLeafSize Maximum number of objects per leaf
+     */
+    public LinearBVH(HittableList list, int maxLeafSize) {
+        List<Hittable> bounded = new ArrayList<>(list.objects.size());
+        List<Hittable> infinite = new ArrayList<>();
+        for (Hittable object : list.objects) {
+            if (object.boundingBox() != null) bounded.add(object);
+            else infinite.add(object);
+        }
+        this.objects = bounded.toArray(new Hittable[0]);
+        this.unbounded = infinite.toArray(new Hittable[0]);
+        if (objects.length == 0) return; // Only unbounded objects: there is no tree
+
+        double[] bounds = new double[objects.length * 6];
+        for (int i = 0; i < objects.length; i++) {
+            AABB b = objects[i].boundingBox();
+            bounds[i * 6]     = b.min.x;
+            bounds[i * 6 + 1] = b.min.y;
+            bounds[i * 6 + 2] = b.min.z;
+            bounds[i * 6 + 3] = b.max.x;
+            bounds[i * 6 + 4] = b.max.y;
+            bounds[i * 6 + 5] = b.max.z;
+        }
+        setTree(new BVHBuilder(maxLeafSize).build(bounds, objects.length));
+    }
+
+    /**
+     * Refits the tree after an object was moved or resized.
+     *
+     * @return False if the object is not part of this tree (the caller has to rebuild)
+     */
+    public boolean refit(Hittable object) {
+        for (Hittable u : unbounded) {
+            if (u == object) return object.boundingBox() == null; // Nothing to refit
+        }
+        if (objectIndex == null) {
+            objectIndex = new IdentityHashMap<>(objects.length * 2);
+            for (int i = 0; i < objects.length; i++) objectIndex.put(objects[i], i);
+        }
+        Integer index = objectIndex.get(object);
+        if (index == null || object.boundingBox() == null) return false;
+        refitPrimitive(index);
+        return true;
+    }
+
+    public int getUnboundedCount() {
+        return unbounded.length;
+    }
+
+    @Override
+    public boolean hit(Ray r, double tMin, double tMax, HitRecord rec) {
+        boolean hitAnything = false;
+        for (Hittable object : unbounded) {
+            if (object.hit(r, tMin, tMax, rec)) {
+                hitAnything = true;
+                tMax = rec.t;
+            }
+        }
+        if (objects.length > 0 && super.hit(r, tMin, tMax, rec)) hitAnything = true;
+        return hitAnything;
+    }
+
+    @Override
+    public boolean occluded(Ray r, double tMin, double tMax) {
+        for (Hittable object : unbounded) {
+            if (object.occluded(r, tMin, tMax)) return true;
+        }
+        return objects.length > 0 && super.occluded(r, tMin, tMax);
+    }
+
+    /**
+     * @return The bounds of the tree, or null if the scene contains unbounded objects
+     */
+    @Override
+    public AABB boundingBox() {
+        return unbounded.length == 0 && objects.length > 0 ? super.boundingBox() : null;
+    }
+
+    @Override
+    protected void primitiveBounds(int primitive, double[] out, int offset) {
+        AABB b = objects[primitive].boundingBox();
+        out[offset]     = b.min.x;
+        out[offset + 1] = b.min.y;
+        out[offset + 2] = b.min.z;
+        out[offset + 3] = b.max.x;
+        out[offset + 4] = b.max.y;
+        out[offset + 5] = b.max.z;
+    }
+
+    @Override
+    protected boolean hitPrimitive(int primitive, Ray r, double tMin, double tMax, HitRecord rec) {
+        return objects[primitive].hit(r, tMin, tMax, rec);
+    }
+
+    @Override
+    protected boolean occludedPrimitive(int primitive, Ray r, double tMin, double tMax) {
+        return objects[primitive].occluded(r, tMin, tMax);
+    }
+
+    // The hierarchy has no single material
+    @Override
+    public Material getMaterial() { return null; }
+
+    @Override
+    public void setMaterial(Material m) { }
+}
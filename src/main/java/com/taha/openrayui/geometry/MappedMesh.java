@@ -0,0 +1,360 @@
+package com.taha.openrayui.geometry;
+
+import com.taha.openrayui.core.HitRecord;
+import com.taha.openrayui.material.Material;
+import com.taha.openrayui.math.Ray;
+import com.taha.openrayui.math.Vec3;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A triangle mesh read directly from a memory-mapped mesh cache file.
+ * <p>
+ * The cache holds the mesh arrays of a {@link TriangleMesh} together with its prebuilt, flattened BVH
+ * (same layout as {@link FlatBVH}). {@link #write} stores a mesh once; {@link #open} maps the file.
+ * </p>
+ * <p>
+ * PERFORMANCE: Opening a cache does no parsing and no BVH build: every section of the file is mapped with
+ * a FileChannel and traversal reads the nodes and vertices straight from the mapped buffers (zero-copy).
+ * Opening takes milliseconds regardless of the mesh size, pages are loaded lazily by the OS as rays touch
+ * them, and the data lives outside the Java heap, so meshes larger than the heap can still be rendered.
+ * Each section is mapped on its own and must stay below 2 GB.
+ * </p>
+ */
+public class MappedMesh extends Hittable implements TriangleData {
+
+    // --- File Format (little endian) ---
+    // Header (64 bytes): magic, version, flags, triangle/vertex/normal/uv/node counts, max depth, SAH cost.
+    // Then the sections, each starting at a multiple of 8 bytes:
+    // node bounds (6 doubles per node), node data (2 ints per node), primitive indices (1 int per triangle),
+    // positions (3 floats per vertex), vertex indices (3 ints per triangle),
+    // [normals (3 floats), normal indices (3 ints per triangle)], [uvs (2 floats), uv indices (3 ints per triangle)]
+    private static final int MAGIC = 0x434D524F; // "ORMC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int FLAG_NORMALS = 1;
+    private static final int FLAG_UVS = 2;
+
+    private final File file;
+    private Material material;
+
+    // Counts from the header
+    private transient int triangleCount;
+    private transient int nodeCount;
+    private transient int maxDepth;
+    private transient double sahCost;
+
+    // Mapped sections (transient: re-mapped from the file after deserialization)
+    private transient DoubleBuffer nodeBounds;
+    private transient IntBuffer nodeData;
+    private transient IntBuffer primitiveIndices;
+    private transient FloatBuffer positions;
+    private transient IntBuffer vertexIndices;
+    private transient FloatBuffer normals;    // null: flat shading
+    private transient IntBuffer normalIndices;
+    private transient FloatBuffer uvs;        // null: barycentric UVs
+    private transient IntBuffer uvIndices;
+
+    private MappedMesh(File file, Material material) throws IOException {
+        this.file = file;
+        this.material = material;
+        map();
+    }
+
+    /**
+     * Maps a mesh cache file.
+     * @throws IOException If the file cannot be read or is not a valid mesh cache.
+     */
+    public static MappedMesh open(File file, Material material) throws IOException {
+        return new MappedMesh(file, material);
+    }
+
+    /**
+     * Writes a mesh and its BVH to a cache file.
+     * <p>
+     * The file is written under a temporary name in the same folder and then renamed over the old cache. A mesh
+     * still mapping the old cache keeps reading the old file: truncating a mapped file in place would make its
+     * reads fail (SIGBUS) or return garbage, and Windows refuses to truncate it at all.
+     * </p>
+     * @throws IOException If writing fails.
+     */
+    public static void write(TriangleMesh mesh, File file) throws IOException {
+        Path target = file.toPath().toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), file.getName(), ".tmp");
+        try {
+            writeFile(mesh, temp);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeFile(TriangleMesh mesh, Path path) throws IOException {
+        int flags = (mesh.normals != null ? FLAG_NORMALS : 0) | (mesh.uvs != null ? FLAG_UVS : 0);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer out = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+
+            out.putInt(MAGIC).putInt(VERSION).putInt(flags)
+                    .putInt(mesh.getTriangleCount())
+                    .putInt(mesh.positions.length / 3)
+                    .putInt(mesh.normals != null ? mesh.normals.length / 3 : 0)
+                    .putInt(mesh.uvs != null ? mesh.uvs.length / 2 : 0)
+                    .putInt(mesh.nodeCount)
+                    .putInt(mesh.maxDepth)
+                    .putInt(0)
+                    .putDouble(mesh.sahCost);
+            while (out.position() < HEADER_SIZE) out.put((byte) 0);
+
+            for (double value : mesh.nodeBounds) { flushIfFull(out, channel, 8); out.putDouble(value); }
+            writeInts(out, channel, mesh.nodeData);
+            writeInts(out, channel, mesh.primitiveIndices);
+            writeFloats(out, channel, mesh.positions);
+            writeInts(out, channel, mesh.vertexIndices);
+            if (mesh.normals != null) {
+                writeFloats(out, channel, mesh.normals);
+                writeInts(out, channel, mesh.normalIndices);
+            }
+            if (mesh.uvs != null) {
+                writeFloats(out, channel, mesh.uvs);
+                writeInts(out, channel, mesh.uvIndices);
+            }
+            out.flip();
+            while (out.hasRemaining()) channel.write(out);
+        }
+    }
+
+    private static void writeInts(ByteBuffer out, FileChannel channel, int[] values) throws IOException {
+        for (int value : values) { flushIfFull(out, channel, 4); out.putInt(value); }
+        align(out, channel);
+    }
+
+    private static void writeFloats(ByteBuffer out, FileChannel channel, float[] values) throws IOException {
+        for (float value : values) { flushIfFull(out, channel, 4); out.putFloat(value); }
+        align(out, channel);
+    }
+
+    private static void align(ByteBuffer out, FileChannel channel) throws IOException {
+        // The buffer is flushed in multiples of 8 bytes, so its position tells the file alignment
+        if ((out.position() & 7) != 0) { flushIfFull(out, channel, 4); out.putInt(0); }
+    }
+
+    private static void flushIfFull(ByteBuffer out, FileChannel channel, int needed) throws IOException {
+        if (out.remaining() < needed) {
+            out.flip();
+            while (out.hasRemaining()) channel.write(out);
+            out.clear();
+        }
+    }
+
+    /**
+     * Reads the header and maps every section of the file.
+     */
+    private void map() throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(HEADER_SIZE, channel.size()))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.limit() < HEADER_SIZE || header.getInt(0) != MAGIC) {
+                throw new IOException(file.getName() + " is not a mesh cache file");
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException(file.getName() + " has unsupported mesh cache version " + header.getInt(4));
+            }
+            int flags = header.getInt(8);
+            triangleCount = header.getInt(12);
+            int vertexCount = header.getInt(16);
+            int normalCount = header.getInt(20);
+            int uvCount = header.getInt(24);
+            nodeCount = header.getInt(28);
+            maxDepth = header.getInt(32);
+            sahCost = header.getDouble(40);
+            // Checked here: a negative size would make FileChannel.map throw IllegalArgumentException
+            if (triangleCount < 1 || nodeCount < 1 || vertexCount < 0 || normalCount < 0 || uvCount < 0
+                    || maxDepth < 0) {
+                throw new IOException(file.getName() + " has invalid counts in its header");
+            }
+
+            long[] offset = {HEADER_SIZE};
+            nodeBounds = map(channel, offset, (long) nodeCount * 6 * 8).asDoubleBuffer();
+            nodeData = map(channel, offset, (long) nodeCount * 2 * 4).asIntBuffer();
+            primitiveIndices = map(channel, offset, (long) triangleCount * 4).asIntBuffer();
+            positions = map(channel, offset, (long) vertexCount * 3 * 4).asFloatBuffer();
+            vertexIndices = map(channel, offset, (long) triangleCount * 3 * 4).asIntBuffer();
+            if ((flags & FLAG_NORMALS) != 0) {
+                normals = map(channel, offset, (long) normalCount * 3 * 4).asFloatBuffer();
+                normalIndices = map(channel, offset, (long) triangleCount * 3 * 4).asIntBuffer();
+            }
+            if ((flags & FLAG_UVS) != 0) {
+                uvs = map(channel, offset, (long) uvCount * 2 * 4).asFloatBuffer();
+                uvIndices = map(channel, offset, (long) triangleCount * 3 * 4).asIntBuffer();
+            }
+            if (offset[0] != channel.size()) {
+                throw new IOException(file.getName() + " is truncated or corrupt (size " + channel.size()
+                        + ", expected " + offset[0] + ")");
+            }
+        }
+    }
+
+    /**
+     * Maps the next section and advances the offset to the following 8 byte boundary.
+     */
+    private static ByteBuffer map(FileChannel channel, long[] offset, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) throw new IOException("Mesh cache section larger than 2 GB");
+        if (offset[0] + size > channel.size()) throw new IOException("Mesh cache is truncated");
+        ByteBuffer section = channel.map(FileChannel.MapMode.READ_ONLY, offset[0], size).order(ByteOrder.LITTLE_ENDIAN);
+        offset[0] = (offset[0] + size + 7) & ~7L;
+        return section;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        map();
+    }
+
+    public File getFile() { return file; }
+    public int getTriangleCount() { return triangleCount; }
+    public int getNodeCount() { return nodeCount; }
+    public double getSahCost() { return sahCost; }
+
+    // --- Traversal (same node layout and loop as FlatBVH, reading from the mapped buffers) ---
+    // The loop is not shared with FlatBVH through node accessors: the scene BVH's node reads would become
+    // virtual calls with four receiver types. The stack (in the ray) and the triangle kernel are shared.
+
+    @Override
+    public boolean hit(Ray r, double tMin, double tMax, HitRecord rec) {
+        int base = r.getStackTop();
+        int[] stack = r.reserveStack(maxDepth + 1);
+        int stackSize = base;
+        int node = 0;
+        boolean hitAnything = false;
+
+        boolean negX = r.invDx < 0, negY = r.invDy < 0, negZ = r.invDz < 0;
+
+        while (true) {
+            if (hitNode(node, r, tMin, tMax)) {
+                int data = nodeData.get(node * 2 + 1);
+                if (data > 0) {
+                    int first = nodeData.get(node * 2);
+                    for (int i = first; i < first + data; i++) {
+                        if (TriangleMesh.hitTriangle(this, primitiveIndices.get(i), r, tMin, tMax, rec)) {
+                            hitAnything = true;
+                            tMax = rec.t;
+                        }
+                    }
+                    if (stackSize == base) break;
+                    node = stack[--stackSize];
+                } else {
+                    int right = nodeData.get(node * 2);
+                    int axis = -data - 1;
+                    boolean negative = axis == 0 ? negX : (axis == 1 ? negY : negZ);
+                    if (negative) {
+                        stack[stackSize++] = node + 1;
+                        node = right;
+                    } else {
+                        stack[stackSize++] = right;
+                        node = node + 1;
+                    }
+                }
+            } else {
+                if (stackSize == base) break;
+                node = stack[--stackSize];
+            }
+        }
+        r.releaseStack(base);
+        return hitAnything;
+    }
+
+    @Override
+    public boolean occluded(Ray r, double tMin, double tMax) {
+        int base = r.getStackTop();
+        int[] stack = r.reserveStack(maxDepth + 1);
+        int stackSize = base;
+        int node = 0;
+
+        while (true) {
+            if (hitNode(node, r, tMin, tMax)) {
+                int data = nodeData.get(node * 2 + 1);
+                if (data > 0) {
+                    int first = nodeData.get(node * 2);
+                    for (int i = first; i < first + data; i++) {
+                        if (TriangleMesh.occludesTriangle(this, primitiveIndices.get(i), r, tMin, tMax)) {
+                            r.releaseStack(base);
+                            return true;
+                        }
+                    }
+                    if (stackSize == base) break;
+                    node = stack[--stackSize];
+                } else {
+                    stack[stackSize++] = nodeData.get(node * 2);
+                    node = node + 1;
+                }
+            } else {
+                if (stackSize == base) break;
+                node = stack[--stackSize];
+            }
+        }
+        r.releaseStack(base);
+        return false;
+    }
+
+    // --- TriangleData (reads from the mapped buffers) ---
+    @Override public int vertexIndex(int i) { return vertexIndices.get(i); }
+    @Override public float position(int i) { return positions.get(i); }
+    @Override public boolean hasNormals() { return normals != null; }
+    @Override public int normalIndex(int i) { return normalIndices.get(i); }
+    @Override public float normal(int i) { return normals.get(i); }
+    @Override public boolean hasUvs() { return uvs != null; }
+    @Override public int uvIndex(int i) { return uvIndices.get(i); }
+    @Override public float uv(int i) { return uvs.get(i); }
+
+    private boolean hitNode(int node, Ray r, double tMin, double tMax) {
+        int b = node * 6;
+
+        double t0 = (nodeBounds.get(b) - r.ox) * r.invDx;
+        double t1 = (nodeBounds.get(b + 3) - r.ox) * r.invDx;
+        if (r.invDx < 0) { double temp = t0; t0 = t1; t1 = temp; }
+        tMin = t0 > tMin ? t0 : tMin;
+        tMax = t1 < tMax ? t1 : tMax;
+        if (tMax <= tMin) return false;
+
+        t0 = (nodeBounds.get(b + 1) - r.oy) * r.invDy;
+        t1 = (nodeBounds.get(b + 4) - r.oy) * r.invDy;
+        if (r.invDy < 0) { double temp = t0; t0 = t1; t1 = temp; }
+        tMin = t0 > tMin ? t0 : tMin;
+        tMax = t1 < tMax ? t1 : tMax;
+        if (tMax <= tMin) return false;
+
+        t0 = (nodeBounds.get(b + 2) - r.oz) * r.invDz;
+        t1 = (nodeBounds.get(b + 5) - r.oz) * r.invDz;
+        if (r.invDz < 0) { double temp = t0; t0 = t1; t1 = temp; }
+        tMin = t0 > tMin ? t0 : tMin;
+        tMax = t1 < tMax ? t1 : tMax;
+        return tMax > tMin;
+    }
+
+    @Override
+    public AABB boundingBox() {
+        return new AABB(new Vec3(nodeBounds.get(0), nodeBounds.get(1), nodeBounds.get(2)),
+                new Vec3(nodeBounds.get(3), nodeBounds.get(4), nodeBounds.get(5)));
+    }
+
+    @Override public Material getMaterial() { return material; }
+    @Override public void setMaterial(Material m) { this.material = m; }
+}
@@ -0,0 +1,196 @@
+package com.taha.openrayui.geometry;
+
+import com.taha.openrayui.math.Ray;
+import com.taha.openrayui.math.Vec3;
+
+/**
+ * Closest-hit traversal of a {@link LinearBVH} for a whole {@link RayPacket} at once (primary visibility).
+ * <p>
+ * PERFORMANCE: Coherent rays (neighbouring camera rays) visit nearly the same nodes, so the packet walks
+ * the tree once, descending into every node that at least one of its rays hits. Each node is fetched once
+ * per packet and all lanes are tested together, which maps directly onto SIMD registers, without any
+ * per-lane masks: finished or unused lanes simply cannot hit anything. Before the lane test, an interval-arithmetic
+ * bound of the whole packet (origin and 1/direction ranges) rejects nodes outside the packet frustum
+ * with a single test. {@link Sphere} primitives are intersected for all lanes at once as well;
+ * other primitives are tested per lane with their scalar hit().
+ * </p>
+ * <p>
+ * Vectorized primitives only record the closest t during traversal; their hit record (normal, UV,
+ * material) is written once at the end by re-running the scalar test on the winning primitive.
+ * </p>
+ * <p>
+ * {@link #create()} picks the SIMD implementation ({@code jdk.incubator.vector}, enabled with
+ * {@code --add-modules jdk.incubator.vector}) when it is available and falls back to plain loops otherwise.
+ * Both produce the same hits as tracing the rays one at a time.
+ * </p>
+ */
+public abstract class PacketTracer {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_TRACER = "com.taha.openrayui.geometry.VectorPacketTracer";
+
+    /**
+     * @return The SIMD tracer if the Vector API module is present at runtime, otherwise the scalar tracer
+     */
+    public static PacketTracer create() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                // Loaded reflectively: without the module the vector classes must never be linked
+                return (PacketTracer) Class.forName(VECTOR_TRACER).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                System.out.println("Vector API unavailable (" + e + "), using scalar ray packets");
+            }
+        }
+        return new ScalarPacketTracer();
+    }
+
+    /**
+     * @return A short description for logs (e.g. "SIMD, 8 doubles per vector")
+     */
+    public abstract String getName();
+
+    /**
+     * Finds the closest hit in [tMin, infinity) for every active lane of the packet.
+     * Afterwards {@link RayPacket#hitLanes} marks the lanes that hit, with their hit records filled in.
+     */
+    public void intersect(LinearBVH bvh, RayPacket p, double tMin) {
+        p.prepare();
+        int lanes = p.activeLanes;
+        if (lanes == 0) return;
+
+        // Unbounded objects (planes) first: they shorten the rays before the traversal
+        for (Hittable object : bvh.unbounded) {
+            hitScalar(object, p, tMin);
+        }
+        if (bvh.objects.length > 0) traverse(bvh, p, tMin);
+
+        // Write the hit records deferred by the vectorized primitive tests
+        for (int rest = lanes; rest != 0; rest &= rest - 1) {
+            int lane = Integer.numberOfTrailingZeros(rest);
+            int primitive = (int) p.closest[lane];
+            if (primitive >= 0) {
+                // Same arithmetic as the packet test, so the scalar test finds the same root
+                bvh.objects[primitive].hit(p.rays[lane], tMin, Math.nextUp(p.tMax[lane]), p.records[lane]);
+            }
+            if (p.tMax[lane] < Double.POSITIVE_INFINITY) p.hitLanes |= 1 << lane;
+        }
+    }
+
+    /**
+     * Walks the tree once for the whole packet, descending into every node that at least one ray hits.
+     */
+    private void traverse(LinearBVH bvh, RayPacket p, double tMin) {
+        double[] bounds = bvh.nodeBounds;
+        int[] nodeData = bvh.nodeData;
+        p.ensureStack(bvh.maxDepth);
+        int[] stack = p.nodeStack;
+        int stackSize = 0;
+        int node = 0;
+
+        // The rays are coherent, so the first ray's direction decides the child order for all of them
+        int lead = Integer.numberOfTrailingZeros(p.activeLanes);
+        boolean negX = p.dx[lead] < 0, negY = p.dy[lead] < 0, negZ = p.dz[lead] < 0;
+
+        while (true) {
+            if ((!p.frustumValid || !frustumMisses(bounds, node * 6, p, tMin)) && hitNode(bounds, node * 6, p, tMin)) {
+                int data = nodeData[node * 2 + 1];
+                if (data > 0) {
+                    int first = nodeData[node * 2];
+                    for (int i = first; i < first + data; i++) {
+                        int primitive = bvh.primitiveIndices[i];
+                        Hittable object = bvh.objects[primitive];
+                        if (object instanceof Sphere) {
+                            Sphere s = (Sphere) object;
+                            Vec3 center = s.getCenter();
+                            hitSphere(center.x, center.y, center.z, s.getRadius(), primitive, p, tMin);
+                        } else {
+                            hitScalar(object, p, tMin);
+                        }
+                    }
+                } else {
+                    int right = nodeData[node * 2];
+                    int axis = -data - 1;
+                    boolean negative = axis == 0 ? negX : (axis == 1 ? negY : negZ);
+                    if (negative) {
+                        stack[stackSize++] = node + 1;
+                        node = right;
+                    } else {
+                        stack[stackSize++] = right;
+                        node = node + 1;
+                    }
+                    continue;
+                }
+            }
+            if (stackSize == 0) return;
+            node = stack[--stackSize];
+        }
+    }
+
+    /**
+     * Conservative frustum test: true only if no ray of the packet can hit the box.
+     * Every slab distance (b - o) * (1/d) is bounded by interval arithmetic over the packet's ranges;
+     * if the largest possible entry is still behind the smallest possible exit, all rays miss.
+     * Since 1/d has one sign per axis, each bound takes a single multiplication.
+     */
+    private static boolean frustumMisses(double[] bounds, int b, RayPacket p, double tMin) {
+        double nearLo = tMin;
+        double farHi = Double.POSITIVE_INFINITY;
+        for (int axis = 0; axis < 3; axis++) {
+            double iLo = p.invLo[axis], iHi = p.invHi[axis];
+            double oLo = p.originLo[axis], oHi = p.originHi[axis];
+            if (iLo > 0) {
+                // Entry through the min plane, exit through the max plane
+                nearLo = Math.max(nearLo, lowerBound(bounds[b + axis] - oHi, bounds[b + axis] - oLo, iLo, iHi));
+                farHi = Math.min(farHi, upperBound(bounds[b + 3 + axis] - oHi, bounds[b + 3 + axis] - oLo, iLo, iHi));
+            } else {
+                nearLo = Math.max(nearLo, lowerBound(bounds[b + 3 + axis] - oHi, bounds[b + 3 + axis] - oLo, iLo, iHi));
+                farHi = Math.min(farHi, upperBound(bounds[b + axis] - oHi, bounds[b + axis] - oLo, iLo, iHi));
+            }
+            if (nearLo > farHi) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Lower bound of x * y for x in [xLo, xHi] and y in [yLo, yHi], where y does not contain 0.
+     */
+    private static double lowerBound(double xLo, double xHi, double yLo, double yHi) {
+        return yLo > 0 ? xLo * (xLo >= 0 ? yLo : yHi) : xHi * (xHi >= 0 ? yLo : yHi);
+    }
+
+    /**
+     * Upper bound of x * y for x in [xLo, xHi] and y in [yLo, yHi], where y does not contain 0.
+     */
+    private static double upperBound(double xLo, double xHi, double yLo, double yHi) {
+        return yLo > 0 ? xHi * (xHi >= 0 ? yHi : yLo) : xLo * (xLo >= 0 ? yHi : yLo);
+    }
+
+    /**
+     * Tests one non-vectorized object lane by lane with its own scalar hit(), which writes the record directly.
+     */
+    private static void hitScalar(Hittable object, RayPacket p, double tMin) {
+        for (int lanes = p.activeLanes; lanes != 0; lanes &= lanes - 1) {
+            int lane = Integer.numberOfTrailingZeros(lanes);
+            Ray r = p.rays[lane];
+            if (object.hit(r, tMin, p.tMax[lane], p.records[lane])) {
+                p.tMax[lane] = p.records[lane].t;
+                p.closest[lane] = -1;
+            }
+        }
+    }
+
+    /**
+     * Slab test of one node for all lanes, each against its own [tMin, tMax].
+     * Inactive lanes have tMax = -infinity and never hit.
+     * @param b Offset of the node in the bounds array (min x, y, z, max x, y, z)
+     * @return True if at least one lane hits the node
+     */
+    protected abstract boolean hitNode(double[] bounds, int b, RayPacket p, double tMin);
+
+    /**
+     * Sphere test for all lanes. A lane with a closer hit gets its tMax lowered
+     * and {@code primitive} recorded in {@link RayPacket#closest}.
+     */
+    protected abstract void hitSphere(double cx, double cy, double cz, double radius, int primitive,
+                                      RayPacket p, double tMin);
+}
@@ -0,0 +1,108 @@
+package com.taha.openrayui.geometry;
+
+import com.taha.openrayui.core.HitRecord;
+import com.taha.openrayui.material.Material;
+import com.taha.openrayui.math.Ray;
+import com.taha.openrayui.math.Vec3;
+
+/**
+ * An infinite plane through a point, facing along its normal (floors, walls, water surfaces).
+ * UVs are planar: the plane is tiled with squares of {@link #getTileSize()} world units, so image
+ * textures repeat across it. The spatial {@link com.taha.openrayui.texture.CheckerTexture} works unchanged.
+ * <p>
+ * PERFORMANCE: A plane has no bounding box ({@link #boundingBox()} returns null). {@link LinearBVH} keeps
+ * such unbounded objects out of the tree and tests them separately with a single dot product each, so they
+ * no longer inflate the root bounds and spoil every SAH split the way a huge "floor sphere" does.
+ * </p>
+ */
+public class Plane extends Hittable {
+    private Vec3 point;
+    private Vec3 normal;
+    private double tileSize;
+    private Material material;
+
+    // Tangent axes spanning the plane, derived from the normal
+    private double ux, uy, uz;
+    private double vx, vy, vz;
+
+    public Plane(Vec3 point, Vec3 normal, Material material) {
+        this(point, normal, 1.0, material);
+    }
+
+    /**
+     * @param tileSize World size of one [0,1] UV tile
+     */
+    public Plane(Vec3 point, Vec3 normal, double tileSize, Material material) {
+        this.point = point;
+        this.material = material;
+        setNormal(normal);
+        setTileSize(tileSize);
+    }
+
+    // --- Getters & Setters for UI ---
+    public Vec3 getPoint() { return point; }
+    public void setPoint(Vec3 point) { this.point = point; }
+    public Vec3 getNormal() { return normal; }
+    public double getTileSize() { return tileSize; }
+    public void setTileSize(double tileSize) { this.tileSize = tileSize > 0 ? tileSize : 1.0; }
+
+    public void setNormal(Vec3 normal) {
+        Vec3 n = normal.unitVector();
+        if (Double.isNaN(n.x) || Double.isNaN(n.y) || Double.isNaN(n.z)) n = new Vec3(0, 1, 0);
+        this.normal = n;
+
+        // u: any direction perpendicular to the normal (world X for a floor), v = n x u
+        Vec3 helper = Math.abs(n.x) > 0.9 ? new Vec3(0, 0, 1) : new Vec3(1, 0, 0);
+        Vec3 u = helper.sub(n.mul(helper.dot(n))).unitVector();
+        Vec3 v = n.cross(u);
+        ux = u.x; uy = u.y; uz = u.z;
+        vx = v.x; vy = v.y; vz = v.z;
+    }
+
+    @Override
+    public boolean hit(Ray r, double tMin, double tMax, HitRecord rec) {
+        double t = intersect(r);
+        if (!(t >= tMin && t <= tMax)) return false;
+
+        rec.setPoint(r, t);
+        rec.setFaceNormal(r, normal.x, normal.y, normal.z);
+
+        // Planar UV mapping, wrapped into [0, 1)
+        double relX = rec.px - point.x;
+        double relY = rec.py - point.y;
+        double relZ = rec.pz - point.z;
+        double u = (relX * ux + relY * uy + relZ * uz) / tileSize;
+        double v = (relX * vx + relY * vy + relZ * vz) / tileSize;
+        rec.u = u - Math.floor(u);
+        rec.v = v - Math.floor(v);
+
+        rec.mat = material;
+        return true;
+    }
+
+    @Override
+    public boolean occluded(Ray r, double tMin, double tMax) {
+        double t = intersect(r);
+        return t >= tMin && t <= tMax;
+    }
+
+    /**
+     * @return The ray parameter of the intersection, or NaN for rays parallel to the plane
+     */
+    private double intersect(Ray r) {
+        double denom = normal.x * r.dx + normal.y * r.dy + normal.z * r.dz;
+        if (denom == 0) return Double.NaN;
+        return (normal.x * (point.x - r.ox) + normal.y * (point.y - r.oy) + normal.z * (point.z - r.oz)) / denom;
+    }
+
+    /**
+     * An infinite plane has no bounds; acceleration structures test it separately.
+     */
+    @Override
+    public AABB boundingBox() {
+        return null;
+    }
+
+    @Override public Material getMaterial() { return material; }
+    @Override public void setMaterial(Material m) { this.material = m; }
+}
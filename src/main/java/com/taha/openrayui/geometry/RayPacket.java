@@ -0,0 +1,116 @@
+package com.taha.openrayui.geometry;
+
+import com.taha.openrayui.core.HitRecord;
+import com.taha.openrayui.math.Ray;
+
+/**
+ * A small group of rays (4, 8 or 16) traced together by a {@link PacketTracer}.
+ * The caller writes the rays into {@link #rays} and marks the used lanes in {@link #activeLanes};
+ * after the trace, {@link #hitLanes} tells which lanes hit something and {@link #records} hold their hits.
+ * <p>
+ * PERFORMANCE: The ray data is copied into one array per component (structure of arrays), so a
+ * tracer can load the same component of several rays into one SIMD register. The arrays are padded
+ * to a multiple of 8 lanes, the widest double vector (AVX-512); padding lanes are never active.
+ * Lane sets ({@link #activeLanes}, {@link #hitLanes}) are int bit masks (bit i = lane i).
+ * </p>
+ */
+public class RayPacket {
+
+    public static final int MAX_SIZE = 16;
+    private static final int PADDING = 8;
+
+    public final int size;
+    public final Ray[] rays;
+    public final HitRecord[] records;
+
+    // Input: lanes holding a ray. Output: lanes whose ray hit something.
+    public int activeLanes;
+    public int hitLanes;
+
+    // Structure-of-arrays copy of the rays (filled by prepare)
+    final double[] ox, oy, oz;
+    final double[] dx, dy, dz;
+    final double[] invDx, invDy, invDz;
+
+    // Closest hit so far per lane (-infinity for inactive lanes, so they never hit anything), and the
+    // primitive whose hit record still has to be written (-1: written). The primitive is stored as a
+    // double so that SIMD code can blend it in the same lanes as tMax.
+    final double[] tMax;
+    final double[] closest;
+
+    // Bounds of the packet for interval-arithmetic frustum culling (valid if all rays share direction signs)
+    boolean frustumValid;
+    final double[] originLo = new double[3], originHi = new double[3];
+    final double[] invLo = new double[3], invHi = new double[3];
+
+    // Traversal stack, grown to the tree depth on demand
+    int[] nodeStack = new int[64];
+
+    /**
+     * @param size Number of lanes (1 to 16)
+     */
+    public RayPacket(int size) {
+        if (size < 1 || size > MAX_SIZE) throw new IllegalArgumentException("Packet size must be 1-" + MAX_SIZE);
+        this.size = size;
+        this.rays = new Ray[size];
+        this.records = new HitRecord[size];
+        for (int i = 0; i < size; i++) {
+            rays[i] = new Ray();
+            records[i] = new HitRecord();
+        }
+
+        int padded = (size + PADDING - 1) / PADDING * PADDING;
+        ox = new double[padded]; oy = new double[padded]; oz = new double[padded];
+        dx = new double[padded]; dy = new double[padded]; dz = new double[padded];
+        invDx = new double[padded]; invDy = new double[padded]; invDz = new double[padded];
+        tMax = new double[padded];
+        closest = new double[padded];
+    }
+
+    public boolean isHit(int lane) {
+        return (hitLanes >>> lane & 1) != 0;
+    }
+
+    /**
+     * Copies the active rays into the component arrays, resets the per-lane results
+     * and computes the packet frustum.
+     */
+    void prepare() {
+        activeLanes &= (1 << size) - 1;
+        hitLanes = 0;
+        for (int i = 0; i < size; i++) {
+            Ray r = rays[i];
+            ox[i] = r.ox; oy[i] = r.oy; oz[i] = r.oz;
+            dx[i] = r.dx; dy[i] = r.dy; dz[i] = r.dz;
+            invDx[i] = r.invDx; invDy[i] = r.invDy; invDz[i] = r.invDz;
+            tMax[i] = (activeLanes >>> i & 1) != 0 ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+            closest[i] = -1;
+        }
+        for (int i = size; i < tMax.length; i++) tMax[i] = Double.NEGATIVE_INFINITY;
+        frustumValid = activeLanes != 0
+                && computeInterval(0, ox, invDx) && computeInterval(1, oy, invDy) && computeInterval(2, oz, invDz);
+    }
+
+    /**
+     * Bounds origin and inverse direction of the active rays along one axis.
+     * @return False if the directions do not share one sign (the interval of 1/d would be unbounded)
+     */
+    private boolean computeInterval(int axis, double[] origin, double[] inv) {
+        double oLo = Double.POSITIVE_INFINITY, oHi = Double.NEGATIVE_INFINITY;
+        double iLo = Double.POSITIVE_INFINITY, iHi = Double.NEGATIVE_INFINITY;
+        for (int lanes = activeLanes; lanes != 0; lanes &= lanes - 1) {
+            int i = Integer.numberOfTrailingZeros(lanes);
+            oLo = Math.min(oLo, origin[i]);
+            oHi = Math.max(oHi, origin[i]);
+            iLo = Math.min(iLo, inv[i]);
+            iHi = Math.max(iHi, inv[i]);
+        }
+        originLo[axis] = oLo; originHi[axis] = oHi;
+        invLo[axis] = iLo; invHi[axis] = iHi;
+        return Double.isFinite(iLo) && Double.isFinite(iHi) && (iLo > 0 || iHi < 0);
+    }
+
+    void ensureStack(int depth) {
+        if (nodeStack.length < depth + 1) nodeStack = new int[depth + 1];
+    }
+}
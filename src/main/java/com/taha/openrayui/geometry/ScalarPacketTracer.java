@@ -0,0 +1,71 @@
+package com.taha.openrayui.geometry;
+
+/**
+ * Packet tracer with plain per-lane loops, used when the Vector API is not available.
+ * It still gains from the shared traversal (one node fetch and one frustum test per packet),
+ * and the node test stops at the first lane that hits.
+ * The arithmetic mirrors the scalar {@link FlatBVH} and {@link Sphere} tests exactly.
+ */
+class ScalarPacketTracer extends PacketTracer {
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    protected boolean hitNode(double[] bounds, int b, RayPacket p, double tMin) {
+        for (int lanes = p.activeLanes; lanes != 0; lanes &= lanes - 1) {
+            int i = Integer.numberOfTrailingZeros(lanes);
+            double t0 = tMin, t1 = p.tMax[i];
+
+            double near = (bounds[b] - p.ox[i]) * p.invDx[i];
+            double far = (bounds[b + 3] - p.ox[i]) * p.invDx[i];
+            if (p.invDx[i] < 0) { double temp = near; near = far; far = temp; }
+            t0 = near > t0 ? near : t0;
+            t1 = far < t1 ? far : t1;
+            if (t1 <= t0) continue;
+
+            near = (bounds[b + 1] - p.oy[i]) * p.invDy[i];
+            far = (bounds[b + 4] - p.oy[i]) * p.invDy[i];
+            if (p.invDy[i] < 0) { double temp = near; near = far; far = temp; }
+            t0 = near > t0 ? near : t0;
+            t1 = far < t1 ? far : t1;
+            if (t1 <= t0) continue;
+
+            near = (bounds[b + 2] - p.oz[i]) * p.invDz[i];
+            far = (bounds[b + 5] - p.oz[i]) * p.invDz[i];
+            if (p.invDz[i] < 0) { double temp = near; near = far; far = temp; }
+            t0 = near > t0 ? near : t0;
+            t1 = far < t1 ? far : t1;
+            if (t1 > t0) return true;
+        }
+        return false;
+    }
+
+    @Override
+    protected void hitSphere(double cx, double cy, double cz, double radius, int primitive,
+                             RayPacket p, double tMin) {
+        for (int lanes = p.activeLanes; lanes != 0; lanes &= lanes - 1) {
+            int i = Integer.numberOfTrailingZeros(lanes);
+            double ocX = p.ox[i] - cx;
+            double ocY = p.oy[i] - cy;
+            double ocZ = p.oz[i] - cz;
+
+            double a = p.dx[i] * p.dx[i] + p.dy[i] * p.dy[i] + p.dz[i] * p.dz[i];
+            double halfB = ocX * p.dx[i] + ocY * p.dy[i] + ocZ * p.dz[i];
+            double c = ocX * ocX + ocY * ocY + ocZ * ocZ - radius * radius;
+            double discriminant = halfB * halfB - a * c;
+            if (discriminant < 0) continue;
+            double sqrtd = Math.sqrt(discriminant);
+
+            double root = (-halfB - sqrtd) / a;
+            if (root < tMin || p.tMax[i] < root) {
+                root = (-halfB + sqrtd) / a;
+                if (root < tMin || p.tMax[i] < root) continue;
+            }
+            p.tMax[i] = root;
+            p.closest[i] = primitive;
+        }
+    }
+}
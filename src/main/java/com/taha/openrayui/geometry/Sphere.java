@@ -1,6 +1,7 @@
 package com.taha.openrayui.geometry;
 
 import com.taha.openrayui.core.HitRecord;
+import com.taha.openrayui.core.LightSample;
 import com.taha.openrayui.material.Material;
 import com.taha.openrayui.math.Ray;
 import com.taha.openrayui.math.Vec3;
@@ -14,6 +15,9 @@ public class Sphere extends Hittable {
     private double radius;
     private Material material;
 
+    // Cached bounds, cleared by setCenter/setRadius (transient: AABB is not serializable)
+    private transient AABB box;
+
     public Sphere(Vec3 center, double radius, Material material) {
         this.center = center;
         this.radius = radius;
@@ -22,16 +26,20 @@ public class Sphere extends Hittable {
 
     // --- Getters & Setters for UI ---
     public Vec3 getCenter() { return center; }
-    public void setCenter(Vec3 center) { this.center = center; }
+    public void setCenter(Vec3 center) { this.center = center; this.box = null; }
     public double getRadius() { return radius; }
-    public void setRadius(double radius) { this.radius = radius; }
+    public void setRadius(double radius) { this.radius = radius; this.box = null; }
 
     @Override
     public boolean hit(Ray r, double tMin, double tMax, HitRecord rec) {
-        Vec3 oc = r.origin().sub(center);
-        double a = r.direction().lengthSquared();
-        double half_b = oc.dot(r.direction());
-        double c = oc.lengthSquared() - radius * radius;
+        // Primitive math only: no Vec3 is allocated per intersection test.
+        double ocX = r.ox - center.x;
+        double ocY = r.oy - center.y;
+        double ocZ = r.oz - center.z;
+
+        double a = r.dx * r.dx + r.dy * r.dy + r.dz * r.dz;
+        double half_b = ocX * r.dx + ocY * r.dy + ocZ * r.dz;
+        double c = ocX * ocX + ocY * ocY + ocZ * ocZ - radius * radius;
         double discriminant = half_b * half_b - a * c;
 
         if (discriminant < 0) return false;
@@ -44,42 +52,138 @@ public class Sphere extends Hittable {
             if (root < tMin || tMax < root) return false;
         }
 
-        rec.t = root;
-        rec.p = r.at(rec.t);
+        rec.setPoint(r, root);
 
         // Calculate outward normal (normalized)
-        Vec3 outwardNormal = (rec.p.sub(center)).div(radius);
-        rec.setFaceNormal(r, outwardNormal);
+        double invRadius = 1.0 / radius;
+        double outX = (rec.px - center.x) * invRadius;
+        double outY = (rec.py - center.y) * invRadius;
+        double outZ = (rec.pz - center.z) * invRadius;
+        rec.setFaceNormal(r, outX, outY, outZ);
 
         // --- UV Mapping ---
-        getSphereUV(outwardNormal, rec);
+        getSphereUV(outX, outY, outZ, rec);
 
         rec.mat = material;
         return true;
     }
 
+    @Override
+    public boolean occluded(Ray r, double tMin, double tMax) {
+        double ocX = r.ox - center.x;
+        double ocY = r.oy - center.y;
+        double ocZ = r.oz - center.z;
+
+        double a = r.dx * r.dx + r.dy * r.dy + r.dz * r.dz;
+        double half_b = ocX * r.dx + ocY * r.dy + ocZ * r.dz;
+        double c = ocX * ocX + ocY * ocY + ocZ * ocZ - radius * radius;
+        double discriminant = half_b * half_b - a * c;
+
+        if (discriminant < 0) return false;
+        double sqrtd = Math.sqrt(discriminant);
+
+        // Either root inside the range is enough; no hit point, normal or UV is needed
+        double root = (-half_b - sqrtd) / a;
+        if (root >= tMin && root <= tMax) return true;
+        root = (-half_b + sqrtd) / a;
+        return root >= tMin && root <= tMax;
+    }
+
     /**
      * Calculates UV coordinates for a point on the unit sphere.
-     * @param p The point on the sphere (must be a unit vector relative to center).
+     * @param x, y, z The point on the sphere (must be a unit vector relative to center).
      * @param rec The HitRecord to store u and v.
      */
-    private static void getSphereUV(Vec3 p, HitRecord rec) {
+    static void getSphereUV(double x, double y, double z, HitRecord rec) {
         // phi: angle around the Y axis (-PI to +PI)
         // theta: angle from Y=-1 to Y=+1 (0 to PI)
-        double theta = Math.acos(-p.y);
-        double phi = Math.atan2(-p.z, p.x) + Math.PI;
+        double theta = Math.acos(-y);
+        double phi = Math.atan2(-z, x) + Math.PI;
 
         // Normalize to [0, 1] range
         rec.u = phi / (2 * Math.PI);
         rec.v = theta / Math.PI;
     }
 
+    @Override
+    public double surfaceArea() {
+        return 4 * Math.PI * radius * radius;
+    }
+
+    /**
+     * Samples the cone of directions under which the sphere is seen from the point.
+     * Unlike picking points on the whole surface, no sample lands on the far side, and the density is
+     * uniform over the cone: 1 / (2 PI (1 - cos(thetaMax))).
+     */
+    @Override
+    public boolean sampleLight(double px, double py, double pz, double u1, double u2, LightSample out) {
+        double wx = center.x - px, wy = center.y - py, wz = center.z - pz;
+        double distSq = wx * wx + wy * wy + wz * wz;
+        double radiusSq = radius * radius;
+        if (distSq <= radiusSq) return false;
+
+        double dist = Math.sqrt(distSq);
+        wx /= dist; wy /= dist; wz /= dist;
+
+        // 1 - cos(thetaMax), written without cancellation for small, distant lights
+        double sinMaxSq = radiusSq / distSq;
+        double oneMinusCosMax = sinMaxSq / (1.0 + Math.sqrt(1.0 - sinMaxSq));
+        double oneMinusCos = u1 * oneMinusCosMax;
+        double cosTheta = 1.0 - oneMinusCos;
+        double sinThetaSq = oneMinusCos * (2.0 - oneMinusCos);
+        double sinTheta = Math.sqrt(sinThetaSq);
+        double phi = 2.0 * Math.PI * u2;
+
+        // Orthonormal basis (a, b, w) around the direction to the center
+        double hx = Math.abs(wx) > 0.9 ? 0 : 1, hy = Math.abs(wx) > 0.9 ? 1 : 0;
+        double ax = hy * wz, ay = -hx * wz, az = hx * wy - hy * wx; // h x w
+        double aLen = Math.sqrt(ax * ax + ay * ay + az * az);
+        ax /= aLen; ay /= aLen; az /= aLen;
+        double bx = wy * az - wz * ay, by = wz * ax - wx * az, bz = wx * ay - wy * ax;
+
+        double sa = Math.cos(phi) * sinTheta, sb = Math.sin(phi) * sinTheta;
+        out.dx = ax * sa + bx * sb + wx * cosTheta;
+        out.dy = ay * sa + by * sb + wy * cosTheta;
+        out.dz = az * sa + bz * sb + wz * cosTheta;
+
+        // Nearest intersection with the sphere along the sampled direction
+        out.distance = dist * cosTheta - Math.sqrt(Math.max(0.0, radiusSq - distSq * sinThetaSq));
+        out.pdf = 1.0 / (2.0 * Math.PI * oneMinusCosMax);
+        return true;
+    }
+
+    @Override
+    public double lightPdf(double px, double py, double pz, HitRecord lightHit) {
+        // Several spheres may share one light material: only the sphere that was hit generates the direction
+        double hx = lightHit.px - center.x, hy = lightHit.py - center.y, hz = lightHit.pz - center.z;
+        double radiusSq = radius * radius;
+        if (Math.abs(hx * hx + hy * hy + hz * hz - radiusSq) > 1e-6 * radiusSq + 1e-9) return 0;
+
+        double wx = center.x - px, wy = center.y - py, wz = center.z - pz;
+        double distSq = wx * wx + wy * wy + wz * wz;
+        if (distSq <= radiusSq) return 0;
+
+        // Uniform over the cone of directions that hit the sphere (see sampleLight)
+        double sinMaxSq = radiusSq / distSq;
+        double oneMinusCosMax = sinMaxSq / (1.0 + Math.sqrt(1.0 - sinMaxSq));
+        return 1.0 / (2.0 * Math.PI * oneMinusCosMax);
+    }
+
+    /**
+     * PERFORMANCE: The box is built once and reused until the sphere is moved or resized,
+     * so BVH builds and refits do not allocate per object.
+     */
     @Override
     public AABB boundingBox() {
-        return new AABB(
-                center.sub(new Vec3(radius, radius, radius)),
-                center.add(new Vec3(radius, radius, radius))
-        );
+        AABB b = box;
+        if (b == null) {
+            b = new AABB(
+                    center.sub(new Vec3(radius, radius, radius)),
+                    center.add(new Vec3(radius, radius, radius))
+            );
+            box = b;
+        }
+        return b;
     }
 
     @Override public Material getMaterial() { return material; }
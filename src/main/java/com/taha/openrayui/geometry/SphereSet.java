@@ -0,0 +1,163 @@
+package com.taha.openrayui.geometry;
+
+import com.taha.openrayui.core.HitRecord;
+import com.taha.openrayui.material.Material;
+import com.taha.openrayui.math.Ray;
+
+/**
+ * A large set of spheres stored as a structure of arrays, with its own BVH.
+ * Intended for particle clouds and "random spheres" scenes with up to millions of spheres.
+ * <p>
+ * PERFORMANCE: A {@link Sphere} is an object with a Vec3 center, a cached AABB, a name and a material
+ * reference (a few hundred bytes each, plus its entry in the scene BVH). Here a sphere is 4 doubles and
+ * one material id in contiguous arrays (36 bytes) plus its share of the BVH nodes: about 40 bytes in total,
+ * an order of magnitude below Sphere objects. After the build the arrays are reordered to match the
+ * BVH leaves, so the spheres of a leaf sit next to each other in memory: {@link #hitLeaf} streams through
+ * them with the plain quadratic test only, and computes the normal, UV and material once, for the closest
+ * sphere of the leaf.
+ * </p>
+ */
+public class SphereSet extends FlatBVH {
+
+    // A batched sphere test costs a fraction of a node visit: the SAH then prefers fuller leaves
+    public static final double INTERSECTION_COST = 0.25;
+    public static final int DEFAULT_MAX_LEAF_SIZE = 8;
+
+    private final double[] centers;   // x, y, z per sphere (in BVH leaf order)
+    private final double[] radii;
+    private final int[] materialIds;  // Index into materials
+    private final Material[] materials;
+
+    /**
+     * Builds the set. The spheres are reordered internally, so the input index of a sphere is not kept.
+     *
+     * @param centers     x, y, z per sphere
+     * @param radii       Radius per sphere
+     * @param materialIds Material index per sphere
+     * @param materials   The materials referenced by the ids
+     */
+    public SphereSet(double[] centers, double[] radii, int[] materialIds, Material[] materials) {
+        this(centers, radii, materialIds, materials, DEFAULT_MAX_LEAF_SIZE);
+    }
+
+    public SphereSet(double[] centers, double[] radii, int[] materialIds, Material[] materials, int maxLeafSize) {
+        int count = radii.length;
+        if (count == 0 || centers.length != count * 3 || materialIds.length != count) {
+            throw new IllegalArgumentException("A SphereSet needs 3 center coordinates and 1 material id per radius");
+        }
+        for (int id : materialIds) {
+            if (id < 0 || id >= materials.length) throw new IllegalArgumentException("Material id " + id + " out of range");
+        }
+
+        double[] bounds = new double[count * 6];
+        for (int i = 0; i < count; i++) {
+            double r = Math.abs(radii[i]);
+            for (int axis = 0; axis < 3; axis++) {
+                bounds[i * 6 + axis] = centers[i * 3 + axis] - r;
+                bounds[i * 6 + 3 + axis] = centers[i * 3 + axis] + r;
+            }
+        }
+        setTree(new BVHBuilder(maxLeafSize, INTERSECTION_COST).build(bounds, count));
+
+        // Store the spheres in leaf order
+        this.centers = new double[count * 3];
+        this.radii = new double[count];
+        this.materialIds = new int[count];
+        this.materials = materials.clone();
+        for (int i = 0; i < count; i++) {
+            int source = primitiveIndices[i];
+            System.arraycopy(centers, source * 3, this.centers, i * 3, 3);
+            this.radii[i] = radii[source];
+            this.materialIds[i] = materialIds[source];
+        }
+        useLeafOrder();
+    }
+
+    public int getSphereCount() { return radii.length; }
+
+    /**
+     * Batched leaf test: only the closest root is tracked inside the loop; the hit record is filled once.
+     */
+    @Override
+    protected boolean hitLeaf(int first, int count, Ray r, double tMin, double tMax, HitRecord rec) {
+        double a = r.dx * r.dx + r.dy * r.dy + r.dz * r.dz;
+        double invA = 1.0 / a;
+        int best = -1;
+
+        for (int i = first; i < first + count; i++) {
+            double ocX = r.ox - centers[i * 3];
+            double ocY = r.oy - centers[i * 3 + 1];
+            double ocZ = r.oz - centers[i * 3 + 2];
+            double radius = radii[i];
+
+            double halfB = ocX * r.dx + ocY * r.dy + ocZ * r.dz;
+            double c = ocX * ocX + ocY * ocY + ocZ * ocZ - radius * radius;
+            double discriminant = halfB * halfB - a * c;
+            if (discriminant < 0) continue;
+            double sqrtd = Math.sqrt(discriminant);
+
+            double root = (-halfB - sqrtd) * invA;
+            if (root < tMin || tMax < root) {
+                root = (-halfB + sqrtd) * invA;
+                if (root < tMin || tMax < root) continue;
+            }
+            tMax = root;
+            best = i;
+        }
+
+        if (best < 0) return false;
+        setHit(best, r, tMax, rec);
+        return true;
+    }
+
+    @Override
+    protected boolean hitPrimitive(int sphere, Ray r, double tMin, double tMax, HitRecord rec) {
+        return hitLeaf(sphere, 1, r, tMin, tMax, rec);
+    }
+
+    @Override
+    protected boolean occludedPrimitive(int sphere, Ray r, double tMin, double tMax) {
+        double ocX = r.ox - centers[sphere * 3];
+        double ocY = r.oy - centers[sphere * 3 + 1];
+        double ocZ = r.oz - centers[sphere * 3 + 2];
+        double radius = radii[sphere];
+
+        double a = r.dx * r.dx + r.dy * r.dy + r.dz * r.dz;
+        double halfB = ocX * r.dx + ocY * r.dy + ocZ * r.dz;
+        double c = ocX * ocX + ocY * ocY + ocZ * ocZ - radius * radius;
+        double discriminant = halfB * halfB - a * c;
+        if (discriminant < 0) return false;
+        double sqrtd = Math.sqrt(discriminant);
+
+        double root = (-halfB - sqrtd) / a;
+        if (root >= tMin && root <= tMax) return true;
+        root = (-halfB + sqrtd) / a;
+        return root >= tMin && root <= tMax;
+    }
+
+    private void setHit(int sphere, Ray r, double t, HitRecord rec) {
+        rec.setPoint(r, t);
+
+        double invRadius = 1.0 / radii[sphere];
+        double outX = (rec.px - centers[sphere * 3]) * invRadius;
+        double outY = (rec.py - centers[sphere * 3 + 1]) * invRadius;
+        double outZ = (rec.pz - centers[sphere * 3 + 2]) * invRadius;
+        rec.setFaceNormal(r, outX, outY, outZ);
+        Sphere.getSphereUV(outX, outY, outZ, rec);
+
+        rec.mat = materials[materialIds[sphere]];
+    }
+
+    @Override
+    protected void primitiveBounds(int sphere, double[] out, int offset) {
+        double r = Math.abs(radii[sphere]);
+        for (int axis = 0; axis < 3; axis++) {
+            out[offset + axis] = centers[sphere * 3 + axis] - r;
+            out[offset + 3 + axis] = centers[sphere * 3 + axis] + r;
+        }
+    }
+
+    // The set has one material per sphere; the inspector edits the first one
+    @Override public Material getMaterial() { return materials[0]; }
+    @Override public void setMaterial(Material m) { materials[0] = m; }
+}
@@ -0,0 +1,30 @@
+package com.taha.openrayui.geometry;
+
+import com.taha.openrayui.material.Material;
+
+/**
+ * Read access to the arrays of a triangle mesh, wherever they are stored: heap arrays in {@link TriangleMesh},
+ * memory-mapped buffers in {@link MappedMesh}. Both share one triangle kernel
+ * ({@link TriangleMesh#hitTriangle}, {@link TriangleMesh#occludesTriangle}) through it.
+ * The layout is that of TriangleMesh: 3 indices per triangle, 3 floats per position and normal, 2 per UV.
+ */
+interface TriangleData {
+
+    int vertexIndex(int i);
+
+    float position(int i);
+
+    boolean hasNormals();
+
+    int normalIndex(int i);
+
+    float normal(int i);
+
+    boolean hasUvs();
+
+    int uvIndex(int i);
+
+    float uv(int i);
+
+    Material getMaterial();
+}
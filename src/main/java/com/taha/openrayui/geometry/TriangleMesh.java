@@ -0,0 +1,252 @@
+package com.taha.openrayui.geometry;
+
+import com.taha.openrayui.core.HitRecord;
+import com.taha.openrayui.material.Material;
+import com.taha.openrayui.math.Ray;
+
+/**
+ * A triangle mesh with its own BVH over the triangles.
+ * <p>
+ * PERFORMANCE: The mesh data lives in flat arrays instead of per-triangle objects:
+ * float positions (3 per vertex), optional float normals (3 per normal) and UVs (2 per UV),
+ * and int index arrays with 3 entries per triangle. A million-triangle model costs a few dozen MB
+ * (plus the flattened BVH) instead of millions of Vec3 and Triangle objects, and the triangles
+ * referenced by one BVH leaf are read from a handful of array slots.
+ * </p>
+ * <p>
+ * Normals and UVs have index arrays of their own (as in the OBJ format), so the loader never needs to
+ * deduplicate (position, uv, normal) combinations. Without normals the mesh is flat shaded; without
+ * UVs the barycentric coordinates are used as texture coordinates.
+ * </p>
+ */
+public class TriangleMesh extends FlatBVH implements TriangleData {
+
+    // Package-private: written as-is by the mesh cache (see MappedMesh)
+    final float[] positions;
+    final float[] normals;    // null: flat shading
+    final float[] uvs;        // null: barycentric UVs
+    final int[] vertexIndices;
+    final int[] normalIndices; // null if normals == null
+    final int[] uvIndices;     // null if uvs == null
+    private final int triangleCount;
+
+    private Material material;
+
+    /**
+     * @param positions     x, y, z per vertex
+     * @param vertexIndices 3 position indices per triangle (counter-clockwise = front face)
+     * @param normals       x, y, z per normal, or null
+     * @param normalIndices 3 normal indices per triangle, or null
+     * @param uvs           u, v per texture coordinate, or null
+     * @param uvIndices     3 uv indices per triangle, or null
+     */
+    public TriangleMesh(float[] positions, int[] vertexIndices, float[] normals, int[] normalIndices,
+                        float[] uvs, int[] uvIndices, Material material, int maxLeafSize) {
+        if (vertexIndices.length < 3 || vertexIndices.length % 3 != 0) {
+            throw new IllegalArgumentException("A mesh needs 3 indices per triangle and at least one triangle");
+        }
+        if ((normals == null) != (normalIndices == null) || (uvs == null) != (uvIndices == null)) {
+            throw new IllegalArgumentException("Normals and UVs need both the data and the index array");
+        }
+        this.positions = positions;
+        this.vertexIndices = vertexIndices;
+        this.normals = normals;
+        this.normalIndices = normalIndices;
+        this.uvs = uvs;
+        this.uvIndices = uvIndices;
+        this.material = material;
+        this.triangleCount = vertexIndices.length / 3;
+
+        double[] bounds = new double[triangleCount * 6];
+        for (int i = 0; i < triangleCount; i++) {
+            primitiveBounds(i, bounds, i * 6);
+        }
+        setTree(new BVHBuilder(maxLeafSize).build(bounds, triangleCount));
+    }
+
+    public int getTriangleCount() { return triangleCount; }
+    public int getVertexCount() { return positions.length / 3; }
+
+    @Override
+    protected void primitiveBounds(int triangle, double[] out, int offset) {
+        int a = vertexIndices[triangle * 3] * 3;
+        int b = vertexIndices[triangle * 3 + 1] * 3;
+        int c = vertexIndices[triangle * 3 + 2] * 3;
+        for (int axis = 0; axis < 3; axis++) {
+            float pa = positions[a + axis], pb = positions[b + axis], pc = positions[c + axis];
+            out[offset + axis] = Math.min(pa, Math.min(pb, pc));
+            out[offset + 3 + axis] = Math.max(pa, Math.max(pb, pc));
+        }
+    }
+
+    /**
+     * Watertight ray-triangle test (Woop, Benthin, Wald 2013).
+     * The triangle is sheared into a space where the ray runs along +Z through the origin, and the hit is
+     * decided by the signs of three 2D edge functions. Two triangles sharing an edge evaluate that edge
+     * identically, so rays can never slip through the crack between neighbours.
+     *
+     * @param rec If not null, receives the barycentric weights of vertices 1 and 2 in u and v on a hit
+     * @return The ray parameter t of the hit in [tMin, tMax], or NaN
+     */
+    private static double intersect(Ray r, double tMin, double tMax,
+                                    double p0x, double p0y, double p0z,
+                                    double p1x, double p1y, double p1z,
+                                    double p2x, double p2y, double p2z, HitRecord rec) {
+        // Dominant ray axis becomes z; the winding is kept by swapping x and y for negative directions
+        double adx = Math.abs(r.dx), ady = Math.abs(r.dy), adz = Math.abs(r.dz);
+        int kz = adx > ady ? (adx > adz ? 0 : 2) : (ady > adz ? 1 : 2);
+        int kx = kz == 2 ? 0 : kz + 1;
+        int ky = kx == 2 ? 0 : kx + 1;
+        double dirZ = component(r.dx, r.dy, r.dz, kz);
+        if (dirZ < 0) { int swap = kx; kx = ky; ky = swap; }
+
+        double sz = 1.0 / dirZ;
+        double sx = component(r.dx, r.dy, r.dz, kx) * sz;
+        double sy = component(r.dx, r.dy, r.dz, ky) * sz;
+        double ox = component(r.ox, r.oy, r.oz, kx);
+        double oy = component(r.ox, r.oy, r.oz, ky);
+        double oz = component(r.ox, r.oy, r.oz, kz);
+
+        // Vertices relative to the ray origin, sheared
+        double az = component(p0x, p0y, p0z, kz) - oz;
+        double bz = component(p1x, p1y, p1z, kz) - oz;
+        double cz = component(p2x, p2y, p2z, kz) - oz;
+        double ax = component(p0x, p0y, p0z, kx) - ox - sx * az;
+        double ay = component(p0x, p0y, p0z, ky) - oy - sy * az;
+        double bx = component(p1x, p1y, p1z, kx) - ox - sx * bz;
+        double by = component(p1x, p1y, p1z, ky) - oy - sy * bz;
+        double cx = component(p2x, p2y, p2z, kx) - ox - sx * cz;
+        double cy = component(p2x, p2y, p2z, ky) - oy - sy * cz;
+
+        // Edge functions (scaled barycentrics)
+        double u = cx * by - cy * bx;
+        double v = ax * cy - ay * cx;
+        double w = bx * ay - by * ax;
+        if ((u < 0 || v < 0 || w < 0) && (u > 0 || v > 0 || w > 0)) return Double.NaN;
+
+        double det = u + v + w;
+        if (det == 0) return Double.NaN;
+
+        double invDet = 1.0 / det;
+        double t = (u * az + v * bz + w * cz) * sz * invDet;
+        if (t < tMin || t > tMax) return Double.NaN;
+
+        if (rec != null) {
+            rec.u = v * invDet;
+            rec.v = w * invDet;
+        }
+        return t;
+    }
+
+    private static double component(double x, double y, double z, int axis) {
+        return axis == 0 ? x : (axis == 1 ? y : z);
+    }
+
+    /**
+     * Stores the shading normal of a hit. The geometric normal (counter-clockwise winding) decides the
+     * front face; the stored normal is (nx, ny, nz) if smooth, else the geometric one, turned against the ray.
+     */
+    private static void setNormal(Ray r, HitRecord rec,
+                                  double p0x, double p0y, double p0z,
+                                  double p1x, double p1y, double p1z,
+                                  double p2x, double p2y, double p2z,
+                                  boolean smooth, double nx, double ny, double nz) {
+        double e1x = p1x - p0x, e1y = p1y - p0y, e1z = p1z - p0z;
+        double e2x = p2x - p0x, e2y = p2y - p0y, e2z = p2z - p0z;
+        double gx = e1y * e2z - e1z * e2y;
+        double gy = e1z * e2x - e1x * e2z;
+        double gz = e1x * e2y - e1y * e2x;
+        boolean front = r.dx * gx + r.dy * gy + r.dz * gz < 0;
+
+        if (!smooth) {
+            nx = gx; ny = gy; nz = gz;
+        }
+        double invLength = 1.0 / Math.sqrt(nx * nx + ny * ny + nz * nz);
+        if (!front) invLength = -invLength;
+        rec.nx = nx * invLength;
+        rec.ny = ny * invLength;
+        rec.nz = nz * invLength;
+        rec.frontFace = front;
+    }
+
+    /**
+     * Closest-hit kernel for one triangle of a mesh: intersects it and, on a hit, fills in the point,
+     * the (interpolated or geometric) normal, the UVs and the material.
+     * Shared with {@link MappedMesh}; the accessor calls inline, since a call site sees at most two mesh types.
+     */
+    static boolean hitTriangle(TriangleData mesh, int triangle, Ray r, double tMin, double tMax, HitRecord rec) {
+        int a = mesh.vertexIndex(triangle * 3) * 3;
+        int b = mesh.vertexIndex(triangle * 3 + 1) * 3;
+        int c = mesh.vertexIndex(triangle * 3 + 2) * 3;
+        double p0x = mesh.position(a), p0y = mesh.position(a + 1), p0z = mesh.position(a + 2);
+        double p1x = mesh.position(b), p1y = mesh.position(b + 1), p1z = mesh.position(b + 2);
+        double p2x = mesh.position(c), p2y = mesh.position(c + 1), p2z = mesh.position(c + 2);
+
+        // The barycentrics travel through rec.u / rec.v, so no scratch array is needed
+        double t = intersect(r, tMin, tMax, p0x, p0y, p0z, p1x, p1y, p1z, p2x, p2y, p2z, rec);
+        if (Double.isNaN(t)) return false;
+
+        double b1 = rec.u, b2 = rec.v, b0 = 1.0 - b1 - b2;
+        rec.setPoint(r, t);
+
+        boolean smooth = mesh.hasNormals();
+        double nx = 0, ny = 0, nz = 0;
+        if (smooth) {
+            // Smooth shading: interpolated vertex normals
+            int na = mesh.normalIndex(triangle * 3) * 3;
+            int nb = mesh.normalIndex(triangle * 3 + 1) * 3;
+            int nc = mesh.normalIndex(triangle * 3 + 2) * 3;
+            nx = b0 * mesh.normal(na) + b1 * mesh.normal(nb) + b2 * mesh.normal(nc);
+            ny = b0 * mesh.normal(na + 1) + b1 * mesh.normal(nb + 1) + b2 * mesh.normal(nc + 1);
+            nz = b0 * mesh.normal(na + 2) + b1 * mesh.normal(nb + 2) + b2 * mesh.normal(nc + 2);
+        }
+        setNormal(r, rec, p0x, p0y, p0z, p1x, p1y, p1z, p2x, p2y, p2z, smooth, nx, ny, nz);
+
+        if (mesh.hasUvs()) {
+            int ua = mesh.uvIndex(triangle * 3) * 2;
+            int ub = mesh.uvIndex(triangle * 3 + 1) * 2;
+            int uc = mesh.uvIndex(triangle * 3 + 2) * 2;
+            rec.u = b0 * mesh.uv(ua) + b1 * mesh.uv(ub) + b2 * mesh.uv(uc);
+            rec.v = b0 * mesh.uv(ua + 1) + b1 * mesh.uv(ub + 1) + b2 * mesh.uv(uc + 1);
+        }
+
+        rec.mat = mesh.getMaterial();
+        return true;
+    }
+
+    /**
+     * Any-hit kernel for one triangle of a mesh (shared with {@link MappedMesh}).
+     */
+    static boolean occludesTriangle(TriangleData mesh, int triangle, Ray r, double tMin, double tMax) {
+        int a = mesh.vertexIndex(triangle * 3) * 3;
+        int b = mesh.vertexIndex(triangle * 3 + 1) * 3;
+        int c = mesh.vertexIndex(triangle * 3 + 2) * 3;
+        return !Double.isNaN(intersect(r, tMin, tMax,
+                mesh.position(a), mesh.position(a + 1), mesh.position(a + 2),
+                mesh.position(b), mesh.position(b + 1), mesh.position(b + 2),
+                mesh.position(c), mesh.position(c + 1), mesh.position(c + 2), null));
+    }
+
+    @Override
+    protected boolean hitPrimitive(int triangle, Ray r, double tMin, double tMax, HitRecord rec) {
+        return hitTriangle(this, triangle, r, tMin, tMax, rec);
+    }
+
+    @Override
+    protected boolean occludedPrimitive(int triangle, Ray r, double tMin, double tMax) {
+        return occludesTriangle(this, triangle, r, tMin, tMax);
+    }
+
+    // --- TriangleData (plain array reads) ---
+    @Override public final int vertexIndex(int i) { return vertexIndices[i]; }
+    @Override public final float position(int i) { return positions[i]; }
+    @Override public final boolean hasNormals() { return normals != null; }
+    @Override public final int normalIndex(int i) { return normalIndices[i]; }
+    @Override public final float normal(int i) { return normals[i]; }
+    @Override public final boolean hasUvs() { return uvs != null; }
+    @Override public final int uvIndex(int i) { return uvIndices[i]; }
+    @Override public final float uv(int i) { return uvs[i]; }
+
+    @Override public Material getMaterial() { return material; }
+    @Override public void setMaterial(Material m) { this.material = m; }
+}
@@ -0,0 +1,64 @@
+package com.taha.openrayui.io;
+
+import com.taha.openrayui.core.RenderSettings;
+import com.taha.openrayui.geometry.Hittable;
+import com.taha.openrayui.geometry.MappedMesh;
+import com.taha.openrayui.geometry.TriangleMesh;
+import com.taha.openrayui.material.Material;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Loads meshes through the binary mesh cache.
+ * The first import of an .obj file parses it, builds the BVH and writes "name.obj.rmesh" next to it;
+ * later imports map the cache file instead (see {@link MappedMesh}) and skip parsing and building entirely.
+ * A cache older than its .obj file is rebuilt.
+ */
+public class MeshCache {
+
+    public static final String EXTENSION = ".rmesh";
+
+    /**
+     * Loads an .obj or .rmesh file.
+     * @param file     The source file.
+     * @param material Material of the whole mesh.
+     * @return A {@link MappedMesh} if a valid cache exists, otherwise the parsed {@link TriangleMesh}.
+     * @throws IOException If the file cannot be read.
+     */
+    public static Hittable load(File file, Material material) throws IOException {
+        if (file.getName().toLowerCase().endsWith(EXTENSION)) {
+            return open(file, file.getName(), material);
+        }
+        if (!RenderSettings.getInstance().meshCache) {
+            return ObjLoader.load(file, material);
+        }
+
+        File cache = new File(file.getPath() + EXTENSION);
+        if (cache.isFile() && cache.lastModified() >= file.lastModified()) {
+            try {
+                return open(cache, file.getName(), material);
+            } catch (IOException e) {
+                System.out.println("Mesh cache " + cache.getName() + " is unusable (" + e.getMessage() + "), re-importing");
+            }
+        }
+
+        TriangleMesh mesh = ObjLoader.load(file, material);
+        try {
+            MappedMesh.write(mesh, cache);
+        } catch (IOException e) {
+            // A read-only folder only costs the speed-up of the next import
+            System.out.println("Could not write mesh cache " + cache.getName() + ": " + e.getMessage());
+        }
+        return mesh;
+    }
+
+    private static MappedMesh open(File cache, String name, Material material) throws IOException {
+        long start = System.nanoTime();
+        MappedMesh mesh = MappedMesh.open(cache, material);
+        mesh.setName(name);
+        System.out.printf("Mesh cache %s mapped in %.1f ms (%d triangles)%n",
+                cache.getName(), (System.nanoTime() - start) / 1e6, mesh.getTriangleCount());
+        return mesh;
+    }
+}
@@ -0,0 +1,278 @@
+package com.taha.openrayui.io;
+
+import com.taha.openrayui.core.RenderSettings;
+import com.taha.openrayui.geometry.TriangleMesh;
+import com.taha.openrayui.material.Material;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streaming loader for Wavefront .obj meshes.
+ * Supports v, vt, vn and f (polygons are triangulated as fans, negative indices are resolved);
+ * groups, smoothing groups and material libraries are ignored.
+ * <p>
+ * PERFORMANCE: The file is read line by line straight into growable primitive arrays, so memory grows
+ * with the mesh itself, not with the file or with per-vertex objects. Numbers are parsed in place
+ * without creating a substring per token.
+ * </p>
+ */
+public class ObjLoader {
+
+    /**
+     * Loads an .obj file into a single {@link TriangleMesh} (including its BVH).
+     * @param file     The source file.
+     * @param material Material of the whole mesh.
+     * @throws IOException If reading fails or the file is malformed.
+     */
+    public static TriangleMesh load(File file, Material material) throws IOException {
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            TriangleMesh mesh = load(reader, material);
+            mesh.setName(file.getName());
+            return mesh;
+        }
+    }
+
+    /**
+     * Loads .obj data from a reader. The reader is not closed.
+     */
+    public static TriangleMesh load(Reader source, Material material) throws IOException {
+        FloatList positions = new FloatList();
+        FloatList normals = new FloatList();
+        FloatList uvs = new FloatList();
+        IntList vertexIndices = new IntList();
+        IntList normalIndices = new IntList();
+        IntList uvIndices = new IntList();
+
+        // Corners of the current face, before triangulation
+        IntList faceV = new IntList(), faceT = new IntList(), faceN = new IntList();
+        // A single corner without normal (or UV) disables that attribute for the whole mesh
+        boolean allNormals = true;
+        boolean allUvs = true;
+
+        BufferedReader reader = new BufferedReader(source, 1 << 16);
+        Cursor cursor = new Cursor();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            cursor.reset(line);
+            cursor.skipSpaces();
+            if (cursor.atEnd() || line.charAt(cursor.pos) == '#') continue;
+
+            try {
+                String keyword = cursor.nextKeyword();
+                switch (keyword) {
+                    case "v":
+                        positions.add((float) cursor.nextNumber());
+                        positions.add((float) cursor.nextNumber());
+                        positions.add((float) cursor.nextNumber());
+                        break;
+                    case "vn":
+                        normals.add((float) cursor.nextNumber());
+                        normals.add((float) cursor.nextNumber());
+                        normals.add((float) cursor.nextNumber());
+                        break;
+                    case "vt":
+                        uvs.add((float) cursor.nextNumber());
+                        uvs.add((float) cursor.nextNumber());
+                        break;
+                    case "f":
+                        faceV.clear(); faceT.clear(); faceN.clear();
+                        cursor.skipSpaces();
+                        while (!cursor.atEnd()) {
+                            faceV.add(resolve(cursor.nextIndex(), positions.size / 3));
+                            int t = -1, n = -1;
+                            if (cursor.peek() == '/') {
+                                cursor.pos++;
+                                if (cursor.peek() != '/') t = resolve(cursor.nextIndex(), uvs.size / 2);
+                                if (cursor.peek() == '/') {
+                                    cursor.pos++;
+                                    n = resolve(cursor.nextIndex(), normals.size / 3);
+                                }
+                            }
+                            allUvs &= t >= 0;
+                            allNormals &= n >= 0;
+                            faceT.add(t);
+                            faceN.add(n);
+                            cursor.skipSpaces();
+                        }
+                        if (faceV.size < 3) throw new IOException("face with fewer than 3 vertices");
+
+                        // Fan triangulation: (0, i, i + 1)
+                        for (int i = 1; i + 1 < faceV.size; i++) {
+                            vertexIndices.add(faceV.data[0]); vertexIndices.add(faceV.data[i]); vertexIndices.add(faceV.data[i + 1]);
+                            uvIndices.add(faceT.data[0]); uvIndices.add(faceT.data[i]); uvIndices.add(faceT.data[i + 1]);
+                            normalIndices.add(faceN.data[0]); normalIndices.add(faceN.data[i]); normalIndices.add(faceN.data[i + 1]);
+                        }
+                        break;
+                    default:
+                        // o, g, s, usemtl, mtllib, ... do not affect the geometry
+                        break;
+                }
+            } catch (IOException | RuntimeException e) {
+                throw new IOException("OBJ parse error at line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+
+        if (vertexIndices.size == 0) throw new IOException("OBJ file contains no faces");
+        checkRange(vertexIndices, positions.size / 3, "vertex");
+        if (allNormals) checkRange(normalIndices, normals.size / 3, "normal");
+        if (allUvs) checkRange(uvIndices, uvs.size / 2, "texture coordinate");
+
+        return new TriangleMesh(
+                positions.toArray(), vertexIndices.toArray(),
+                allNormals ? normals.toArray() : null, allNormals ? normalIndices.toArray() : null,
+                allUvs ? uvs.toArray() : null, allUvs ? uvIndices.toArray() : null,
+                material, RenderSettings.getInstance().bvhMaxLeafSize);
+    }
+
+    /**
+     * Converts a 1-based (or negative, relative) OBJ index to a 0-based index.
+     */
+    private static int resolve(int index, int count) {
+        if (index > 0) return index - 1;
+        if (index < 0) return count + index;
+        throw new IllegalArgumentException("index 0 is not valid in OBJ");
+    }
+
+    private static void checkRange(IntList indices, int count, String what) throws IOException {
+        for (int i = 0; i < indices.size; i++) {
+            int index = indices.data[i];
+            if (index < 0 || index >= count) {
+                throw new IOException("OBJ face references " + what + " " + (index + 1) + " of " + count);
+            }
+        }
+    }
+
+    // --- Parsing Helpers ---
+
+    /**
+     * Position inside the current line; numbers are parsed directly from the characters.
+     */
+    private static final class Cursor {
+        String line;
+        int pos;
+
+        void reset(String line) {
+            this.line = line;
+            this.pos = 0;
+        }
+
+        boolean atEnd() {
+            return pos >= line.length();
+        }
+
+        char peek() {
+            return pos < line.length() ? line.charAt(pos) : '\0';
+        }
+
+        void skipSpaces() {
+            while (pos < line.length() && Character.isWhitespace(line.charAt(pos))) pos++;
+        }
+
+        String nextKeyword() {
+            int start = pos;
+            while (pos < line.length() && !Character.isWhitespace(line.charAt(pos))) pos++;
+            return line.substring(start, pos);
+        }
+
+        int nextIndex() {
+            boolean negative = false;
+            if (peek() == '-') { negative = true; pos++; }
+            int start = pos;
+            int value = 0;
+            while (pos < line.length()) {
+                char ch = line.charAt(pos);
+                if (ch < '0' || ch > '9') break;
+                value = value * 10 + (ch - '0');
+                pos++;
+            }
+            if (pos == start) throw new IllegalArgumentException("expected an index");
+            return negative ? -value : value;
+        }
+
+        /**
+         * Parses a decimal number. Plain "-12.345" forms are handled inline;
+         * anything else (exponents, nan, ...) falls back to Double.parseDouble.
+         */
+        double nextNumber() {
+            skipSpaces();
+            int start = pos;
+            boolean negative = false;
+            if (peek() == '-' || peek() == '+') { negative = peek() == '-'; pos++; }
+
+            long mantissa = 0;
+            int digits = 0;
+            int fractionDigits = 0;
+            boolean fraction = false;
+            while (pos < line.length()) {
+                char ch = line.charAt(pos);
+                if (ch >= '0' && ch <= '9') {
+                    if (digits < 18) {
+                        mantissa = mantissa * 10 + (ch - '0');
+                        digits++;
+                        if (fraction) fractionDigits++;
+                    } else if (!fraction) {
+                        break; // Too many digits for the fast path
+                    }
+                } else if (ch == '.' && !fraction) {
+                    fraction = true;
+                } else {
+                    break;
+                }
+                pos++;
+            }
+
+            if (pos < line.length() && !Character.isWhitespace(line.charAt(pos)) || digits == 0) {
+                // Slow path for the whole token
+                pos = start;
+                String token = nextKeyword();
+                if (token.isEmpty()) throw new IllegalArgumentException("expected a number");
+                return Double.parseDouble(token);
+            }
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+    }
+
+    private static final double[] POWERS_OF_TEN = new double[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+
+    private static final class FloatList {
+        float[] data = new float[1024];
+        int size;
+
+        void add(float value) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = value;
+        }
+
+        float[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+
+    private static final class IntList {
+        int[] data = new int[1024];
+        int size;
+
+        void add(int value) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = value;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
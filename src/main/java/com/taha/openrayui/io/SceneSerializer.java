@@ -33,9 +33,19 @@ public class SceneSerializer {
      * @throws ClassNotFoundException If the file format is invalid.
      */
     public static void load(File file) throws IOException, ClassNotFoundException {
+        Scene.getInstance().loadSceneFromList(read(file));
+    }
+
+    /**
+     * Reads the objects of a scene file without touching the Scene singleton.
+     * @param file The source file.
+     * @return The deserialized list of objects.
+     * @throws IOException If reading fails.
+     * @throws ClassNotFoundException If the file format is invalid.
+     */
+    public static HittableList read(File file) throws IOException, ClassNotFoundException {
         try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-            HittableList loadedWorld = (HittableList) ois.readObject();
-            Scene.getInstance().loadSceneFromList(loadedWorld);
+            return (HittableList) ois.readObject();
         }
     }
 }
\ No newline at end of file
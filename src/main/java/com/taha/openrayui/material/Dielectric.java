@@ -3,7 +3,7 @@ package com.taha.openrayui.material;
 import com.taha.openrayui.core.HitRecord;
 import com.taha.openrayui.core.ScatterResult;
 import com.taha.openrayui.math.Ray;
-import com.taha.openrayui.math.Vec3;
+import com.taha.openrayui.sampler.Sampler;
 
 /**
  * Represents a transparent material (glass, water, diamond).
@@ -23,36 +23,39 @@ public class Dielectric implements Material {
     public void setIr(double ir) { this.ir = ir; }
 
     @Override
-    public ScatterResult scatter(Ray rIn, HitRecord rec) {
-        Vec3 attenuation = new Vec3(1.0, 1.0, 1.0); // Glass absorbs nothing (usually)
+    public boolean scatter(Ray rIn, HitRecord rec, ScatterResult out, Sampler sampler) {
+        out.setAttenuation(1.0, 1.0, 1.0); // Glass absorbs nothing (usually)
+        out.pdf = 0; // Specular
         double refractionRatio = rec.frontFace ? (1.0 / ir) : ir;
 
-        Vec3 unitDirection = rIn.direction().unitVector();
-        double cosTheta = Math.min(unitDirection.mul(-1).dot(rec.normal), 1.0);
+        double invLen = 1.0 / Math.sqrt(rIn.dx * rIn.dx + rIn.dy * rIn.dy + rIn.dz * rIn.dz);
+        double ux = rIn.dx * invLen, uy = rIn.dy * invLen, uz = rIn.dz * invLen;
+        double cosTheta = Math.min(-(ux * rec.nx + uy * rec.ny + uz * rec.nz), 1.0);
         double sinTheta = Math.sqrt(1.0 - cosTheta * cosTheta);
 
         boolean cannotRefract = refractionRatio * sinTheta > 1.0;
-        Vec3 direction;
+        double dx, dy, dz;
 
         // Determine if ray reflects or refracts (Fresnel effect & Snell's Law)
-        if (cannotRefract || reflectance(cosTheta, refractionRatio) > Math.random()) {
-            direction = reflect(unitDirection, rec.normal);
+        if (cannotRefract || reflectance(cosTheta, refractionRatio) > sampler.next1D()) {
+            // Reflect: v - 2(v.n)n
+            double d = 2 * (ux * rec.nx + uy * rec.ny + uz * rec.nz);
+            dx = ux - rec.nx * d;
+            dy = uy - rec.ny * d;
+            dz = uz - rec.nz * d;
         } else {
-            direction = refract(unitDirection, rec.normal, refractionRatio);
+            // Refract: perpendicular + parallel components
+            double perpX = (ux + rec.nx * cosTheta) * refractionRatio;
+            double perpY = (uy + rec.ny * cosTheta) * refractionRatio;
+            double perpZ = (uz + rec.nz * cosTheta) * refractionRatio;
+            double parallel = -Math.sqrt(Math.abs(1.0 - (perpX * perpX + perpY * perpY + perpZ * perpZ)));
+            dx = perpX + rec.nx * parallel;
+            dy = perpY + rec.ny * parallel;
+            dz = perpZ + rec.nz * parallel;
         }
 
-        return new ScatterResult(new Ray(rec.p, direction), attenuation);
-    }
-
-    private Vec3 refract(Vec3 uv, Vec3 n, double etai_over_etat) {
-        double cosTheta = Math.min(uv.mul(-1).dot(n), 1.0);
-        Vec3 rOutPerp = uv.add(n.mul(cosTheta)).mul(etai_over_etat);
-        double rOutParallelVal = -Math.sqrt(Math.abs(1.0 - rOutPerp.lengthSquared()));
-        return rOutPerp.add(n.mul(rOutParallelVal));
-    }
-
-    private Vec3 reflect(Vec3 v, Vec3 n) {
-        return v.sub(n.mul(2 * v.dot(n)));
+        out.scattered.set(rec.px, rec.py, rec.pz, dx, dy, dz);
+        return true;
     }
 
     private double reflectance(double cosine, double refIdx) {
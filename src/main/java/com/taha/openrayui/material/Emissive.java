@@ -0,0 +1,58 @@
+package com.taha.openrayui.material;
+
+import com.taha.openrayui.core.HitRecord;
+import com.taha.openrayui.core.ScatterResult;
+import com.taha.openrayui.math.Ray;
+import com.taha.openrayui.math.Vec3;
+import com.taha.openrayui.sampler.Sampler;
+
+/**
+ * A light-emitting surface (area light, lamp, glowing object).
+ * It emits the same radiance (color x intensity) from every point and in every direction, on both sides,
+ * and reflects nothing. Spheres and boxes with this material are also sampled directly as lights
+ * (next-event estimation), so even small lamps light a scene quickly.
+ */
+public class Emissive implements Material {
+
+    private Vec3 color;       // Light color (usually in [0, 1])
+    private double intensity; // Brightness multiplier
+
+    // color x intensity, cached because it is read on every light sample
+    private Vec3 radiance;
+
+    public Emissive(Vec3 color, double intensity) {
+        this.color = color;
+        setIntensity(intensity);
+    }
+
+    // --- GETTERS & SETTERS ---
+
+    public Vec3 getColor() { return color; }
+
+    public void setColor(Vec3 color) {
+        this.color = color;
+        updateRadiance();
+    }
+
+    public double getIntensity() { return intensity; }
+
+    public void setIntensity(double intensity) {
+        this.intensity = Math.max(0, intensity);
+        updateRadiance();
+    }
+
+    private void updateRadiance() {
+        this.radiance = color.mul(intensity);
+    }
+
+    @Override
+    public Vec3 emitted() {
+        return radiance;
+    }
+
+    @Override
+    public boolean scatter(Ray rIn, HitRecord rec, ScatterResult out, Sampler sampler) {
+        // A light absorbs everything: the path ends here after picking up the emission
+        return false;
+    }
+}
@@ -1,11 +1,13 @@
 package com.taha.openrayui.material;
 
+import com.taha.openrayui.core.BsdfValue;
 import com.taha.openrayui.core.HitRecord;
 import com.taha.openrayui.core.ScatterResult;
 import com.taha.openrayui.math.Ray;
 import com.taha.openrayui.math.Vec3;
 import com.taha.openrayui.texture.SolidColor;
 import com.taha.openrayui.texture.Texture;
+import com.taha.openrayui.sampler.Sampler;
 
 /**
  * A material that simulates a matte surface (diffuse reflection).
@@ -61,33 +63,60 @@ public class Lambertian implements Material {
     }
 
     @Override
-    public ScatterResult scatter(Ray rIn, HitRecord rec) {
-        // Calculate a random reflection direction for diffuse scattering
-        Vec3 scatterDirection = rec.normal.add(Vec3.randomUnitVector());
+    public boolean scatter(Ray rIn, HitRecord rec, ScatterResult out, Sampler sampler) {
+        // Calculate a random reflection direction for diffuse scattering (normal + random unit vector).
+        // Rejection-free unit vector: uniform z in [-1, 1] and uniform angle around the Z axis.
+        double z = 1.0 - 2.0 * sampler.next1D();
+        double radius = Math.sqrt(Math.max(0.0, 1.0 - z * z));
+        double phi = 2.0 * Math.PI * sampler.next1D();
+
+        double sx = rec.nx + radius * Math.cos(phi);
+        double sy = rec.ny + radius * Math.sin(phi);
+        double sz = rec.nz + z;
 
         // Catch degenerate scatter direction (if random vector is opposite to normal)
-        if (nearZero(scatterDirection)) {
-            scatterDirection = rec.normal;
+        if (nearZero(sx, sy, sz)) {
+            sx = rec.nx; sy = rec.ny; sz = rec.nz;
         }
 
-        Ray scattered = new Ray(rec.p, scatterDirection);
+        // Normal + unit vector is cosine-distributed: pdf = cos(theta) / PI
+        double cosTheta = (sx * rec.nx + sy * rec.ny + sz * rec.nz) / Math.sqrt(sx * sx + sy * sy + sz * sz);
+        out.pdf = Math.max(cosTheta, 0.0) / Math.PI;
+
+        out.scattered.set(rec.px, rec.py, rec.pz, sx, sy, sz);
 
         // --- COLOR CALCULATION ---
         // 1. Sample the texture at the UV coordinates.
-        Vec3 textureColor = texture.value(rec.u, rec.v, rec.p);
+        Vec3 textureColor = texture.value(rec.u, rec.v, rec.px, rec.py, rec.pz);
 
         // 2. Multiply by the tint color.
         // If tint is White (1,1,1), the result is the original texture color.
-        Vec3 attenuation = textureColor.mul(colorTint);
+        out.setAttenuation(textureColor.x * colorTint.x, textureColor.y * colorTint.y, textureColor.z * colorTint.z);
+        return true;
+    }
 
-        return new ScatterResult(scattered, attenuation);
+    /**
+     * The BRDF is albedo / PI, so BSDF x cosine = albedo x cos(theta) / PI, and the pdf is cos(theta) / PI.
+     */
+    @Override
+    public boolean evaluate(Ray rIn, HitRecord rec, double wx, double wy, double wz, BsdfValue out) {
+        double cosTheta = wx * rec.nx + wy * rec.ny + wz * rec.nz;
+        if (cosTheta <= 0) return false;
+
+        Vec3 textureColor = texture.value(rec.u, rec.v, rec.px, rec.py, rec.pz);
+        double scale = cosTheta / Math.PI;
+        out.r = textureColor.x * colorTint.x * scale;
+        out.g = textureColor.y * colorTint.y * scale;
+        out.b = textureColor.z * colorTint.z * scale;
+        out.pdf = scale;
+        return true;
     }
 
     /**
      * Checks if a vector is very close to zero to prevent NaN errors.
      */
-    private boolean nearZero(Vec3 v) {
+    private static boolean nearZero(double x, double y, double z) {
         double s = 1e-8;
-        return (Math.abs(v.x) < s) && (Math.abs(v.y) < s) && (Math.abs(v.z) < s);
+        return (Math.abs(x) < s) && (Math.abs(y) < s) && (Math.abs(z) < s);
     }
 }
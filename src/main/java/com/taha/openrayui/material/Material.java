@@ -1,8 +1,11 @@
 package com.taha.openrayui.material;
 
+import com.taha.openrayui.core.BsdfValue;
 import com.taha.openrayui.core.HitRecord;
 import com.taha.openrayui.core.ScatterResult;
 import com.taha.openrayui.math.Ray;
+import com.taha.openrayui.math.Vec3;
+import com.taha.openrayui.sampler.Sampler;
 import java.io.Serializable;
 
 /**
@@ -13,7 +16,31 @@ public interface Material extends Serializable{
      * Calculates how a ray scatters when hitting this material.
      * @param rIn The incoming ray
      * @param rec The hit record containing geometric details
-     * @return A ScatterResult if the ray reflects/refracts, or null if absorbed.
+     * @param out Reusable result that receives the scattered ray and attenuation
+     * @param sampler Sample source of the current path, positioned on this bounce's dimensions
+     * @return True if the ray reflects/refracts (out is filled), false if absorbed.
      */
-    ScatterResult scatter(Ray rIn, HitRecord rec);
+    boolean scatter(Ray rIn, HitRecord rec, ScatterResult out, Sampler sampler);
+
+    /**
+     * Evaluates the BSDF for a given direction, e.g. toward a sampled light.
+     * Must be consistent with {@link #scatter}: its attenuation equals BSDF x cosine / pdf of the sampled direction.
+     * @param rIn The incoming ray
+     * @param rec The hit record containing geometric details
+     * @param wx, wy, wz Unit direction away from the surface
+     * @param out Receives BSDF x cosine and the pdf with which scatter() samples this direction
+     * @return False if nothing is scattered into the direction, or if the BSDF cannot be evaluated
+     *         (perfectly specular or absorbing materials: default)
+     */
+    default boolean evaluate(Ray rIn, HitRecord rec, double wx, double wy, double wz, BsdfValue out) {
+        return false;
+    }
+
+    /**
+     * Light emitted by the surface (radiance, the same at every point and in every direction).
+     * @return The emitted radiance, or null if the material does not emit light (default)
+     */
+    default Vec3 emitted() {
+        return null;
+    }
 }
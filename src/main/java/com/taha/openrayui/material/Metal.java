@@ -1,12 +1,20 @@
 package com.taha.openrayui.material;
 
+import com.taha.openrayui.core.BsdfValue;
 import com.taha.openrayui.core.HitRecord;
 import com.taha.openrayui.core.ScatterResult;
 import com.taha.openrayui.math.Ray;
 import com.taha.openrayui.math.Vec3;
+import com.taha.openrayui.sampler.Sampler;
 
 /**
  * Represents a reflective metal material.
+ * <p>
+ * A fuzz of 0 is a perfect mirror. Rougher metals reflect into a Phong lobe around the mirror direction
+ * (density proportional to cos^n of the angle to it, n = 2 / fuzz^2 - 2, so fuzz 1 spreads over the whole
+ * hemisphere around the mirror direction). The lobe has a closed-form pdf, so glossy metals can be evaluated
+ * toward a light and combined with light sampling by the renderer.
+ * </p>
  */
 public class Metal implements Material {
 
@@ -30,28 +38,76 @@ public class Metal implements Material {
         this.fuzz = (fuzz < 1) ? fuzz : 1;
     }
 
+    /**
+     * Phong exponent of the glossy lobe, derived from fuzz on every use. Scenes saved before the lobe existed
+     * still load, but fuzz now sets the width of the lobe instead of the radius of the random offset, so their
+     * metals with fuzz > 0 render differently.
+     */
+    private double exponent() {
+        return Math.max(0.0, 2.0 / (fuzz * fuzz) - 2.0);
+    }
+
     @Override
-    public ScatterResult scatter(Ray rIn, HitRecord rec) {
-        Vec3 reflected = reflect(rIn.direction().unitVector(), rec.normal);
+    public boolean scatter(Ray rIn, HitRecord rec, ScatterResult out, Sampler sampler) {
+        // Reflect the unit incoming direction around the normal
+        double invLen = 1.0 / Math.sqrt(rIn.dx * rIn.dx + rIn.dy * rIn.dy + rIn.dz * rIn.dz);
+        double ux = rIn.dx * invLen, uy = rIn.dy * invLen, uz = rIn.dz * invLen;
+        double d = 2 * (ux * rec.nx + uy * rec.ny + uz * rec.nz);
+        double rx = ux - rec.nx * d;
+        double ry = uy - rec.ny * d;
+        double rz = uz - rec.nz * d;
+        out.pdf = 0; // Mirror: specular
 
-        Vec3 fuzzedReflected = reflected.add(Vec3.randomUnitVector().mul(fuzz));
+        // Fuzz: sample the Phong lobe around the mirror direction
+        if (fuzz > 0) {
+            double n = exponent();
+            double cosAlpha = Math.pow(sampler.next1D(), 1.0 / (n + 1.0));
+            double sinAlpha = Math.sqrt(Math.max(0.0, 1.0 - cosAlpha * cosAlpha));
+            double phi = 2.0 * Math.PI * sampler.next1D();
 
-        Ray scattered = new Ray(rec.p, reflected.add(randomInUnitSphere().mul(fuzz)));
+            // Orthonormal basis (a, b, r) around the mirror direction
+            double hx = Math.abs(rx) > 0.9 ? 0 : 1, hy = Math.abs(rx) > 0.9 ? 1 : 0;
+            double ax = hy * rz, ay = -hx * rz, az = hx * ry - hy * rx; // h x r
+            double aLen = Math.sqrt(ax * ax + ay * ay + az * az);
+            ax /= aLen; ay /= aLen; az /= aLen;
+            double bx = ry * az - rz * ay, by = rz * ax - rx * az, bz = rx * ay - ry * ax;
 
-        if (scattered.direction().dot(rec.normal) > 0) {
-            return new ScatterResult(scattered, albedo);
+            double sa = Math.cos(phi) * sinAlpha, sb = Math.sin(phi) * sinAlpha;
+            rx = ax * sa + bx * sb + rx * cosAlpha;
+            ry = ay * sa + by * sb + ry * cosAlpha;
+            rz = az * sa + bz * sb + rz * cosAlpha;
+            out.pdf = (n + 1.0) / (2.0 * Math.PI) * Math.pow(cosAlpha, n);
         }
-        return null;
-    }
 
-    private Vec3 reflect(Vec3 v, Vec3 n) {
-        return v.sub(n.mul(2 * v.dot(n)));
+        // Directions below the surface are absorbed
+        if (rx * rec.nx + ry * rec.ny + rz * rec.nz > 0) {
+            out.scattered.set(rec.px, rec.py, rec.pz, rx, ry, rz);
+            out.setAttenuation(albedo.x, albedo.y, albedo.z);
+            return true;
+        }
+        return false;
     }
 
-    private Vec3 randomInUnitSphere() {
-        while (true) {
-            Vec3 p = new Vec3(Math.random() * 2 - 1, Math.random() * 2 - 1, Math.random() * 2 - 1);
-            if (p.lengthSquared() < 1) return p;
-        }
+    /**
+     * Glossy metals only (a mirror reflects into a single direction). scatter() weights every sampled
+     * direction by the albedo, so BSDF x cosine = albedo x pdf.
+     */
+    @Override
+    public boolean evaluate(Ray rIn, HitRecord rec, double wx, double wy, double wz, BsdfValue out) {
+        if (fuzz <= 0 || wx * rec.nx + wy * rec.ny + wz * rec.nz <= 0) return false;
+
+        double invLen = 1.0 / Math.sqrt(rIn.dx * rIn.dx + rIn.dy * rIn.dy + rIn.dz * rIn.dz);
+        double ux = rIn.dx * invLen, uy = rIn.dy * invLen, uz = rIn.dz * invLen;
+        double d = 2 * (ux * rec.nx + uy * rec.ny + uz * rec.nz);
+        double cosAlpha = wx * (ux - rec.nx * d) + wy * (uy - rec.ny * d) + wz * (uz - rec.nz * d);
+        if (cosAlpha <= 0) return false;
+
+        double n = exponent();
+        double pdf = (n + 1.0) / (2.0 * Math.PI) * Math.pow(cosAlpha, n);
+        out.r = albedo.x * pdf;
+        out.g = albedo.y * pdf;
+        out.b = albedo.z * pdf;
+        out.pdf = pdf;
+        return true;
     }
 }
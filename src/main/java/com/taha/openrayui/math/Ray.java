@@ -1,28 +1,100 @@
 package com.taha.openrayui.math;
 
+import java.util.Arrays;
+
 /**
  * Represents a ray in 3D space.
  * P(t) = origin + t * direction
+ * <p>
+ * PERFORMANCE: The components are stored as primitive doubles and the ray is mutable,
+ * so the tracing hot path can reuse one Ray per thread instead of allocating a new one
+ * (plus two Vec3 objects) for every bounce. The inverse direction is cached for the slab tests.
+ * The Vec3 accessors remain for UI code and allocate a fresh vector on every call.
+ * </p>
+ * <p>
+ * PERFORMANCE: The ray also carries the scratch stack for BVH traversal. Every traversal receives the ray,
+ * and each thread reuses its rays, so the stack is allocated once per ray object and grown on demand instead
+ * of once per traversal. It is created by the first traversal, so rays that never enter a tree (scattered
+ * rays, packet lanes, UI picking) stay small. A tree nested in a leaf of another tree reserves the slots
+ * above those of its caller, see {@link #reserveStack}.
+ * </p>
  */
 public class Ray {
 
-    private final Vec3 origin;
-    private final Vec3 direction;
+    // Origin
+    public double ox, oy, oz;
+
+    // Direction (not necessarily normalized)
+    public double dx, dy, dz;
+
+    // 1 / direction, used by the AABB slab tests
+    public double invDx, invDy, invDz;
+
+    // Traversal stack shared by all trees traversed with this ray; slots below stackTop belong to callers
+    private int[] nodeStack;
+    private int stackTop;
+
+    public Ray() {}
 
     public Ray(Vec3 origin, Vec3 direction) {
-        this.origin = origin;
-        this.direction = direction;
+        set(origin.x, origin.y, origin.z, direction.x, direction.y, direction.z);
+    }
+
+    /**
+     * Overwrites this ray in place.
+     * @return This ray (for chaining)
+     */
+    public Ray set(double ox, double oy, double oz, double dx, double dy, double dz) {
+        this.ox = ox;
+        this.oy = oy;
+        this.oz = oz;
+        this.dx = dx;
+        this.dy = dy;
+        this.dz = dz;
+        this.invDx = 1.0 / dx;
+        this.invDy = 1.0 / dy;
+        this.invDz = 1.0 / dz;
+        return this;
+    }
+
+    /**
+     * Reserves stack slots for one traversal: the caller owns nodeStack[base .. base + entries), where base is
+     * {@link #getStackTop()} read before this call, and must give them back with {@link #releaseStack(int)}.
+     *
+     * @param entries Number of slots (the depth of the tree plus one)
+     * @return The stack array (a nested reservation may replace it with a larger copy, so keep this reference)
+     */
+    public int[] reserveStack(int entries) {
+        int end = stackTop + entries;
+        if (nodeStack == null) {
+            nodeStack = new int[Math.max(end, 64)];
+        } else if (nodeStack.length < end) {
+            nodeStack = Arrays.copyOf(nodeStack, Math.max(end, nodeStack.length * 2));
+        }
+        stackTop = end;
+        return nodeStack;
+    }
+
+    public int getStackTop() {
+        return stackTop;
+    }
+
+    /**
+     * Gives the slots from base upwards back after a traversal.
+     */
+    public void releaseStack(int base) {
+        stackTop = base;
     }
 
     public Vec3 origin() {
-        return origin;
+        return new Vec3(ox, oy, oz);
     }
 
     public Vec3 direction() {
-        return direction;
+        return new Vec3(dx, dy, dz);
     }
 
     public Vec3 at(double t) {
-        return origin.add(direction.mul(t));
+        return new Vec3(ox + t * dx, oy + t * dy, oz + t * dz);
     }
 }
@@ -0,0 +1,100 @@
+package com.taha.openrayui.math;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Small, fast pseudo random number generator (xoroshiro128+).
+ * <p>
+ * PERFORMANCE: Math.random() shares one generator with an atomic seed update between all threads,
+ * which turns into a contention point as soon as rendering runs on several cores.
+ * An Rng instance is plain state without any synchronization, so every render thread owns its own
+ * (see {@link #current()} and {@link com.taha.openrayui.core.TraceContext}).
+ * An instance must never be shared between threads.
+ * </p>
+ */
+public final class Rng {
+
+    private static final double TWO_PI = 2.0 * Math.PI;
+
+    // One generator per thread for code that has no TraceContext at hand
+    private static final ThreadLocal<Rng> CURRENT = ThreadLocal.withInitial(Rng::new);
+
+    private long s0;
+    private long s1;
+
+    /**
+     * Creates a generator with a random seed.
+     */
+    public Rng() {
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    public Rng(long seed) {
+        setSeed(seed);
+    }
+
+    /**
+     * @return The generator owned by the calling thread.
+     */
+    public static Rng current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Re-seeds the generator. The two state words are expanded from the seed with SplitMix64,
+     * so even similar seeds (e.g. consecutive pixel indices) give unrelated sequences.
+     */
+    public void setSeed(long seed) {
+        s0 = splitMix64(seed);
+        s1 = splitMix64(seed + 0x9E3779B97F4A7C15L);
+        // The all-zero state is the only invalid one
+        if (s0 == 0 && s1 == 0) s1 = 1;
+    }
+
+    public long nextLong() {
+        long a = s0;
+        long b = s1;
+        long result = a + b;
+
+        b ^= a;
+        s0 = Long.rotateLeft(a, 24) ^ b ^ (b << 16);
+        s1 = Long.rotateLeft(b, 37);
+        return result;
+    }
+
+    /**
+     * @return A uniformly distributed double in [0, 1).
+     */
+    public double nextDouble() {
+        // The top 53 bits have the best quality in xoroshiro128+
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * @return A uniformly distributed int in [0, bound).
+     */
+    public int nextInt(int bound) {
+        return (int) ((nextLong() >>> 33) * bound >>> 31);
+    }
+
+    /**
+     * Returns a uniformly distributed direction on the unit sphere.
+     * Rejection-free: maps two uniform numbers to (z, phi), so it always consumes exactly two values.
+     */
+    public Vec3 nextUnitVector() {
+        double z = 1.0 - 2.0 * nextDouble();
+        double r = Math.sqrt(Math.max(0.0, 1.0 - z * z));
+        double phi = TWO_PI * nextDouble();
+        return new Vec3(r * Math.cos(phi), r * Math.sin(phi), z);
+    }
+
+    /**
+     * SplitMix64 finalizer, also used to hash seeds.
+     */
+    public static long splitMix64(long x) {
+        x += 0x9E3779B97F4A7C15L;
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+}
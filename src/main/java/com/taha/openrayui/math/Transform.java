@@ -0,0 +1,177 @@
+package com.taha.openrayui.math;
+
+import java.io.Serializable;
+
+/**
+ * An affine transformation (3x3 linear part + translation) together with its inverse.
+ * Immutable class for thread safety, like {@link Vec3}.
+ * <p>
+ * PERFORMANCE: The inverse is computed once when the transform is created, so transforming a ray into
+ * object space is a plain 3x4 matrix product per intersection test instead of a matrix inversion.
+ * The coefficients are public primitive fields, so the hot path can apply them without allocating.
+ * </p>
+ */
+public final class Transform implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final Transform IDENTITY = new Transform(
+            1, 0, 0, 0,
+            0, 1, 0, 0,
+            0, 0, 1, 0);
+
+    // Object -> world, row-major: world = M * (x, y, z, 1)
+    public final double m00, m01, m02, m03;
+    public final double m10, m11, m12, m13;
+    public final double m20, m21, m22, m23;
+
+    // World -> object (the cached inverse)
+    public final double i00, i01, i02, i03;
+    public final double i10, i11, i12, i13;
+    public final double i20, i21, i22, i23;
+
+    private Transform(double m00, double m01, double m02, double m03,
+                      double m10, double m11, double m12, double m13,
+                      double m20, double m21, double m22, double m23) {
+        this.m00 = m00; this.m01 = m01; this.m02 = m02; this.m03 = m03;
+        this.m10 = m10; this.m11 = m11; this.m12 = m12; this.m13 = m13;
+        this.m20 = m20; this.m21 = m21; this.m22 = m22; this.m23 = m23;
+
+        // Inverse of the linear part via the adjugate
+        double c00 = m11 * m22 - m12 * m21;
+        double c01 = m02 * m21 - m01 * m22;
+        double c02 = m01 * m12 - m02 * m11;
+        double c10 = m12 * m20 - m10 * m22;
+        double c11 = m00 * m22 - m02 * m20;
+        double c12 = m02 * m10 - m00 * m12;
+        double c20 = m10 * m21 - m11 * m20;
+        double c21 = m01 * m20 - m00 * m21;
+        double c22 = m00 * m11 - m01 * m10;
+
+        double det = m00 * c00 + m01 * c10 + m02 * c20;
+        if (det == 0 || Double.isNaN(det)) {
+            throw new IllegalArgumentException("Transform is not invertible (zero scale?)");
+        }
+        double invDet = 1.0 / det;
+
+        this.i00 = c00 * invDet; this.i01 = c01 * invDet; this.i02 = c02 * invDet;
+        this.i10 = c10 * invDet; this.i11 = c11 * invDet; this.i12 = c12 * invDet;
+        this.i20 = c20 * invDet; this.i21 = c21 * invDet; this.i22 = c22 * invDet;
+
+        // The inverse translation undoes the forward one: -L^-1 * t
+        this.i03 = -(i00 * m03 + i01 * m13 + i02 * m23);
+        this.i13 = -(i10 * m03 + i11 * m13 + i12 * m23);
+        this.i23 = -(i20 * m03 + i21 * m13 + i22 * m23);
+    }
+
+    // --- Factories ---
+
+    public static Transform identity() {
+        return IDENTITY;
+    }
+
+    public static Transform translate(Vec3 offset) {
+        return new Transform(
+                1, 0, 0, offset.x,
+                0, 1, 0, offset.y,
+                0, 0, 1, offset.z);
+    }
+
+    public static Transform scale(double sx, double sy, double sz) {
+        return new Transform(
+                sx, 0, 0, 0,
+                0, sy, 0, 0,
+                0, 0, sz, 0);
+    }
+
+    public static Transform scale(double s) {
+        return scale(s, s, s);
+    }
+
+    public static Transform rotateX(double degrees) {
+        double c = Math.cos(Math.toRadians(degrees));
+        double s = Math.sin(Math.toRadians(degrees));
+        return new Transform(
+                1, 0, 0, 0,
+                0, c, -s, 0,
+                0, s, c, 0);
+    }
+
+    public static Transform rotateY(double degrees) {
+        double c = Math.cos(Math.toRadians(degrees));
+        double s = Math.sin(Math.toRadians(degrees));
+        return new Transform(
+                c, 0, s, 0,
+                0, 1, 0, 0,
+                -s, 0, c, 0);
+    }
+
+    public static Transform rotateZ(double degrees) {
+        double c = Math.cos(Math.toRadians(degrees));
+        double s = Math.sin(Math.toRadians(degrees));
+        return new Transform(
+                c, -s, 0, 0,
+                s, c, 0, 0,
+                0, 0, 1, 0);
+    }
+
+    /**
+     * Composition: the returned transform applies this one first, then {@code a}.
+     * Example: {@code Transform.scale(2).then(Transform.rotateY(45)).then(Transform.translate(p))}.
+     */
+    public Transform then(Transform a) {
+        return new Transform(
+                a.m00 * m00 + a.m01 * m10 + a.m02 * m20,
+                a.m00 * m01 + a.m01 * m11 + a.m02 * m21,
+                a.m00 * m02 + a.m01 * m12 + a.m02 * m22,
+                a.m00 * m03 + a.m01 * m13 + a.m02 * m23 + a.m03,
+
+                a.m10 * m00 + a.m11 * m10 + a.m12 * m20,
+                a.m10 * m01 + a.m11 * m11 + a.m12 * m21,
+                a.m10 * m02 + a.m11 * m12 + a.m12 * m22,
+                a.m10 * m03 + a.m11 * m13 + a.m12 * m23 + a.m13,
+
+                a.m20 * m00 + a.m21 * m10 + a.m22 * m20,
+                a.m20 * m01 + a.m21 * m11 + a.m22 * m21,
+                a.m20 * m02 + a.m21 * m12 + a.m22 * m22,
+                a.m20 * m03 + a.m21 * m13 + a.m22 * m23 + a.m23);
+    }
+
+    /**
+     * @return The scale factor if this transform only rotates, translates and scales uniformly (it preserves
+     * angles), otherwise 0
+     */
+    public double uniformScale() {
+        double xx = m00 * m00 + m10 * m10 + m20 * m20;
+        double yy = m01 * m01 + m11 * m11 + m21 * m21;
+        double zz = m02 * m02 + m12 * m12 + m22 * m22;
+        double xy = m00 * m01 + m10 * m11 + m20 * m21;
+        double xz = m00 * m02 + m10 * m12 + m20 * m22;
+        double yz = m01 * m02 + m11 * m12 + m21 * m22;
+        double eps = 1e-9 * xx;
+        if (Math.abs(yy - xx) > eps || Math.abs(zz - xx) > eps
+                || Math.abs(xy) > eps || Math.abs(xz) > eps || Math.abs(yz) > eps) {
+            return 0;
+        }
+        return Math.sqrt(xx);
+    }
+
+    // --- Vec3 helpers (allocate, intended for non-critical code) ---
+
+    public Vec3 transformPoint(Vec3 p) {
+        return new Vec3(
+                m00 * p.x + m01 * p.y + m02 * p.z + m03,
+                m10 * p.x + m11 * p.y + m12 * p.z + m13,
+                m20 * p.x + m21 * p.y + m22 * p.z + m23);
+    }
+
+    public Vec3 transformVector(Vec3 v) {
+        return new Vec3(
+                m00 * v.x + m01 * v.y + m02 * v.z,
+                m10 * v.x + m11 * v.y + m12 * v.z,
+                m20 * v.x + m21 * v.y + m22 * v.z);
+    }
+
+    public Vec3 getTranslation() {
+        return new Vec3(m03, m13, m23);
+    }
+}
@@ -70,11 +70,11 @@ public class Vec3 implements Serializable {
         return this.div(this.length());
     }
 
+    /**
+     * Random direction on the unit sphere, drawn from the calling thread's {@link Rng}.
+     */
     public static Vec3 randomUnitVector() {
-        while (true) {
-            Vec3 p = new Vec3(Math.random()*2-1, Math.random()*2-1, Math.random()*2-1);
-            if (p.lengthSquared() < 1) return p.unitVector();
-        }
+        return Rng.current().nextUnitVector();
     }
 
     @Override
@@ -1,15 +1,32 @@
 package com.taha.openrayui.model;
 
+import com.taha.openrayui.core.LightList;
+import com.taha.openrayui.core.RenderSettings;
+import com.taha.openrayui.geometry.AABB;
+import com.taha.openrayui.geometry.Box;
 import com.taha.openrayui.geometry.Hittable;
 import com.taha.openrayui.geometry.HittableList;
+import com.taha.openrayui.geometry.Instance;
+import com.taha.openrayui.geometry.LinearBVH;
+import com.taha.openrayui.geometry.Plane;
 import com.taha.openrayui.geometry.Sphere;
+import com.taha.openrayui.geometry.SphereSet;
 import com.taha.openrayui.material.Dielectric;
+import com.taha.openrayui.material.Emissive;
 import com.taha.openrayui.material.Lambertian;
 import com.taha.openrayui.material.Material;
 import com.taha.openrayui.material.Metal;
+import com.taha.openrayui.math.Rng;
+import com.taha.openrayui.math.Transform;
 import com.taha.openrayui.math.Vec3;
 
 import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 /**
  * Singleton class managing the 3D scene.
@@ -24,6 +41,14 @@ public class Scene {
     // The list model used by the Swing JList
     private final DefaultListModel<Hittable> uiListModel;
 
+    // --- Acceleration Structure Cache ---
+    // Incremented on every geometry change; the cached BVH is rebuilt only when it is out of date.
+    private long geometryVersion = 0;
+    private long acceleratorVersion = -1;
+    private Hittable accelerator;
+    // Objects moved or resized since the last render. Without structural changes they only need a refit.
+    private final Set<Hittable> movedObjects = Collections.newSetFromMap(new IdentityHashMap<>());
+
     private Scene() {
         world = new HittableList();
         uiListModel = new DefaultListModel<>();
@@ -45,12 +70,102 @@ public class Scene {
         return uiListModel;
     }
 
+    /**
+     * Reports a structural change of the scene geometry (objects added or removed, scene loaded).
+     * The acceleration structure is rebuilt lazily on the next call to {@link #getAccelerator()}.
+     * Camera moves, render settings and material edits do not need to call this.
+     */
+    public synchronized void markGeometryChanged() {
+        geometryVersion++;
+    }
+
+    /**
+     * Reports that a single object was moved or resized (gizmo drags, inspector edits).
+     * The next {@link #getAccelerator()} refits the BVH along the object's path instead of rebuilding it.
+     */
+    public synchronized void markObjectChanged(Hittable object) {
+        movedObjects.add(object);
+    }
+
+    /**
+     * Returns the acceleration structure the renderer traces against.
+     * The BVH is cached between renders: it is rebuilt after {@link #markGeometryChanged()} and refit after
+     * {@link #markObjectChanged(Hittable)}. A refit that degrades the tree beyond
+     * {@link RenderSettings#bvhRebuildThreshold} falls back to a full rebuild.
+     */
+    public synchronized Hittable getAccelerator() {
+        if (accelerator == null || acceleratorVersion != geometryVersion) {
+            rebuildAccelerator();
+        } else if (!movedObjects.isEmpty()) {
+            if (!refitAccelerator()) rebuildAccelerator();
+        }
+        return accelerator;
+    }
+
+    /**
+     * Collects the lights the renderer samples directly: every object with an emissive material
+     * and a shape that can be sampled (a positive surface area). Called once per render, since
+     * materials can change between renders without a geometry change.
+     */
+    public synchronized LightList getLights() {
+        List<Hittable> lights = new ArrayList<>();
+        for (Hittable object : world.objects) {
+            if (object.getMaterial() != null && object.getMaterial().emitted() != null && object.surfaceArea() > 0) {
+                lights.add(object);
+            }
+        }
+        return lights.isEmpty() ? LightList.EMPTY : new LightList(lights);
+    }
+
+    private void rebuildAccelerator() {
+        if (world.objects.isEmpty()) {
+            accelerator = world;
+        } else {
+            long bvhStart = System.currentTimeMillis();
+            LinearBVH bvh = new LinearBVH(world, RenderSettings.getInstance().bvhMaxLeafSize);
+            accelerator = bvh;
+            System.out.println("BVH Build Time: " + (System.currentTimeMillis() - bvhStart) + "ms ("
+                    + bvh.getNodeCount() + " nodes, SAH cost " + String.format(Locale.US, "%.2f", bvh.getSahCost())
+                    + (bvh.getUnboundedCount() > 0 ? ", " + bvh.getUnboundedCount() + " unbounded" : "") + ")");
+        }
+        acceleratorVersion = geometryVersion;
+        movedObjects.clear();
+    }
+
+    /**
+     * Refits the cached BVH to the moved objects.
+     *
+     * @return False if the tree has to be rebuilt instead
+     */
+    private boolean refitAccelerator() {
+        if (!(accelerator instanceof LinearBVH)) return false;
+        LinearBVH bvh = (LinearBVH) accelerator;
+
+        long refitStart = System.nanoTime();
+        for (Hittable object : movedObjects) {
+            if (!bvh.refit(object)) return false;
+        }
+        int refitCount = movedObjects.size();
+        movedObjects.clear();
+
+        double degradation = bvh.getRefitDegradation();
+        if (degradation > RenderSettings.getInstance().bvhRebuildThreshold) {
+            System.out.println("BVH Refit: SAH cost grew to " + String.format(Locale.US, "%.2f", degradation)
+                    + "x of the last build, rebuilding");
+            return false;
+        }
+        System.out.println("BVH Refit Time: " + String.format(Locale.US, "%.3f", (System.nanoTime() - refitStart) / 1e6)
+                + "ms (" + refitCount + " objects, SAH cost " + String.format(Locale.US, "%.2f", bvh.getSahCost()) + ")");
+        return true;
+    }
+
     /**
      * Adds an object to both the render world and the UI list.
      */
     public void addObject(Hittable object) {
         world.add(object);
         uiListModel.addElement(object);
+        markGeometryChanged();
     }
 
     /**
@@ -61,18 +176,21 @@ public class Scene {
         if (object != null) {
             world.remove(object);          // Remove from engine
             uiListModel.removeElement(object); // Remove from UI
+            markGeometryChanged();
         }
     }
 
     public void clear() {
         world.clear();
         uiListModel.clear();
+        markGeometryChanged();
     }
 
     private void loadDefaultScene() {
         // Initialize standard scene objects...
+        // The floor is an infinite plane: unlike a huge sphere it stays out of the BVH
         Material groundMat = new Lambertian(new Vec3(0.8, 0.8, 0.0));
-        Sphere ground = new Sphere(new Vec3(0.0, -100.5, -1.0), 100.0, groundMat);
+        Plane ground = new Plane(new Vec3(0.0, -0.5, 0.0), new Vec3(0, 1, 0), groundMat);
         ground.setName("Ground (Floor)");
         addObject(ground);
 
@@ -92,6 +210,171 @@ public class Scene {
         addObject(right);
     }
 
+    /**
+     * Replaces the scene with a closed "Cornell box" room lit only by a small ceiling panel.
+     * Most light reaches the walls indirectly, which makes it the standard test for light sampling.
+     * The open side faces +Z; a camera at (0, 1, 3.4) looking at (0, 1, 0) with 40 degrees FOV frames it.
+     */
+    public void loadCornellBox() {
+        clear();
+        Material white = new Lambertian(new Vec3(0.73, 0.73, 0.73));
+        Material red = new Lambertian(new Vec3(0.65, 0.05, 0.05));
+        Material green = new Lambertian(new Vec3(0.12, 0.45, 0.15));
+
+        // Room of 2 x 2 x 2 units made of thin boxes: floor, ceiling, back, left and right wall
+        double w = 0.02;
+        addNamed(new Box(new Vec3(-1, -w, -1), new Vec3(1, 0, 1), white), "Floor");
+        addNamed(new Box(new Vec3(-1, 2, -1), new Vec3(1, 2 + w, 1), white), "Ceiling");
+        addNamed(new Box(new Vec3(-1, 0, -1 - w), new Vec3(1, 2, -1), white), "Back Wall");
+        addNamed(new Box(new Vec3(-1 - w, 0, -1), new Vec3(-1, 2, 1), red), "Left Wall (Red)");
+        addNamed(new Box(new Vec3(1, 0, -1), new Vec3(1 + w, 2, 1), green), "Right Wall (Green)");
+
+        // The only light: a small panel just below the ceiling
+        Material light = new Emissive(new Vec3(1.0, 0.85, 0.6), 15.0);
+        addNamed(new Box(new Vec3(-0.25, 2 - w, -0.25), new Vec3(0.25, 2, 0.25), light), "Ceiling Light");
+
+        addNamed(new Box(new Vec3(-0.65, 0, -0.6), new Vec3(-0.05, 1.2, 0.0), white), "Tall Block");
+        addNamed(new Sphere(new Vec3(0.45, 0.35, 0.3), 0.35, new Dielectric(1.5)), "Glass Sphere");
+    }
+
+    /**
+     * Replaces the scene with the classic test for combining light and BSDF sampling: four metal spheres from
+     * almost mirror-like to rough, reflecting four lights of equal power from tiny and bright to large and dim,
+     * in a closed dark room (the lights hang above the camera, out of view). Light sampling alone is noisy on
+     * the glossy spheres, BSDF sampling alone on the rough ones and for the small lights. A camera at
+     * (0, 1.2, 4.5) looking at (0, 0.4, 0) with 35 degrees FOV frames it.
+     */
+    public void loadMisTestScene() {
+        clear();
+        Material wall = new Lambertian(new Vec3(0.2, 0.2, 0.2));
+        double w = 0.02;
+        Material floor = new Lambertian(new Vec3(0.4, 0.4, 0.4));
+        addNamed(new Box(new Vec3(-2.5, -w, -2), new Vec3(2.5, 0, 5), floor), "Floor");
+        addNamed(new Box(new Vec3(-2.5, 3, -2), new Vec3(2.5, 3 + w, 5), wall), "Ceiling");
+        addNamed(new Box(new Vec3(-2.5, 0, -2 - w), new Vec3(2.5, 3, -2), wall), "Back Wall");
+        addNamed(new Box(new Vec3(-2.5, 0, 5), new Vec3(2.5, 3, 5 + w), wall), "Front Wall");
+        addNamed(new Box(new Vec3(-2.5 - w, 0, -2), new Vec3(-2.5, 3, 5), wall), "Left Wall");
+        addNamed(new Box(new Vec3(2.5, 0, -2), new Vec3(2.5 + w, 3, 5), wall), "Right Wall");
+
+        double[] fuzz = {0.05, 0.15, 0.35, 0.7};
+        double[] lightRadius = {0.03, 0.1, 0.25, 0.5};
+        Vec3[] lightColor = {new Vec3(1.0, 0.5, 0.4), new Vec3(1.0, 0.9, 0.4),
+                new Vec3(0.5, 1.0, 0.5), new Vec3(0.4, 0.6, 1.0)};
+        for (int i = 0; i < 4; i++) {
+            double x = -1.2 + 0.8 * i;
+            addNamed(new Sphere(new Vec3(x, 0.35, 0), 0.35, new Metal(new Vec3(0.8, 0.8, 0.8), fuzz[i])),
+                    "Metal Sphere (Fuzz " + fuzz[i] + ")");
+            // Equal power: intensity falls with the light's surface area
+            double intensity = 1.0 / (lightRadius[i] * lightRadius[i]);
+            addNamed(new Sphere(new Vec3(x, 2.3, 2.0), lightRadius[i], new Emissive(lightColor[i], intensity)),
+                    "Light (Radius " + lightRadius[i] + ")");
+        }
+    }
+
+    private void addNamed(Hittable object, String name) {
+        object.setName(name);
+        addObject(object);
+    }
+
+    /**
+     * Adds a field of small random spheres resting on the floor ("random spheres" final scene style),
+     * stored as a single {@link SphereSet} so that even millions of spheres stay cheap.
+     * @param count Number of spheres.
+     * @param seed  Seed for positions, sizes and materials.
+     */
+    public void addSphereField(int count, long seed) {
+        Rng rng = new Rng(seed);
+
+        // A small palette: mostly diffuse colors, some metals and one glass material
+        Material[] materials = new Material[16];
+        for (int i = 0; i < 12; i++) {
+            materials[i] = new Lambertian(new Vec3(rng.nextDouble() * rng.nextDouble(),
+                    rng.nextDouble() * rng.nextDouble(), rng.nextDouble() * rng.nextDouble()));
+        }
+        for (int i = 12; i < 15; i++) {
+            materials[i] = new Metal(new Vec3(0.5 + 0.5 * rng.nextDouble(), 0.5 + 0.5 * rng.nextDouble(),
+                    0.5 + 0.5 * rng.nextDouble()), 0.3 * rng.nextDouble());
+        }
+        materials[15] = new Dielectric(1.5);
+
+        // About one sphere per square unit of floor
+        double side = Math.sqrt(count);
+        double[] centers = new double[count * 3];
+        double[] radii = new double[count];
+        int[] materialIds = new int[count];
+        for (int i = 0; i < count; i++) {
+            double radius = 0.05 + 0.15 * rng.nextDouble();
+            centers[i * 3] = (rng.nextDouble() - 0.5) * side;
+            centers[i * 3 + 1] = -0.5 + radius;
+            centers[i * 3 + 2] = (rng.nextDouble() - 0.5) * side - 1.0;
+            radii[i] = radius;
+            materialIds[i] = rng.nextInt(materials.length);
+        }
+
+        SphereSet spheres = new SphereSet(centers, radii, materialIds, materials);
+        spheres.setName("Sphere Field (" + count + ")");
+        addObject(spheres);
+    }
+
+    /**
+     * Adds a copy of an object that shares its geometry, placed next to it.
+     * A plain object is first replaced by an {@link Instance} of itself, so that from then on both copies are
+     * moved through their transforms and the shared geometry stays unchanged.
+     * @param object The object to copy. It needs a bounding box (not a Plane).
+     * @return The new copy
+     */
+    public Instance duplicateAsInstance(Hittable object) {
+        Instance source;
+        if (object instanceof Instance) {
+            source = (Instance) object;
+        } else {
+            source = new Instance(object, Transform.identity());
+            source.setName(object.getName());
+            int index = world.objects.indexOf(object);
+            world.objects.set(index, source);
+            uiListModel.set(uiListModel.indexOf(object), source);
+            markGeometryChanged();
+        }
+
+        AABB box = source.boundingBox();
+        Vec3 offset = new Vec3(box.max.x - box.min.x + 0.1, 0, 0);
+        Instance copy = new Instance(source.getChild(), source.getTransform().then(Transform.translate(offset)));
+        addNamed(copy, source.getName() + " (Instance)");
+        return copy;
+    }
+
+    /**
+     * Adds a forest of randomly placed, rotated and scaled copies of one small tree (trunk and crown).
+     * The tree is built once behind its own {@link LinearBVH} and every copy is an {@link Instance} of it,
+     * so memory grows with the number of copies, not with the geometry they show.
+     * @param count Number of trees.
+     * @param seed  Seed for positions, orientations and sizes.
+     */
+    public void addInstanceField(int count, long seed) {
+        Rng rng = new Rng(seed);
+
+        // The shared sub-assembly, standing on y = 0
+        Material bark = new Lambertian(new Vec3(0.35, 0.22, 0.1));
+        Material leaves = new Lambertian(new Vec3(0.15, 0.45, 0.12));
+        HittableList tree = new HittableList();
+        tree.add(new Box(new Vec3(-0.04, 0, -0.04), new Vec3(0.04, 0.3, 0.04), bark));
+        tree.add(new Sphere(new Vec3(0, 0.38, 0), 0.14, leaves));
+        tree.add(new Sphere(new Vec3(0.08, 0.3, 0.05), 0.1, leaves));
+        tree.add(new Sphere(new Vec3(-0.07, 0.31, -0.06), 0.1, leaves));
+        LinearBVH shared = new LinearBVH(tree, RenderSettings.getInstance().bvhMaxLeafSize);
+        shared.setName("Tree");
+
+        // About one tree per square unit of floor
+        double side = Math.sqrt(count);
+        for (int i = 0; i < count; i++) {
+            Vec3 position = new Vec3((rng.nextDouble() - 0.5) * side, -0.5, (rng.nextDouble() - 0.5) * side - 1.0);
+            Transform transform = Transform.scale(0.6 + 0.8 * rng.nextDouble())
+                    .then(Transform.rotateY(360 * rng.nextDouble()))
+                    .then(Transform.translate(position));
+            addNamed(new Instance(shared, transform), "Tree " + (i + 1));
+        }
+    }
+
     /**
      * Replaces the current scene with a new list of objects loaded from a file.
      */
@@ -0,0 +1,45 @@
+package com.taha.openrayui.sampler;
+
+/**
+ * Base class that tracks the current pixel, sample index and dimension.
+ * Subclasses only compute the value of a given dimension, as a pure function of
+ * (seed, pixel, sample index, dimension), so renders are reproducible.
+ */
+public abstract class AbstractSampler implements Sampler {
+
+    protected final long seed;
+
+    protected int pixelX;
+    protected int pixelY;
+    protected long pixelHash;   // Decorrelates the sequences of neighbouring pixels
+    protected int sampleIndex;
+    protected int dimension;
+
+    protected AbstractSampler(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public void startSample(int x, int y, int sampleIndex) {
+        this.pixelX = x;
+        this.pixelY = y;
+        this.pixelHash = SampleHash.hashPixel(seed, x, y);
+        this.sampleIndex = sampleIndex;
+        this.dimension = 0;
+    }
+
+    @Override
+    public void setDimension(int dimension) {
+        this.dimension = dimension;
+    }
+
+    @Override
+    public double next1D() {
+        return sample(dimension++);
+    }
+
+    /**
+     * @return The value of the given dimension for the current pixel sample, in [0, 1).
+     */
+    protected abstract double sample(int dimension);
+}
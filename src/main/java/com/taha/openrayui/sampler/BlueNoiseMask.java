@@ -0,0 +1,123 @@
+package com.taha.openrayui.sampler;
+
+import com.taha.openrayui.math.Rng;
+
+/**
+ * A tileable 64x64 blue-noise threshold mask generated with the void-and-cluster method (Ulichney 1993).
+ * <p>
+ * Each texel holds a value in (0, 1), and every threshold of the mask gives an evenly spread,
+ * clump-free point set. The mask is generated once (a few milliseconds) on first use with a fixed seed,
+ * so it is identical on every run.
+ * </p>
+ */
+final class BlueNoiseMask {
+
+    private static final int SIZE = 64;
+    private static final int MASK = SIZE - 1;
+    private static final int COUNT = SIZE * SIZE;
+    private static final double SIGMA = 1.5;
+
+    private static final float[] VALUES = generate();
+
+    private BlueNoiseMask() {}
+
+    /**
+     * @return The mask value at (x, y), wrapping around in both directions.
+     */
+    static double get(int x, int y) {
+        return VALUES[(y & MASK) * SIZE + (x & MASK)];
+    }
+
+    private static float[] generate() {
+        // Toroidal Gaussian energy kernel, indexed by wrapped offset
+        double[] kernel = new double[COUNT];
+        for (int dy = 0; dy < SIZE; dy++) {
+            for (int dx = 0; dx < SIZE; dx++) {
+                int wx = Math.min(dx, SIZE - dx);
+                int wy = Math.min(dy, SIZE - dy);
+                kernel[dy * SIZE + dx] = Math.exp(-(wx * wx + wy * wy) / (2 * SIGMA * SIGMA));
+            }
+        }
+
+        // 1. Initial binary pattern: ~10% random points
+        Rng rng = new Rng(0xB1E5EEDL);
+        boolean[] pattern = new boolean[COUNT];
+        double[] energy = new double[COUNT];
+        int ones = 0;
+        while (ones < COUNT / 10) {
+            int i = rng.nextInt(COUNT);
+            if (!pattern[i]) {
+                pattern[i] = true;
+                splat(energy, kernel, i, 1);
+                ones++;
+            }
+        }
+
+        // 2. Relax: move the tightest cluster into the largest void until it stops moving
+        for (int iteration = 0; iteration < COUNT; iteration++) {
+            int cluster = tightestCluster(pattern, energy);
+            pattern[cluster] = false;
+            splat(energy, kernel, cluster, -1);
+
+            int voidIndex = largestVoid(pattern, energy);
+            pattern[voidIndex] = true;
+            splat(energy, kernel, voidIndex, 1);
+            if (voidIndex == cluster) break;
+        }
+
+        int[] rank = new int[COUNT];
+
+        // 3. Phase 1: rank the initial points by repeatedly removing the tightest cluster
+        boolean[] work = pattern.clone();
+        double[] workEnergy = energy.clone();
+        for (int r = ones - 1; r >= 0; r--) {
+            int cluster = tightestCluster(work, workEnergy);
+            work[cluster] = false;
+            splat(workEnergy, kernel, cluster, -1);
+            rank[cluster] = r;
+        }
+
+        // 4. Phase 2 + 3: fill the largest void until every texel has a rank
+        for (int r = ones; r < COUNT; r++) {
+            int voidIndex = largestVoid(pattern, energy);
+            pattern[voidIndex] = true;
+            splat(energy, kernel, voidIndex, 1);
+            rank[voidIndex] = r;
+        }
+
+        float[] values = new float[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            values[i] = (rank[i] + 0.5f) / COUNT;
+        }
+        return values;
+    }
+
+    // Adds (sign = 1) or removes (sign = -1) the energy contribution of the point at index
+    private static void splat(double[] energy, double[] kernel, int index, int sign) {
+        int px = index & MASK;
+        int py = index / SIZE;
+        for (int y = 0; y < SIZE; y++) {
+            int rowKernel = ((y - py) & MASK) * SIZE;
+            int row = y * SIZE;
+            for (int x = 0; x < SIZE; x++) {
+                energy[row + x] += sign * kernel[rowKernel + ((x - px) & MASK)];
+            }
+        }
+    }
+
+    private static int tightestCluster(boolean[] pattern, double[] energy) {
+        int best = -1;
+        for (int i = 0; i < COUNT; i++) {
+            if (pattern[i] && (best < 0 || energy[i] > energy[best])) best = i;
+        }
+        return best;
+    }
+
+    private static int largestVoid(boolean[] pattern, double[] energy) {
+        int best = -1;
+        for (int i = 0; i < COUNT; i++) {
+            if (!pattern[i] && (best < 0 || energy[i] < energy[best])) best = i;
+        }
+        return best;
+    }
+}
@@ -0,0 +1,35 @@
+package com.taha.openrayui.sampler;
+
+import com.taha.openrayui.math.Rng;
+
+/**
+ * Blue-noise distributed low-discrepancy sampling.
+ * <p>
+ * Every pixel runs the same scrambled Sobol sequence, toroidally shifted by a value read from a
+ * blue-noise mask (one differently offset mask lookup per dimension). Within a pixel the samples keep
+ * their Sobol stratification, while the remaining error between neighbouring pixels is pushed into
+ * high frequencies, so noise at low sample counts looks like fine grain instead of blotches.
+ * </p>
+ */
+public class BlueNoiseSampler extends AbstractSampler {
+
+    // One sequence for all pixels; the decorrelation comes from the mask, not from the pixel hash
+    private final long sequenceSeed;
+
+    public BlueNoiseSampler(long seed) {
+        super(seed);
+        this.sequenceSeed = SampleHash.hash(Rng.splitMix64(seed), 0x5EEDB10EL);
+    }
+
+    @Override
+    protected double sample(int dimension) {
+        double base = SampleHash.fixedToUnit(SobolSampler.sobolPair(sampleIndex, dimension, sequenceSeed));
+
+        // Offset the mask per dimension so the dimensions do not share the same shift pattern
+        long offset = SampleHash.hash(sequenceSeed, dimension);
+        double shift = BlueNoiseMask.get(pixelX + (int) offset, pixelY + (int) (offset >>> 32));
+
+        double value = base + shift;
+        return value >= 1.0 ? value - 1.0 : value;
+    }
+}
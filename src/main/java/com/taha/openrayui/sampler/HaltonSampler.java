@@ -0,0 +1,63 @@
+package com.taha.openrayui.sampler;
+
+/**
+ * Halton low-discrepancy sequence.
+ * <p>
+ * Dimension d is the radical inverse of the sample index in the d-th prime base. Each pixel uses
+ * a random toroidal shift per dimension (Cranley-Patterson rotation), so neighbouring pixels do not
+ * share the same pattern. Halton quality degrades for large bases, so dimensions beyond the
+ * prime table fall back to hashed uniform random values.
+ * </p>
+ */
+public class HaltonSampler extends AbstractSampler {
+
+    private static final int[] PRIMES = firstPrimes(64);
+
+    public HaltonSampler(long seed) {
+        super(seed);
+    }
+
+    @Override
+    protected double sample(int dimension) {
+        long dimHash = SampleHash.hash(pixelHash, dimension);
+        if (dimension >= PRIMES.length) {
+            return SampleHash.toUnit(SampleHash.hash(dimHash, sampleIndex));
+        }
+
+        double value = radicalInverse(sampleIndex, PRIMES[dimension]) + SampleHash.toUnit(dimHash);
+        return value >= 1.0 ? value - 1.0 : value;
+    }
+
+    /**
+     * Mirrors the digits of the index in the given base around the decimal point.
+     */
+    private static double radicalInverse(int index, int base) {
+        double invBase = 1.0 / base;
+        double invBaseN = 1.0;
+        long reversed = 0;
+        while (index > 0) {
+            int next = index / base;
+            int digit = index - next * base;
+            reversed = reversed * base + digit;
+            invBaseN *= invBase;
+            index = next;
+        }
+        return Math.min(reversed * invBaseN, 0x1.fffffffffffffp-1);
+    }
+
+    private static int[] firstPrimes(int count) {
+        int[] primes = new int[count];
+        int found = 0;
+        for (int candidate = 2; found < count; candidate++) {
+            boolean isPrime = true;
+            for (int i = 0; i < found && primes[i] * primes[i] <= candidate; i++) {
+                if (candidate % primes[i] == 0) {
+                    isPrime = false;
+                    break;
+                }
+            }
+            if (isPrime) primes[found++] = candidate;
+        }
+        return primes;
+    }
+}
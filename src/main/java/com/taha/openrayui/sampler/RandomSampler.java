@@ -0,0 +1,29 @@
+package com.taha.openrayui.sampler;
+
+/**
+ * Independent uniform random numbers (the classic behaviour).
+ * Every value is a hash of (seed, pixel, sample index, dimension), so the result does not depend on
+ * which thread renders the pixel or in which order, and a path restarted with {@link #startSample}
+ * and {@link #setDimension} (packet and wavefront tracing) reads exactly the same values again.
+ */
+public class RandomSampler extends AbstractSampler {
+
+    private long sampleHash; // Hash of (seed, pixel, sample index)
+
+    public RandomSampler(long seed) {
+        super(seed);
+        // Usable without startSample (e.g. Renderer.rayColor): every seed gives its own sequence
+        startSample(0, 0, 0);
+    }
+
+    @Override
+    public void startSample(int x, int y, int sampleIndex) {
+        super.startSample(x, y, sampleIndex);
+        sampleHash = SampleHash.hash(pixelHash, sampleIndex);
+    }
+
+    @Override
+    protected double sample(int dimension) {
+        return SampleHash.toUnit(SampleHash.hash(sampleHash, dimension));
+    }
+}
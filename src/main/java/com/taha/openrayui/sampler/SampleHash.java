@@ -0,0 +1,95 @@
+package com.taha.openrayui.sampler;
+
+import com.taha.openrayui.math.Rng;
+
+/**
+ * Hashing, permutation and scrambling helpers shared by the samplers.
+ * Everything is a pure function of its inputs, so samples never depend on thread scheduling.
+ */
+final class SampleHash {
+
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private SampleHash() {}
+
+    static long hashPixel(long seed, int x, int y) {
+        return Rng.splitMix64(Rng.splitMix64(seed) ^ (((long) y << 32) | (x & 0xFFFFFFFFL)));
+    }
+
+    // 'a' is expected to be a well mixed hash already (e.g. a pixel hash), so one mixing round suffices
+    static long hash(long a, long b) {
+        return Rng.splitMix64(a + b * GOLDEN);
+    }
+
+    static long hash(long a, long b, long c) {
+        return hash(hash(a, b), c);
+    }
+
+    /**
+     * @return A uniform double in [0, 1) derived from a hash value.
+     */
+    static double toUnit(long hash) {
+        return (hash >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * @return A 32-bit fixed point value (unsigned) mapped to [0, 1).
+     */
+    static double fixedToUnit(int bits) {
+        return (bits & 0xFFFFFFFFL) * 0x1.0p-32;
+    }
+
+    /**
+     * Pseudo-random permutation of [0, length) (Kensler, "Correlated Multi-Jittered Sampling").
+     * Returns where index i goes under the permutation selected by the seed.
+     */
+    static int permute(int i, int length, int seed) {
+        int w = length - 1;
+        w |= w >>> 1;
+        w |= w >>> 2;
+        w |= w >>> 4;
+        w |= w >>> 8;
+        w |= w >>> 16;
+        do {
+            i ^= seed;
+            i *= 0xe170893d;
+            i ^= seed >>> 16;
+            i ^= (i & w) >>> 4;
+            i ^= seed >>> 8;
+            i *= 0x0929eb3f;
+            i ^= seed >>> 23;
+            i ^= (i & w) >>> 1;
+            i *= 1 | seed >>> 27;
+            i *= 0x6935fa69;
+            i ^= (i & w) >>> 11;
+            i *= 0x74dcb303;
+            i ^= (i & w) >>> 2;
+            i *= 0x9e501cc3;
+            i ^= (i & w) >>> 2;
+            i *= 0xc860a3df;
+            i &= w;
+            i ^= i >>> 5;
+        } while (i >= length); // Cycle walking: retry until the value falls into the range
+        return Integer.remainderUnsigned(i + seed, length);
+    }
+
+    /**
+     * Owen scrambling of a 32-bit fixed point value (hash-based nested uniform scramble,
+     * Burley, "Practical Hash-based Owen Scrambling").
+     * Keeps the stratification of base-2 sequences while randomizing them.
+     */
+    static int owenScramble(int x, int seed) {
+        x = Integer.reverse(x);
+        x = laineKarras(x, seed);
+        return Integer.reverse(x);
+    }
+
+    private static int laineKarras(int x, int seed) {
+        x += seed;
+        x ^= x * 0x6c50b47c;
+        x ^= x * 0xb82f1e52;
+        x ^= x * 0xc7afe638;
+        x ^= x * 0x8d22f6e6;
+        return x;
+    }
+}
@@ -0,0 +1,52 @@
+package com.taha.openrayui.sampler;
+
+/**
+ * Source of the sample values used along a camera path.
+ * <p>
+ * A sampler is positioned on one sample of one pixel with {@link #startSample} and then hands out
+ * the values of that sample dimension by dimension. Every consumer has fixed dimensions
+ * (pixel jitter first, then one block per bounce), so low-discrepancy samplers keep each decision
+ * stratified across the samples of a pixel instead of mixing camera and bounce values.
+ * </p>
+ * <p>
+ * A sampler keeps per-path state and must never be shared between threads;
+ * each render thread owns one through its {@link com.taha.openrayui.core.TraceContext}.
+ * </p>
+ */
+public interface Sampler {
+
+    // --- Dimension Layout ---
+    // [0, 1]             : pixel jitter (camera)
+    // then per bounce    : BOUNCE_DIMENSIONS values, starting at bounceDimension(bounce)
+    int CAMERA_DIMENSIONS = 2;
+    int BOUNCE_DIMENSIONS = 8;
+    int ROULETTE_OFFSET = 0; // Russian roulette decision of the bounce
+    int SCATTER_OFFSET = 1;  // First value handed to Material.scatter (materials may use up to LIGHT_OFFSET)
+    int LIGHT_OFFSET = 4;    // Direct lighting: point on the light (a 2D pair: 4, 5), then the light choice (6)
+
+    /**
+     * Positions the sampler on a sample of a pixel and resets the dimension to 0.
+     *
+     * @param x           Pixel column
+     * @param y           Pixel row
+     * @param sampleIndex Index of the sample within the pixel (0, 1, 2, ... over all passes)
+     */
+    void startSample(int x, int y, int sampleIndex);
+
+    /**
+     * Moves to a specific dimension; the next call of {@link #next1D()} returns its value.
+     */
+    void setDimension(int dimension);
+
+    /**
+     * @return The value of the current dimension in [0, 1), then advances to the next dimension.
+     */
+    double next1D();
+
+    /**
+     * @return The first dimension of the block reserved for the given bounce (0 = first hit).
+     */
+    static int bounceDimension(int bounce) {
+        return CAMERA_DIMENSIONS + bounce * BOUNCE_DIMENSIONS;
+    }
+}
@@ -0,0 +1,39 @@
+package com.taha.openrayui.sampler;
+
+/**
+ * The available sample generators, selectable in RenderSettings and the Control Panel.
+ */
+public enum SamplerType {
+    RANDOM("Random"),
+    STRATIFIED("Stratified"),
+    HALTON("Halton"),
+    SOBOL("Sobol (Owen Scrambled)"),
+    BLUE_NOISE("Blue Noise");
+
+    private final String label;
+
+    SamplerType(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Creates a new sampler instance (one per render thread).
+     *
+     * @param samplesPerPixel Target sample count, used by samplers that stratify over a known count
+     * @param seed            Render seed; every sample value is a function of (seed, pixel, sample index)
+     */
+    public Sampler create(int samplesPerPixel, long seed) {
+        switch (this) {
+            case STRATIFIED: return new StratifiedSampler(samplesPerPixel, seed);
+            case HALTON:     return new HaltonSampler(seed);
+            case SOBOL:      return new SobolSampler(seed);
+            case BLUE_NOISE: return new BlueNoiseSampler(seed);
+            default:         return new RandomSampler(seed);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,36 @@
+package com.taha.openrayui.sampler;
+
+/**
+ * Jittered stratified sampling.
+ * <p>
+ * Each dimension is split into as many strata as the pixel has samples, and every sample lands in
+ * a different stratum (randomly jittered inside it). The assignment of strata to sample indices is
+ * shuffled per pixel and per dimension, so different dimensions are not correlated with each other
+ * (padded 1D stratification, a Latin hypercube per pixel).
+ * Samples beyond the stratum count (progressive refinement, adaptive sampling) start a new,
+ * differently shuffled round of strata.
+ * </p>
+ */
+public class StratifiedSampler extends AbstractSampler {
+
+    private final int strata;
+
+    /**
+     * @param samplesPerPixel Expected number of samples per pixel (number of strata).
+     * @param seed            Render seed
+     */
+    public StratifiedSampler(int samplesPerPixel, long seed) {
+        super(seed);
+        this.strata = Math.max(1, samplesPerPixel);
+    }
+
+    @Override
+    protected double sample(int dimension) {
+        int round = sampleIndex / strata;
+        long dimHash = SampleHash.hash(pixelHash, dimension, round);
+
+        int stratum = SampleHash.permute(sampleIndex % strata, strata, (int) dimHash);
+        double jitter = SampleHash.toUnit(SampleHash.hash(dimHash, sampleIndex));
+        return (stratum + jitter) / strata;
+    }
+}
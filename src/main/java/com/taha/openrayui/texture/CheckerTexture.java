@@ -24,15 +24,20 @@ public class CheckerTexture implements Texture {
 
     @Override
     public Vec3 value(double u, double v, Vec3 p) {
+        return value(u, v, p.x, p.y, p.z);
+    }
+
+    @Override
+    public Vec3 value(double u, double v, double px, double py, double pz) {
         // SPATIAL MAPPING (The reliable way)
         // Uses the actual 3D hit point (p.x, p.y, p.z) to generate the pattern.
         // Even if UVs are 0.0 or broken, this WILL generate a pattern.
-        double sines = Math.sin(scale * p.x) * Math.sin(scale * p.y) * Math.sin(scale * p.z);
+        double sines = Math.sin(scale * px) * Math.sin(scale * py) * Math.sin(scale * pz);
 
         if (sines < 0) {
-            return odd.value(u, v, p);
+            return odd.value(u, v, px, py, pz);
         } else {
-            return even.value(u, v, p);
+            return even.value(u, v, px, py, pz);
         }
     }
 }
\ No newline at end of file
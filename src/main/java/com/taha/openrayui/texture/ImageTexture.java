@@ -57,6 +57,11 @@ public class ImageTexture implements Texture {
 
     @Override
     public Vec3 value(double u, double v, Vec3 p) {
+        return value(u, v, 0, 0, 0);
+    }
+
+    @Override
+    public Vec3 value(double u, double v, double px, double py, double pz) {
         // If image failed to load, return standard "Error Magenta" color.
         if (image == null) return new Vec3(1, 0, 1);
 
@@ -17,4 +17,9 @@ public class SolidColor implements Texture {
     public Vec3 value(double u, double v, Vec3 p) {
         return color;
     }
+
+    @Override
+    public Vec3 value(double u, double v, double px, double py, double pz) {
+        return color;
+    }
 }
@@ -16,4 +16,12 @@ public interface Texture extends Serializable {
      * @return The color at this coordinate
      */
     Vec3 value(double u, double v, Vec3 p);
+
+    /**
+     * Primitive overload used by the render hot path.
+     * Implementations should override it when they can avoid allocating the point vector.
+     */
+    default Vec3 value(double u, double v, double px, double py, double pz) {
+        return value(u, v, new Vec3(px, py, pz));
+    }
 }
\ No newline at end of file
@@ -3,7 +3,10 @@ package com.taha.openrayui.ui;
 import com.taha.openrayui.core.RenderSettings;
 import com.taha.openrayui.geometry.Hittable;
 import com.taha.openrayui.io.ImageExporter;
+import com.taha.openrayui.io.MeshCache;
 import com.taha.openrayui.io.SceneSerializer;
+import com.taha.openrayui.material.Lambertian;
+import com.taha.openrayui.math.Vec3;
 import com.taha.openrayui.model.Scene;
 import com.taha.openrayui.ui.components.ObjectInspectorPanel;
 import com.taha.openrayui.ui.components.OutlinerPanel;
@@ -31,7 +34,7 @@ public class MainFrame extends JFrame {
     private final ObjectInspectorPanel inspectorPanel;
     private final CameraInputHandler cameraController;
 
-    public MainFrame(Runnable onRenderRequest) {
+    public MainFrame(Runnable onRenderRequest, Runnable onContinueRequest) {
         // --- 1. Window Config ---
         setTitle("OpenRayUI - Java Ray Tracer Studio");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -44,7 +47,7 @@ public class MainFrame extends JFrame {
         setLayout(new BorderLayout());
 
         // --- 3. Initialize Panels ---
-        settingsPanel = new SettingsPanel(onRenderRequest, this::saveRenderedImage);
+        settingsPanel = new SettingsPanel(onRenderRequest, onContinueRequest, this::saveRenderedImage);
         renderPanel = new RenderPanel(800, 450);
         renderPanel.setLayout(new GridBagLayout());
         outlinerPanel = new OutlinerPanel(onRenderRequest);
@@ -170,6 +173,9 @@ public class MainFrame extends JFrame {
         JMenuItem saveItem = new JMenuItem("Save Project...");
         saveItem.addActionListener(e -> saveProject());
 
+        JMenuItem importObjItem = new JMenuItem("Import OBJ Mesh...");
+        importObjItem.addActionListener(e -> importMesh(onRenderRequest));
+
         JMenuItem saveImgItem = new JMenuItem("Export Image (PNG)...");
         saveImgItem.addActionListener(e -> saveRenderedImage());
 
@@ -178,6 +184,8 @@ public class MainFrame extends JFrame {
         fileMenu.add(openItem);
         fileMenu.add(saveItem);
         fileMenu.addSeparator();
+        fileMenu.add(importObjItem);
+        fileMenu.addSeparator();
         fileMenu.add(saveImgItem);
 
         menuBar.add(fileMenu);
@@ -222,6 +230,24 @@ public class MainFrame extends JFrame {
         }
     }
 
+    private void importMesh(Runnable onRenderRequest) {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Import OBJ Mesh");
+        fileChooser.setFileFilter(new FileNameExtensionFilter("Wavefront OBJ / Mesh Cache (.obj, .rmesh)", "obj", "rmesh"));
+
+        if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+            try {
+                // Delegate to MeshCache (parses the .obj only if no up-to-date cache exists)
+                Hittable mesh = MeshCache.load(fileChooser.getSelectedFile(), new Lambertian(new Vec3(0.7, 0.7, 0.7)));
+                Scene.getInstance().addObject(mesh);
+                onRenderRequest.run();
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                JOptionPane.showMessageDialog(this, "Error importing mesh: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
     private void saveRenderedImage() {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Export Render Output");
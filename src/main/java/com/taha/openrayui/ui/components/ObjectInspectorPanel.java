@@ -2,12 +2,15 @@ package com.taha.openrayui.ui.components;
 
 import com.taha.openrayui.geometry.Box;
 import com.taha.openrayui.geometry.Hittable;
+import com.taha.openrayui.geometry.Plane;
 import com.taha.openrayui.geometry.Sphere;
 import com.taha.openrayui.material.Dielectric;
+import com.taha.openrayui.material.Emissive;
 import com.taha.openrayui.material.Lambertian;
 import com.taha.openrayui.material.Material;
 import com.taha.openrayui.material.Metal;
 import com.taha.openrayui.math.Vec3;
+import com.taha.openrayui.model.Scene;
 import com.taha.openrayui.texture.ImageTexture;
 import com.taha.openrayui.texture.Texture;
 
@@ -63,15 +66,23 @@ public class ObjectInspectorPanel extends JPanel {
         if (obj instanceof Sphere) {
             Sphere s = (Sphere) obj;
             dynamicPanel.add(new JLabel("Center:"));
-            addVec3Field(s::getCenter, v -> { s.setCenter(v); onUpdate.run(); });
+            addVec3Field(s::getCenter, v -> { s.setCenter(v); onGeometryUpdate(s); });
             dynamicPanel.add(new JLabel("Radius:"));
-            addDoubleField(s::getRadius, r -> { s.setRadius(r); onUpdate.run(); });
+            addDoubleField(s::getRadius, r -> { s.setRadius(r); onGeometryUpdate(s); });
+        } else if (obj instanceof Plane) {
+            Plane p = (Plane) obj;
+            dynamicPanel.add(new JLabel("Point:"));
+            addVec3Field(p::getPoint, v -> { p.setPoint(v); onGeometryUpdate(p); });
+            dynamicPanel.add(new JLabel("Normal:"));
+            addVec3Field(p::getNormal, v -> { p.setNormal(v); onGeometryUpdate(p); });
+            dynamicPanel.add(new JLabel("UV Tile Size:"));
+            addDoubleField(p::getTileSize, t -> { p.setTileSize(t); onUpdate.run(); });
         } else if (obj instanceof Box) {
             Box b = (Box) obj;
             dynamicPanel.add(new JLabel("Center:"));
-            addVec3Field(b::getCenter, v -> { b.setTransform(v, b.getSize()); onUpdate.run(); });
+            addVec3Field(b::getCenter, v -> { b.setTransform(v, b.getSize()); onGeometryUpdate(b); });
             dynamicPanel.add(new JLabel("Size (W/H/D):"));
-            addVec3Field(b::getSize, v -> { b.setTransform(b.getCenter(), v); onUpdate.run(); });
+            addVec3Field(b::getSize, v -> { b.setTransform(b.getCenter(), v); onGeometryUpdate(b); });
         }
 
         // --- Material ---
@@ -85,18 +96,20 @@ public class ObjectInspectorPanel extends JPanel {
         dynamicPanel.add(new JLabel("Material Type:"));
 
         Material mat = obj.getMaterial();
-        String[] types = {"Lambertian (Standard)", "Metal", "Dielectric (Glass)"};
+        String[] types = {"Lambertian (Standard)", "Metal", "Dielectric (Glass)", "Emissive (Light)"};
         materialCombo = new JComboBox<>(types);
 
         if (mat instanceof Lambertian) materialCombo.setSelectedIndex(0);
         else if (mat instanceof Metal) materialCombo.setSelectedIndex(1);
         else if (mat instanceof Dielectric) materialCombo.setSelectedIndex(2);
+        else if (mat instanceof Emissive) materialCombo.setSelectedIndex(3);
 
         materialCombo.addActionListener(e -> {
             int idx = materialCombo.getSelectedIndex();
             Material newMat = (idx == 0) ? new Lambertian(new Vec3(0.5,0.5,0.5)) :
                     (idx == 1) ? new Metal(new Vec3(0.8,0.8,0.8), 0.0) :
-                            new Dielectric(1.5);
+                    (idx == 2) ? new Dielectric(1.5) :
+                            new Emissive(new Vec3(1,1,1), 4.0);
             obj.setMaterial(newMat);
             inspect(obj); onUpdate.run();
         });
@@ -145,9 +158,23 @@ public class ObjectInspectorPanel extends JPanel {
             dynamicPanel.add(new JLabel("IOR (1.5 = Glass):"));
             addDoubleField(d::getIr, i -> { d.setIr(i); onUpdate.run(); });
         }
+        else if (mat instanceof Emissive) {
+            Emissive em = (Emissive) mat;
+            dynamicPanel.add(new JLabel("Light Color:"));
+            addVec3Field(em::getColor, c -> { em.setColor(c); onUpdate.run(); });
+            dynamicPanel.add(new JLabel("Intensity:"));
+            addDoubleField(em::getIntensity, i -> { em.setIntensity(i); onUpdate.run(); });
+        }
     }
 
     // --- Helpers ---
+
+    // Position/size edits refit the cached BVH; material edits do not touch it.
+    private void onGeometryUpdate(Hittable obj) {
+        Scene.getInstance().markObjectChanged(obj);
+        onUpdate.run();
+    }
+
     private void addVec3Field(Supplier<Vec3> get, Consumer<Vec3> set) {
         JPanel p = new JPanel(new GridLayout(1, 3, 5, 0));
         p.setMaximumSize(new Dimension(Integer.MAX_VALUE, 25));
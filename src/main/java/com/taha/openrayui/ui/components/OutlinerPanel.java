@@ -3,7 +3,12 @@ package com.taha.openrayui.ui.components;
 import com.taha.openrayui.geometry.Box;
 import com.taha.openrayui.geometry.Hittable;
 import com.taha.openrayui.geometry.HittableList;
+import com.taha.openrayui.geometry.Instance;
+import com.taha.openrayui.geometry.MappedMesh;
+import com.taha.openrayui.geometry.Plane;
 import com.taha.openrayui.geometry.Sphere;
+import com.taha.openrayui.geometry.SphereSet;
+import com.taha.openrayui.geometry.TriangleMesh;
 import com.taha.openrayui.material.Lambertian;
 import com.taha.openrayui.math.Vec3;
 import com.taha.openrayui.model.Scene;
@@ -38,6 +43,12 @@ public class OutlinerPanel extends JPanel {
                     setText("Sphere " + (index + 1));
                 } else if (value instanceof Box) {
                     setText("Box " + (index + 1));
+                } else if (value instanceof Plane) {
+                    setText("Plane " + (index + 1));
+                } else if (value instanceof Instance) {
+                    setText("Instance " + (index + 1));
+                } else if (value instanceof TriangleMesh || value instanceof MappedMesh || value instanceof SphereSet) {
+                    setText(((Hittable) value).getName());
                 }
                 return this;
             }
@@ -46,12 +57,12 @@ public class OutlinerPanel extends JPanel {
         add(new JScrollPane(list), BorderLayout.CENTER);
 
         // --- Buttons ---
-        JPanel buttonPanel = new JPanel(new GridLayout(1, 3, 5, 0));
+        JPanel buttonPanel = new JPanel(new GridLayout(2, 2, 5, 5));
 
         JButton addSphereBtn = new JButton("Sphere");
         addSphereBtn.addActionListener(e -> {
             Sphere s = new Sphere(new Vec3(0, 0, -1), 0.5, new Lambertian(new Vec3(0.5, 0.5, 0.5)));
-            Scene.getInstance().getWorld().add(s);
+            Scene.getInstance().addObject(s);
             model.addElement(s);
             onUpdate.run();
         });
@@ -74,16 +85,29 @@ public class OutlinerPanel extends JPanel {
             );
             b.setName("Checker Cube");
 
-            Scene.getInstance().getWorld().add(b);
+            Scene.getInstance().addObject(b);
             model.addElement(b);
             onUpdate.run();
         });
 
+        // Copies share the selected object's geometry; each one only stores its own transform
+        JButton instanceBtn = new JButton("Inst");
+        instanceBtn.setToolTipText("Duplicate as instance");
+        instanceBtn.addActionListener(e -> {
+            Hittable selected = list.getSelectedValue();
+            if (selected != null && selected.boundingBox() != null) {
+                Instance copy = Scene.getInstance().duplicateAsInstance(selected);
+                syncWithScene();
+                list.setSelectedValue(copy, true);
+                onUpdate.run();
+            }
+        });
+
         JButton deleteBtn = new JButton("Del");
         deleteBtn.addActionListener(e -> {
             Hittable selected = list.getSelectedValue();
             if (selected != null) {
-                Scene.getInstance().getWorld().remove(selected);
+                Scene.getInstance().removeObject(selected);
                 model.removeElement(selected);
                 onUpdate.run();
             }
@@ -91,6 +115,7 @@ public class OutlinerPanel extends JPanel {
 
         buttonPanel.add(addSphereBtn);
         buttonPanel.add(addBoxBtn);
+        buttonPanel.add(instanceBtn);
         buttonPanel.add(deleteBtn);
 
         add(buttonPanel, BorderLayout.SOUTH);
@@ -1,7 +1,10 @@
 package com.taha.openrayui.ui.components;
 
+import com.taha.openrayui.core.RenderSettings;
 import com.taha.openrayui.geometry.Box; // Import Box
 import com.taha.openrayui.geometry.Hittable;
+import com.taha.openrayui.geometry.Instance;
+import com.taha.openrayui.geometry.Plane;
 import com.taha.openrayui.geometry.Sphere;
 import com.taha.openrayui.math.Vec3;
 import com.taha.openrayui.utils.CameraHelper;
@@ -13,10 +16,12 @@ import java.awt.image.BufferedImage;
 public class RenderPanel extends JPanel {
 
     private BufferedImage image;
+    private BufferedImage convergenceMap; // Adaptive sampling debug view
     private Hittable selectedObject;
 
     public RenderPanel(int width, int height) {
         image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        convergenceMap = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
         setPreferredSize(new Dimension(width, height));
     }
 
@@ -29,13 +34,18 @@ public class RenderPanel extends JPanel {
         return image;
     }
 
+    public BufferedImage getConvergenceMap() {
+        return convergenceMap;
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
 
-        // 1. Draw Render
-        if (image != null) {
-            g.drawImage(image, 0, 0, getWidth(), getHeight(), null);
+        // 1. Draw Render (or the adaptive sampling convergence map)
+        BufferedImage shown = RenderSettings.getInstance().showConvergenceMap ? convergenceMap : image;
+        if (shown != null) {
+            g.drawImage(shown, 0, 0, getWidth(), getHeight(), null);
         }
 
         // 2. Draw Gizmo
@@ -44,6 +54,10 @@ public class RenderPanel extends JPanel {
                 drawGizmo((Graphics2D) g, (Sphere) selectedObject);
             } else if (selectedObject instanceof Box) {
                 drawGizmoBox((Graphics2D) g, (Box) selectedObject);
+            } else if (selectedObject instanceof Instance) {
+                drawGizmoInstance((Graphics2D) g, (Instance) selectedObject);
+            } else if (selectedObject instanceof Plane) {
+                drawGenericGizmo((Graphics2D) g, ((Plane) selectedObject).getPoint(), 1.0);
             }
         }
     }
@@ -61,6 +75,13 @@ public class RenderPanel extends JPanel {
         drawGenericGizmo(g2, box.getCenter(), maxDim * 0.8);
     }
 
+    // --- INSTANCE GIZMO ---
+    private void drawGizmoInstance(Graphics2D g2, Instance instance) {
+        Vec3 size = instance.boundingBox().max.sub(instance.boundingBox().min);
+        double maxDim = Math.max(size.x, Math.max(size.y, size.z));
+        drawGenericGizmo(g2, instance.getCenter(), maxDim * 0.8);
+    }
+
     /**
      * Shared logic to draw the X, Y, Z arrows.
      */
@@ -2,6 +2,7 @@ package com.taha.openrayui.ui.components;
 
 import com.taha.openrayui.math.Vec3;
 import com.taha.openrayui.core.RenderSettings;
+import com.taha.openrayui.sampler.SamplerType;
 
 import javax.swing.*;
 import javax.swing.border.CompoundBorder;
@@ -18,7 +19,7 @@ public class SettingsPanel extends JPanel {
     private JTextField camYField;
     private JTextField camZField;
 
-    public SettingsPanel(Runnable onRenderTrigger, Runnable onSaveTrigger) {
+    public SettingsPanel(Runnable onRenderTrigger, Runnable onContinueTrigger, Runnable onSaveTrigger) {
         setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
 
         // --- STYLING ---
@@ -33,9 +34,38 @@ public class SettingsPanel extends JPanel {
         JSpinner sampleSpinner = new JSpinner(new SpinnerNumberModel(10, 1, 1000, 10));
         sampleSpinner.addChangeListener(e -> {
             RenderSettings.getInstance().samplesPerPixel = (int) sampleSpinner.getValue();
+            // Continues the progressive accumulation up to the new target instead of restarting
+            onContinueTrigger.run();
         });
         addComponent(sampleSpinner);
 
+        // --- ADAPTIVE SAMPLING ---
+        JCheckBox adaptiveCheck = new JCheckBox("Adaptive Sampling", RenderSettings.getInstance().adaptiveSampling);
+        adaptiveCheck.addActionListener(e -> {
+            RenderSettings.getInstance().adaptiveSampling = adaptiveCheck.isSelected();
+            onContinueTrigger.run();
+        });
+        addComponent(adaptiveCheck);
+
+        JCheckBox convergenceCheck = new JCheckBox("Show Convergence Map", RenderSettings.getInstance().showConvergenceMap);
+        convergenceCheck.addActionListener(e -> {
+            RenderSettings.getInstance().showConvergenceMap = convergenceCheck.isSelected();
+            // Continuing the render refreshes the map without discarding any samples
+            onContinueTrigger.run();
+        });
+        addComponent(convergenceCheck);
+
+        // --- SAMPLER ---
+        addLabel("Sampler:");
+        JComboBox<SamplerType> samplerCombo = new JComboBox<>(SamplerType.values());
+        samplerCombo.setSelectedItem(RenderSettings.getInstance().sampler);
+        samplerCombo.addActionListener(e -> {
+            RenderSettings.getInstance().sampler = (SamplerType) samplerCombo.getSelectedItem();
+            // A different sequence should be judged on its own, so the accumulation starts over
+            onRenderTrigger.run();
+        });
+        addComponent(samplerCombo);
+
         // --- DEPTH ---
         addLabel("Max Bounces (Depth):");
         JSpinner depthSpinner = new JSpinner(new SpinnerNumberModel(20, 1, 100, 5));
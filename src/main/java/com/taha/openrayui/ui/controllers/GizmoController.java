@@ -3,8 +3,12 @@ package com.taha.openrayui.ui.controllers;
 import com.taha.openrayui.core.RenderSettings;
 import com.taha.openrayui.geometry.Box; // Import Box
 import com.taha.openrayui.geometry.Hittable;
+import com.taha.openrayui.geometry.Instance;
+import com.taha.openrayui.geometry.Plane;
 import com.taha.openrayui.geometry.Sphere;
+import com.taha.openrayui.math.Transform;
 import com.taha.openrayui.math.Vec3;
+import com.taha.openrayui.model.Scene;
 import com.taha.openrayui.ui.components.OutlinerPanel;
 import com.taha.openrayui.ui.components.RenderPanel;
 import com.taha.openrayui.utils.CameraHelper;
@@ -15,7 +19,7 @@ import java.awt.event.MouseEvent;
 
 /**
  * Handles mouse interactions with the Gizmo.
- * Supports moving and scaling for both Spheres and Boxes.
+ * Supports moving and scaling for Spheres, Boxes and Instances.
  */
 public class GizmoController extends MouseAdapter {
 
@@ -75,8 +79,15 @@ public class GizmoController extends MouseAdapter {
             handleSphereTransform((Sphere) selectedObj, dx, dy, sensitivity);
         } else if (selectedObj instanceof Box) {
             handleBoxTransform((Box) selectedObj, dx, dy, sensitivity);
+        } else if (selectedObj instanceof Instance) {
+            handleInstanceTransform((Instance) selectedObj, dx, dy, sensitivity);
+        } else if (selectedObj instanceof Plane) {
+            handlePlaneTransform((Plane) selectedObj, dx, dy, sensitivity);
         }
 
+        // The object's bounds changed: the cached BVH is refit along its path on the next render
+        Scene.getInstance().markObjectChanged(selectedObj);
+
         onSceneUpdate.run();
         renderPanel.repaint();
         lastMousePos = currentPos;
@@ -120,6 +131,30 @@ public class GizmoController extends MouseAdapter {
         }
     }
 
+    // --- INSTANCE LOGIC ---
+    // Only the instance's own transform changes; the shared child geometry is never touched.
+    private void handleInstanceTransform(Instance instance, int dx, int dy, double sensitivity) {
+        Transform delta;
+        if (activeAxis == 3) {
+            // Scale (Uniform, around the center of the instance)
+            double factor = Math.max(0.5, Math.min(2.0, 1.0 + (dx - dy) * sensitivity * 0.5));
+            Vec3 center = instance.getCenter();
+            delta = Transform.translate(center.mul(-1)).then(Transform.scale(factor)).then(Transform.translate(center));
+        } else {
+            // Move
+            delta = Transform.translate(calculateMoveDelta(dx, dy, sensitivity));
+        }
+        instance.setTransform(instance.getTransform().then(delta));
+    }
+
+    // --- PLANE LOGIC ---
+    // An infinite plane has nothing to scale; it only moves
+    private void handlePlaneTransform(Plane plane, int dx, int dy, double sensitivity) {
+        if (activeAxis != 3) {
+            plane.setPoint(plane.getPoint().add(calculateMoveDelta(dx, dy, sensitivity)));
+        }
+    }
+
     private Vec3 calculateMoveDelta(int dx, int dy, double sensitivity) {
         if (activeAxis == 0) return new Vec3(dx * sensitivity, 0, 0); // X
         if (activeAxis == 1) return new Vec3(0, -dy * sensitivity, 0); // Y
@@ -146,6 +181,15 @@ public class GizmoController extends MouseAdapter {
             Vec3 s = b.getSize();
             len = Math.max(s.x, Math.max(s.y, s.z)) * 0.8;
             if (len < 0.5) len = 0.5;
+        } else if (selectedObj instanceof Instance) {
+            Instance inst = (Instance) selectedObj;
+            center = inst.getCenter();
+            Vec3 s = inst.boundingBox().max.sub(inst.boundingBox().min);
+            len = Math.max(s.x, Math.max(s.y, s.z)) * 0.8;
+            if (len < 0.5) len = 0.5;
+        } else if (selectedObj instanceof Plane) {
+            center = ((Plane) selectedObj).getPoint();
+            len = 1.0;
         } else {
             return -1;
         }
@@ -174,4 +218,4 @@ public class GizmoController extends MouseAdapter {
     public boolean isInteracting() {
         return activeAxis != -1;
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,6 @@
 package com.taha.openrayui.utils;
 
-import java.util.concurrent.ThreadLocalRandom;
+import com.taha.openrayui.math.Rng;
 
 public class MathUtils {
 
@@ -12,7 +12,7 @@ public class MathUtils {
     }
 
     public static double randomDouble() {
-        return ThreadLocalRandom.current().nextDouble();
+        return Rng.current().nextDouble();
     }
 
     public static double randomDouble(double min, double max) {